@@ -0,0 +1,283 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.Arrays;
+
+/**
+ * Probabilistic BestMatch25 (BM25) as a {@link Similarity}.
+ * A document term weighs idf * ((k1 + 1) * tf) / (k1 * ((1 - b) + b * dl / avgdl + tf)), where dl is the length of
+ * the raw text, and a query term weighs ((k3 + 1) * qtf) / (k3 + qtf). The score is not normalized.
+ * <p>
+ * A BM25Similarity may be bound to one index, for which it precomputes its k1/b-dependent data: the block-max metadata,
+ * which bounds the weights much tighter than the term statistics do, and dense arrays of the IDFs and of the length
+ * normalizations, so that scoring a posting of that index takes no map lookup.
+ * <p>
+ * Bound to a {@link CorpusIndex#isSegmentView() view of a segment}, whose IDFs and average document length change on
+ * every refresh, it only computes the length normalizations: the IDF is weighed on the query side instead, and the
+ * blocks are bounded by their highest term frequency and shortest document, which the views of the segment share,
+ * see {@link BlockStatistics}. The scores are the same up to rounding.
+ */
+class BM25Similarity implements Similarity {
+
+    /**
+     * Default tuning variables of {@link MyCoolSearcher}; every {@link CorpusIndex} carries block maxima for them
+     */
+    static final double DEFAULT_K1 = 1.2;
+    static final double DEFAULT_B = 0.75;
+    static final double DEFAULT_K3 = 2.0;
+
+    /**
+     * Tuning variables
+     */
+    private final double k1;
+    private final double b;
+    private final double k3;
+
+    /**
+     * The index the precomputed data belongs to, or null if there is none
+     */
+    private final CorpusIndex boundIndex;
+
+    /**
+     * Block maxima of the term weights in {@link BM25Similarity#boundIndex} for k1 and b
+     */
+    private final BlockMaxScores blockMaxScores;
+
+    /**
+     * IDF of every term of {@link BM25Similarity#boundIndex}, indexed by termId
+     */
+    private final double[] termIdf;
+
+    /**
+     * b * dl / avgdl of every document of {@link BM25Similarity#boundIndex}, indexed by docId,
+     * or null if the Ids are negative or too sparse for a dense array, or the index is off the heap
+     */
+    private final double[] lengthNorms;
+
+    /**
+     * The block statistics of the segment {@link BM25Similarity#boundIndex} is a view of, or null unless it is one;
+     * the IDF is then weighed on the query side of the bound index
+     */
+    private final BlockStatistics blockStatistics;
+
+    BM25Similarity(double k1, double b, double k3) {
+        this(k1, b, k3, null, null, null, null, null);
+    }
+
+    /**
+     * A similarity bound to one index. The block maxima are the ones the index carries for the default tuning,
+     * or computed from every posting of the index for any other k1 and b.
+     *
+     * @param corpusIndex the index this similarity will mostly search
+     */
+    BM25Similarity(double k1, double b, double k3, CorpusIndex corpusIndex) {
+        this(k1, b, k3, corpusIndex, corpusIndex.isSegmentView() ? null : blockMaxScores(k1, b, k3, corpusIndex),
+                corpusIndex.isSegmentView() ? null : termIdf(corpusIndex), lengthNorms(corpusIndex, b),
+                corpusIndex.isSegmentView() ? corpusIndex.getSegmentData(BlockStatistics.class, BlockStatistics::new) : null);
+    }
+
+    private BM25Similarity(double k1, double b, double k3, CorpusIndex boundIndex, BlockMaxScores blockMaxScores,
+                           double[] termIdf, double[] lengthNorms, BlockStatistics blockStatistics) {
+        this.k1 = k1;
+        this.b = b;
+        this.k3 = k3;
+        this.boundIndex = boundIndex;
+        this.blockMaxScores = blockMaxScores;
+        this.termIdf = termIdf;
+        this.lengthNorms = lengthNorms;
+        this.blockStatistics = blockStatistics;
+    }
+
+    /**
+     * @param k3 the new k3
+     * @return the same similarity with another k3; the precomputed data does not depend on k3, so it is kept
+     */
+    BM25Similarity withTuningK3(double k3) {
+        return new BM25Similarity(k1, b, k3, boundIndex, blockMaxScores, termIdf, lengthNorms, blockStatistics);
+    }
+
+    double getK1() {
+        return k1;
+    }
+
+    double getB() {
+        return b;
+    }
+
+    double getK3() {
+        return k3;
+    }
+
+    private static BlockMaxScores blockMaxScores(double k1, double b, double k3, CorpusIndex corpusIndex) {
+        return k1 == DEFAULT_K1 && b == DEFAULT_B ? corpusIndex.getBlockMaxScores()
+                : BlockMaxScores.compute(corpusIndex, new BM25Similarity(k1, b, k3));
+    }
+
+    private static double[] termIdf(CorpusIndex corpusIndex) {
+        double[] termIdf = new double[corpusIndex.getTermCount() + 1];
+        for (int termId = 1; termId < termIdf.length; termId++) {
+            termIdf[termId] = corpusIndex.getTermIdfScore().get(termId);
+        }
+        return termIdf;
+    }
+
+    private static double[] lengthNorms(CorpusIndex corpusIndex, double b) {
+        if (!corpusIndex.hasDenseDocIds() || corpusIndex.isOffHeap()) {
+            return null;
+        }
+        double avgdl = corpusIndex.getAverageDocumentLength();
+        IntIntHashMap documentLengthMap = corpusIndex.getDocumentLengthMap();
+        double[] lengthNorms = new double[corpusIndex.getMaxDocId() + 1];
+        for (int slot = documentLengthMap.nextSlot(-1); slot >= 0; slot = documentLengthMap.nextSlot(slot)) {
+            lengthNorms[documentLengthMap.keyAt(slot)] = lengthNorm(b, documentLengthMap.valueAt(slot), avgdl);
+        }
+        return lengthNorms;
+    }
+
+    @Override
+    public double queryTermWeight(CorpusIndex corpusIndex, int termId, int queryTermFreq) {
+        double weight = ((k3 + 1) * queryTermFreq) / (k3 + queryTermFreq);
+        return isQueryTimeIdf(corpusIndex) ? weight * corpusIndex.getTermIdfScore().get(termId) : weight;
+    }
+
+    @Override
+    public double termWeight(CorpusIndex corpusIndex, int termId, int termFreq, int docId) {
+        if (corpusIndex == boundIndex && lengthNorms != null) {
+            return weight(termIdf != null ? termIdf[termId] : 1, termFreq, lengthNorms[docId]);
+        }
+        return weight(documentIdf(corpusIndex, termId), termFreq,
+                lengthNorm(b, corpusIndex.getDocumentLengthMap().get(docId), corpusIndex.getAverageDocumentLength()));
+    }
+
+    /**
+     * @return whether the IDF is weighed on the query side of an index rather than in its postings
+     */
+    private boolean isQueryTimeIdf(CorpusIndex corpusIndex) {
+        return corpusIndex == boundIndex && blockStatistics != null;
+    }
+
+    /**
+     * @return the IDF a posting of a term is weighed with, 1 if it is weighed on the query side
+     */
+    private double documentIdf(CorpusIndex corpusIndex, int termId) {
+        return isQueryTimeIdf(corpusIndex) ? 1 : corpusIndex.getTermIdfScore().get(termId);
+    }
+
+    /**
+     * Without block maxima for the index: the weight grows with the term frequency and shrinks with the document
+     * length as long as k1 is positive and b is within [0, 1], so the highest term frequency and the shortest
+     * document of a term bound all of its weights.
+     */
+    @Override
+    public double termWeightUpperBound(CorpusIndex corpusIndex, int termId) {
+        if (corpusIndex == boundIndex && blockMaxScores != null) {
+            return blockMaxScores.getTermUpperBound(termId);
+        }
+        if (!hasMonotoneWeights()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return weight(documentIdf(corpusIndex, termId), corpusIndex.getTermMaxFrequency().get(termId),
+                lengthNorm(b, corpusIndex.getTermMinDocumentLength().get(termId),
+                        corpusIndex.getAverageDocumentLength()));
+    }
+
+    @Override
+    public double blockWeightUpperBound(CorpusIndex corpusIndex, int termId, int block) {
+        if (corpusIndex == boundIndex && blockMaxScores != null) {
+            return blockMaxScores.getBlockUpperBound(termId, block);
+        }
+        if (isQueryTimeIdf(corpusIndex) && hasMonotoneWeights()) {
+            // The same bound as the one of the whole term, over the postings of the block
+            int segmentTermId = corpusIndex.getSegmentTermId(termId);
+            return weight(1, blockStatistics.maxFrequencies[segmentTermId][block],
+                    lengthNorm(b, blockStatistics.minDocumentLengths[segmentTermId][block],
+                            corpusIndex.getAverageDocumentLength()));
+        }
+        return termWeightUpperBound(corpusIndex, termId);
+    }
+
+    /**
+     * @return whether the weight grows with the term frequency and shrinks with the document length, and the query
+     * term weights are not negative
+     */
+    private boolean hasMonotoneWeights() {
+        return k1 > 0 && b >= 0 && b <= 1 && k3 >= 0;
+    }
+
+    /**
+     * BM25 weight of a term in a document
+     *
+     * @param idf        IDF of the term
+     * @param termFreq   frequency of the term in the document
+     * @param lengthNorm the {@link BM25Similarity#lengthNorm} of the document
+     * @return the weight
+     */
+    private double weight(double idf, int termFreq, double lengthNorm) {
+        return idf * ((k1 + 1) * termFreq) / (k1 * ((1 - b) + (lengthNorm + termFreq)));
+    }
+
+    /**
+     * @param b              tuning variable b
+     * @param documentLength length of the raw text of a document
+     * @param avgdl          average length of the raw texts
+     * @return b * dl / avgdl, the part of the length normalization that depends on the document
+     */
+    private static double lengthNorm(double b, int documentLength, double avgdl) {
+        return b * (documentLength / avgdl);
+    }
+
+    @Override
+    public double normalize(CorpusIndex corpusIndex, int docId, double score, QueryEngine.Query query) {
+        return score;
+    }
+
+    @Override
+    public double getFillScore() {
+        // Irrelevant documents are padded with NaN (Not-a-Number) score
+        return Double.NaN;
+    }
+
+    /**
+     * The highest term frequency and the shortest document of every block of {@link PostingList#BLOCK_SIZE} postings
+     * of every term of an index. Unlike block maxima, they depend on neither the tuning nor the collection statistics,
+     * so they are computed once for a segment and bound its weights under any IDF and average document length.
+     */
+    static final class BlockStatistics {
+        private static final int[] EMPTY = new int[0];
+
+        /**
+         * Indexed by termId then block; index 0 is empty
+         */
+        private final int[][] maxFrequencies;
+        private final int[][] minDocumentLengths;
+
+        BlockStatistics(CorpusIndex corpusIndex) {
+            IntIntHashMap documentLengthMap = corpusIndex.getDocumentLengthMap();
+            maxFrequencies = new int[corpusIndex.getTermCount() + 1][];
+            minDocumentLengths = new int[maxFrequencies.length][];
+            maxFrequencies[0] = EMPTY;
+            minDocumentLengths[0] = EMPTY;
+            for (int termId = 1; termId < maxFrequencies.length; termId++) {
+                PostingList postingList = corpusIndex.getPostingLists().get(termId);
+                int[] frequencies = new int[postingList.blockCount()];
+                int[] lengths = new int[postingList.blockCount()];
+                Arrays.fill(lengths, Integer.MAX_VALUE);
+                PostingList.Cursor cursor = postingList.cursor();
+                for (int i = 0; cursor.nextDoc() != PostingList.NO_MORE_DOCS; i++) {
+                    int block = i / PostingList.BLOCK_SIZE;
+                    frequencies[block] = Math.max(frequencies[block], cursor.termFrequency());
+                    lengths[block] = Math.min(lengths[block], documentLengthMap.get(cursor.docId()));
+                }
+                maxFrequencies[termId] = frequencies;
+                minDocumentLengths[termId] = lengths;
+            }
+        }
+    }
+}
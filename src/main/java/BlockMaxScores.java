@@ -0,0 +1,110 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+/**
+ * Block-max metadata: the highest term weight of a {@link Similarity} in every block of
+ * {@link PostingList#BLOCK_SIZE} postings of every term of a {@link CorpusIndex}.
+ * <p>
+ * The maxima are stored as floats rounded up, so they never fall below the weights they bound.
+ * They are only valid for the index and the similarity (with its tuning) they were computed from.
+ * Subclasses may read them from elsewhere instead of holding them in arrays, see {@link IndexFile}.
+ */
+class BlockMaxScores {
+
+    /**
+     * Highest weight of every block, indexed by termId then block; index 0 is unused
+     */
+    private final float[][] blockMaxima;
+
+    /**
+     * Highest weight of every term, indexed by termId; index 0 is unused
+     */
+    private final double[] termMaxima;
+
+    /**
+     * @param blockMaxima highest weight of every block, indexed by termId then block; index 0 is unused
+     */
+    BlockMaxScores(float[][] blockMaxima) {
+        this.blockMaxima = blockMaxima;
+        this.termMaxima = new double[blockMaxima.length];
+        for (int termId = 1; termId < blockMaxima.length; termId++) {
+            float termMaximum = 0;
+            for (float blockMaximum : blockMaxima[termId]) {
+                termMaximum = Math.max(termMaximum, blockMaximum);
+            }
+            termMaxima[termId] = termMaximum;
+        }
+    }
+
+    /**
+     * For subclasses that override every accessor
+     */
+    BlockMaxScores() {
+        this.blockMaxima = null;
+        this.termMaxima = null;
+    }
+
+    /**
+     * Compute the block maxima of a similarity over every posting of an index
+     *
+     * @param corpusIndex the index; termIds are 1..termCount
+     * @param similarity  the similarity whose term weights are bounded
+     * @return the block-max metadata
+     */
+    static BlockMaxScores compute(CorpusIndex corpusIndex, Similarity similarity) {
+        float[][] blockMaxima = new float[corpusIndex.getTermCount() + 1][];
+        for (int termId = 1; termId < blockMaxima.length; termId++) {
+            PostingList postingList = corpusIndex.getPostingLists().get(termId);
+            float[] maxima = new float[postingList.blockCount()];
+            PostingList.Cursor cursor = postingList.cursor();
+            for (int i = 0; cursor.nextDoc() != PostingList.NO_MORE_DOCS; i++) {
+                double weight = similarity.termWeight(corpusIndex, termId, cursor.termFrequency(), cursor.docId());
+                int block = i / PostingList.BLOCK_SIZE;
+                // Math.max keeps NaN, which disables the skipping on a block that cannot be bounded
+                maxima[block] = Math.max(maxima[block], roundUp(weight));
+            }
+            blockMaxima[termId] = maxima;
+        }
+        return new BlockMaxScores(blockMaxima);
+    }
+
+    /**
+     * @param termId termId of a term
+     * @return the highest weight of the term in any document
+     */
+    double getTermUpperBound(int termId) {
+        return termMaxima[termId];
+    }
+
+    /**
+     * @param termId termId of a term
+     * @param block  block index in the posting list of the term
+     * @return the highest weight of the term in the documents of the block
+     */
+    double getBlockUpperBound(int termId, int block) {
+        return blockMaxima[termId][block];
+    }
+
+    /**
+     * @param termId termId of a term
+     * @return the highest weight of every block of the term; must not be modified
+     */
+    float[] getBlockUpperBounds(int termId) {
+        return blockMaxima[termId];
+    }
+
+    /**
+     * @return the smallest float that is not below the value
+     */
+    private static float roundUp(double value) {
+        float rounded = (float) value;
+        return rounded < value ? Math.nextUp(rounded) : rounded;
+    }
+}
@@ -0,0 +1,340 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A table of fixed-size entries in a {@link ByteBuffer}, whose columns are handed out as read-only
+ * {@link IntIntHashMap}, {@link IntDoubleHashMap} and {@link IntObjectHashMap} views.
+ * <p>
+ * The entries are keyed in one of two ways: by the int in the first column, in which case the entries are sorted by it,
+ * a key is looked up by binary search and the slot of a key is the position of its entry; or by their position from 1
+ * (termIds), in which case the slot of a key is the key itself. Nothing is copied to the heap, so the views cost the
+ * same no matter how many entries there are. Used by {@link OffHeapStore} and {@link IndexFile}.
+ * <p>
+ * A table keyed by position may also have no buffer at all, and columns whose values are computed from the slot,
+ * such as the views of {@link CorpusIndex#withCollectionStatistics}.
+ */
+final class BufferTable {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Position of the first entry in the buffer
+     */
+    private final int start;
+
+    private final int entrySize;
+    private final int entryCount;
+
+    /**
+     * Whether the entries are keyed by their first column rather than by their position
+     */
+    private final boolean keyedByFirstColumn;
+
+    private BufferTable(ByteBuffer buffer, int start, int entrySize, int entryCount, boolean keyedByFirstColumn) {
+        this.buffer = buffer;
+        this.start = start;
+        this.entrySize = entrySize;
+        this.entryCount = entryCount;
+        this.keyedByFirstColumn = keyedByFirstColumn;
+    }
+
+    /**
+     * @param buffer     the buffer
+     * @param start      position of the first entry
+     * @param entrySize  number of bytes of an entry
+     * @param entryCount number of entries, sorted by the int in their first column, which is the key
+     * @return the table
+     */
+    static BufferTable keyedByFirstColumn(ByteBuffer buffer, int start, int entrySize, int entryCount) {
+        return new BufferTable(buffer, start, entrySize, entryCount, true);
+    }
+
+    /**
+     * @param buffer     the buffer
+     * @param start      position of the first entry
+     * @param entrySize  number of bytes of an entry
+     * @param entryCount number of entries, keyed by their position from 1
+     * @return the table
+     */
+    static BufferTable keyedByPosition(ByteBuffer buffer, int start, int entrySize, int entryCount) {
+        return new BufferTable(buffer, start, entrySize, entryCount, false);
+    }
+
+    /**
+     * @param entryCount number of entries, keyed by their position from 1; the columns must compute their values
+     * @return the table
+     */
+    static BufferTable keyedByPosition(int entryCount) {
+        return new BufferTable(null, 0, 0, entryCount, false);
+    }
+
+    int size() {
+        return entryCount;
+    }
+
+    /**
+     * @param key a key
+     * @return the slot of the key, or a negative number if it is absent; for a table keyed by its first column that
+     * is (-(insertion point) - 1), as with {@link java.util.Arrays#binarySearch(int[], int)}
+     */
+    int indexOf(int key) {
+        if (!keyedByFirstColumn) {
+            return key >= 1 && key <= entryCount ? key : -1;
+        }
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleKey = buffer.getInt(start + entrySize * middle);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * @param slot the previous slot, or -1 to start from the beginning
+     * @return the next slot, or -1 if there is none
+     */
+    int nextSlot(int slot) {
+        int first = keyedByFirstColumn ? 0 : 1;
+        int last = keyedByFirstColumn ? entryCount - 1 : entryCount;
+        int next = Math.max(slot + 1, first);
+        return next <= last ? next : -1;
+    }
+
+    int keyAt(int slot) {
+        return keyedByFirstColumn ? buffer.getInt(start + entrySize * slot) : slot;
+    }
+
+    int[] keys() {
+        int[] keys = new int[entryCount];
+        int i = 0;
+        for (int slot = nextSlot(-1); slot >= 0; slot = nextSlot(slot)) {
+            keys[i++] = keyAt(slot);
+        }
+        return keys;
+    }
+
+    /**
+     * @param slot a slot
+     * @return position of the entry of the slot in the buffer
+     */
+    int entry(int slot) {
+        return start + entrySize * (keyedByFirstColumn ? slot : slot - 1);
+    }
+
+    /**
+     * @param column position of an int in an entry
+     * @return the column as a read-only map
+     */
+    IntIntHashMap intColumn(int column) {
+        return new IntColumn(slot -> buffer.getInt(entry(slot) + column));
+    }
+
+    /**
+     * @param valueAt the value of a slot
+     * @return the values as a read-only map
+     */
+    IntIntHashMap intColumn(IntUnaryOperator valueAt) {
+        return new IntColumn(valueAt);
+    }
+
+    /**
+     * @param column position of a double in an entry
+     * @return the column as a read-only map
+     */
+    IntDoubleHashMap doubleColumn(int column) {
+        return new DoubleColumn(slot -> buffer.getDouble(entry(slot) + column));
+    }
+
+    /**
+     * @param valueAt the value of a slot
+     * @return the values as a read-only map
+     */
+    IntDoubleHashMap doubleColumn(IntToDoubleFunction valueAt) {
+        return new DoubleColumn(valueAt);
+    }
+
+    /**
+     * @param valueAt the value of a slot, e.g. an object wrapped around bytes the entry points at
+     * @return the values as a read-only map; every lookup calls {@code valueAt}
+     */
+    <V> IntObjectHashMap<V> objectColumn(IntFunction<V> valueAt) {
+        return new ObjectColumn<>(valueAt);
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("The table is read-only");
+    }
+
+    private final class IntColumn extends IntIntHashMap {
+        private final IntUnaryOperator valueAt;
+
+        IntColumn(IntUnaryOperator valueAt) {
+            this.valueAt = valueAt;
+        }
+
+        @Override
+        int size() {
+            return entryCount;
+        }
+
+        @Override
+        int indexOf(int key) {
+            return BufferTable.this.indexOf(key);
+        }
+
+        @Override
+        int nextSlot(int slot) {
+            return BufferTable.this.nextSlot(slot);
+        }
+
+        @Override
+        int keyAt(int slot) {
+            return BufferTable.this.keyAt(slot);
+        }
+
+        @Override
+        int[] keys() {
+            return BufferTable.this.keys();
+        }
+
+        @Override
+        int getOrDefault(int key, int defaultValue) {
+            int slot = indexOf(key);
+            return slot >= 0 ? valueAt(slot) : defaultValue;
+        }
+
+        @Override
+        int valueAt(int slot) {
+            return valueAt.applyAsInt(slot);
+        }
+
+        @Override
+        protected int insert(int key) {
+            throw readOnly();
+        }
+    }
+
+    private final class DoubleColumn extends IntDoubleHashMap {
+        private final IntToDoubleFunction valueAt;
+
+        DoubleColumn(IntToDoubleFunction valueAt) {
+            this.valueAt = valueAt;
+        }
+
+        @Override
+        int size() {
+            return entryCount;
+        }
+
+        @Override
+        int indexOf(int key) {
+            return BufferTable.this.indexOf(key);
+        }
+
+        @Override
+        int nextSlot(int slot) {
+            return BufferTable.this.nextSlot(slot);
+        }
+
+        @Override
+        int keyAt(int slot) {
+            return BufferTable.this.keyAt(slot);
+        }
+
+        @Override
+        int[] keys() {
+            return BufferTable.this.keys();
+        }
+
+        @Override
+        double getOrDefault(int key, double defaultValue) {
+            int slot = indexOf(key);
+            return slot >= 0 ? valueAt(slot) : defaultValue;
+        }
+
+        @Override
+        double valueAt(int slot) {
+            return valueAt.applyAsDouble(slot);
+        }
+
+        @Override
+        void setValueAt(int slot, double value) {
+            throw readOnly();
+        }
+
+        @Override
+        protected int insert(int key) {
+            throw readOnly();
+        }
+    }
+
+    private final class ObjectColumn<V> extends IntObjectHashMap<V> {
+        private final IntFunction<V> valueAt;
+
+        ObjectColumn(IntFunction<V> valueAt) {
+            this.valueAt = valueAt;
+        }
+
+        @Override
+        int size() {
+            return entryCount;
+        }
+
+        @Override
+        int indexOf(int key) {
+            return BufferTable.this.indexOf(key);
+        }
+
+        @Override
+        int nextSlot(int slot) {
+            return BufferTable.this.nextSlot(slot);
+        }
+
+        @Override
+        int keyAt(int slot) {
+            return BufferTable.this.keyAt(slot);
+        }
+
+        @Override
+        int[] keys() {
+            return BufferTable.this.keys();
+        }
+
+        @Override
+        V get(int key) {
+            int slot = indexOf(key);
+            return slot >= 0 ? valueAt(slot) : null;
+        }
+
+        @Override
+        V valueAt(int slot) {
+            return valueAt.apply(slot);
+        }
+
+        @Override
+        protected int insert(int key) {
+            throw readOnly();
+        }
+    }
+}
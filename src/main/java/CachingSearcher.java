@@ -0,0 +1,263 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe cache of search results in front of any {@link Searcher}.
+ * <p>
+ * The results are keyed on the multiset of the tokens of the query, as produced by {@link Searcher#tokenize(String)},
+ * so queries that only differ in case, punctuation, stop words, word order or inflection share an entry; the key
+ * also holds k and the {@link Searcher#getRankingParameters()} of the searcher at the time of the search, so that
+ * retuning a model never returns the results of the old tuning. Results are only cached if the ranking parameters are
+ * the same once the search is done, as the searcher may have been retuned during it. The least recently used entry is
+ * evicted when the cache is full.
+ * <p>
+ * The cache cannot see the index change under the searcher, so whoever changes it must call
+ * {@link CachingSearcher#invalidate()}. A search that was already running when the cache was invalidated
+ * returns its results but does not cache them.
+ */
+public class CachingSearcher extends Searcher {
+
+    /**
+     * The searcher the results come from
+     */
+    private final Searcher searcher;
+
+    /**
+     * Maximum number of cached results
+     */
+    private final int capacity;
+
+    /**
+     * The cached results in access order, from the least recently used; guarded by itself
+     */
+    private final LinkedHashMap<Key, List<SearchResult>> results;
+
+    /**
+     * Number of invalidations so far; guarded by {@link CachingSearcher#results}
+     */
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param searcher the searcher the results come from
+     * @param capacity maximum number of cached results
+     */
+    public CachingSearcher(Searcher searcher, int capacity) {
+        super(searcher.documents);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.searcher = searcher;
+        this.capacity = capacity;
+        this.results = new LinkedHashMap<Key, List<SearchResult>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<SearchResult>> eldest) {
+                if (size() > CachingSearcher.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public List<SearchResult> search(String queryString, int k) {
+        Key key = new Key(Searcher.tokenize(queryString), k, searcher.getRankingParameters());
+        List<SearchResult> cached;
+        long searchGeneration;
+        synchronized (results) {
+            cached = results.get(key);
+            searchGeneration = generation;
+        }
+        if (cached != null) {
+            hits.increment();
+            return copy(cached);
+        }
+
+        misses.increment();
+        List<SearchResult> searchResults = searcher.search(queryString, k);
+        List<SearchResult> entry = copy(searchResults);
+        boolean sameTuning = key.rankingParameters.equals(searcher.getRankingParameters());
+        synchronized (results) {
+            if (sameTuning && searchGeneration == generation) {
+                results.put(key, entry);
+            }
+        }
+        return searchResults;
+    }
+
+    /**
+     * Search for a batch of queries; the ones that miss the cache are searched as one batch by the searcher
+     */
+    @Override
+    public List<List<SearchResult>> searchBatch(List<String> queries, int k) {
+        List<Object> rankingParameters = searcher.getRankingParameters();
+        List<Key> keys = new ArrayList<>(queries.size());
+        for (String query : queries) {
+            keys.add(new Key(Searcher.tokenize(query), k, rankingParameters));
+        }
+
+        List<List<SearchResult>> batchResults = new ArrayList<>(queries.size());
+        List<Key> missedKeys = new ArrayList<>();
+        List<String> missedQueries = new ArrayList<>();
+        List<Integer> missedIndexes = new ArrayList<>();
+        long searchGeneration;
+        synchronized (results) {
+            searchGeneration = generation;
+            for (int i = 0; i < keys.size(); i++) {
+                List<SearchResult> cached = results.get(keys.get(i));
+                batchResults.add(cached == null ? null : copy(cached));
+                if (cached == null) {
+                    missedKeys.add(keys.get(i));
+                    missedQueries.add(queries.get(i));
+                    missedIndexes.add(i);
+                }
+            }
+        }
+        hits.add(queries.size() - missedQueries.size());
+        misses.add(missedQueries.size());
+        if (missedQueries.isEmpty()) {
+            return batchResults;
+        }
+
+        List<List<SearchResult>> missedResults = searcher.searchBatch(missedQueries, k);
+        List<List<SearchResult>> entries = new ArrayList<>(missedResults.size());
+        for (int i = 0; i < missedResults.size(); i++) {
+            batchResults.set(missedIndexes.get(i), missedResults.get(i));
+            entries.add(copy(missedResults.get(i)));
+        }
+        boolean sameTuning = rankingParameters.equals(searcher.getRankingParameters());
+        synchronized (results) {
+            if (sameTuning && searchGeneration == generation) {
+                for (int i = 0; i < entries.size(); i++) {
+                    results.put(missedKeys.get(i), entries.get(i));
+                }
+            }
+        }
+        return batchResults;
+    }
+
+    @Override
+    public List<Object> getRankingParameters() {
+        return searcher.getRankingParameters();
+    }
+
+    /**
+     * Drop every cached result; to be called whenever the index of the searcher changes
+     */
+    public void invalidate() {
+        synchronized (results) {
+            results.clear();
+            generation++;
+        }
+    }
+
+    /**
+     * @return maximum number of cached results
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of cached results
+     */
+    public int size() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return ratio of searches that were hits, or 0 if there was no search
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "[capacity=" + capacity + ", size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + ", hitRatio=" + getHitRatio() + "]";
+    }
+
+    /**
+     * @return new SearchResults for the same documents and scores, as callers may modify theirs
+     */
+    private static List<SearchResult> copy(List<SearchResult> searchResults) {
+        List<SearchResult> copy = new ArrayList<>(searchResults.size());
+        for (SearchResult searchResult : searchResults) {
+            copy.add(new SearchResult(searchResult.getDocument(), searchResult.getScore()));
+        }
+        return copy;
+    }
+
+    /**
+     * A normalized query: its tokens in sorted order, with k and the ranking parameters
+     */
+    private static final class Key {
+        private final List<String> tokens;
+        private final int k;
+        private final List<Object> rankingParameters;
+        private final int hash;
+
+        Key(List<String> tokens, int k, List<Object> rankingParameters) {
+            List<String> sortedTokens = new ArrayList<>(tokens);
+            Collections.sort(sortedTokens);
+            this.tokens = sortedTokens;
+            this.k = k;
+            this.rankingParameters = rankingParameters;
+            this.hash = 31 * (31 * sortedTokens.hashCode() + k) + rankingParameters.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && k == other.k && tokens.equals(other.tokens)
+                    && rankingParameters.equals(other.rankingParameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
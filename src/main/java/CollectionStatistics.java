@@ -0,0 +1,309 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The statistics of a collection whose documents are added and deleted one at a time, see {@link IndexWriter}:
+ * a term dictionary, the document frequency of every term, and the number of documents and tokens.
+ * <p>
+ * A term keeps its termId for good, even once no document contains it any more, so the termIds only grow and a
+ * {@link Snapshot} can share the dictionary. The document frequencies are kept in chunks of {@link #CHUNK_SIZE}
+ * terms, which the snapshots share as well: a chunk is only copied when one of its frequencies changes after a
+ * snapshot was taken. So a snapshot costs time in the number of chunks, and counting a document in or out costs time
+ * in the number of its distinct terms, whatever the size of the vocabulary.
+ * <p>
+ * The statistics are guarded by their writer; a snapshot is immutable and can be shared by any number of views and
+ * threads.
+ */
+final class CollectionStatistics {
+
+    private static final int CHUNK_BITS = 8;
+
+    /**
+     * Number of terms per chunk
+     */
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /**
+     * Mapping between (term: String) and (termId: Int); termIds are 1..termCount. The dictionaries of the snapshots
+     * read it while terms are added, hence the concurrent map.
+     */
+    private final ConcurrentHashMap<String, Integer> termIds = new ConcurrentHashMap<>();
+
+    /**
+     * Terms by termId, in chunks; the entries a snapshot can see are never written again
+     */
+    private String[][] terms = new String[0][];
+
+    /**
+     * Document frequencies by termId, in chunks
+     */
+    private int[][] documentFrequencies = new int[0][];
+
+    /**
+     * Whether a chunk of {@link CollectionStatistics#documentFrequencies} is shared with a snapshot
+     */
+    private boolean[] shared = new boolean[0];
+
+    private int termCount = 0;
+    private int documentCount = 0;
+    private int totalTermFrequency = 0;
+    private long totalDocumentLength = 0;
+
+    /**
+     * Count a document in or out of the statistics
+     *
+     * @param document the document
+     * @param sign     1 to count it in, -1 to count it out
+     * @return the termIds of the distinct terms of the document
+     */
+    int[] add(Document document, int sign) {
+        List<String> tokens = document.getTokens();
+        Set<String> distinctTerms = new HashSet<>(tokens);
+        int[] documentTermIds = new int[distinctTerms.size()];
+        int i = 0;
+        for (String term : distinctTerms) {
+            int termId = sign > 0 ? addTerm(term) : termId(term);
+            int[] chunk = writableChunk(termId >>> CHUNK_BITS);
+            chunk[termId & (CHUNK_SIZE - 1)] += sign;
+            documentTermIds[i++] = termId;
+        }
+        documentCount += sign;
+        totalTermFrequency += sign * tokens.size();
+        totalDocumentLength += sign * document.getRawText().length();
+        return documentTermIds;
+    }
+
+    /**
+     * @return the termId of the term, which is added to the dictionary if it is not there yet
+     */
+    private int addTerm(String term) {
+        Integer termId = termIds.get(term);
+        if (termId != null) {
+            return termId;
+        }
+        int newTermId = ++termCount;
+        int chunk = newTermId >>> CHUNK_BITS;
+        if (chunk == terms.length) {
+            terms = Arrays.copyOf(terms, chunk + 1);
+            terms[chunk] = new String[CHUNK_SIZE];
+            documentFrequencies = Arrays.copyOf(documentFrequencies, chunk + 1);
+            documentFrequencies[chunk] = new int[CHUNK_SIZE];
+            shared = Arrays.copyOf(shared, chunk + 1);
+        }
+        // The term is in its chunk before the dictionaries of the snapshots can find it
+        terms[chunk][newTermId & (CHUNK_SIZE - 1)] = term;
+        termIds.put(term, newTermId);
+        return newTermId;
+    }
+
+    /**
+     * @return a chunk of the document frequencies that no snapshot shares
+     */
+    private int[] writableChunk(int chunk) {
+        if (shared[chunk]) {
+            documentFrequencies[chunk] = documentFrequencies[chunk].clone();
+            shared[chunk] = false;
+        }
+        return documentFrequencies[chunk];
+    }
+
+    /**
+     * Take a snapshot of the statistics; it shares the dictionary and the chunks of document frequencies
+     *
+     * @return the snapshot
+     */
+    Snapshot snapshot() {
+        Arrays.fill(shared, true);
+        return new Snapshot(this);
+    }
+
+    /**
+     * @param term a term
+     * @return its termId, or 0 if it has never been counted in
+     */
+    int termId(String term) {
+        Integer termId = termIds.get(term);
+        return termId == null ? 0 : termId;
+    }
+
+    /**
+     * @param term a term
+     * @return number of documents that contain it
+     */
+    int documentFrequency(String term) {
+        return documentFrequency(termId(term));
+    }
+
+    /**
+     * @param termId a termId, or 0
+     * @return number of documents that contain the term
+     */
+    int documentFrequency(int termId) {
+        return termId == 0 ? 0 : documentFrequencies[termId >>> CHUNK_BITS][termId & (CHUNK_SIZE - 1)];
+    }
+
+    int getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * The statistics of the collection at one point in time, which the views of every segment share
+     */
+    static final class Snapshot {
+        private final ConcurrentHashMap<String, Integer> termIds;
+        private final String[][] terms;
+        private final int[][] documentFrequencies;
+        private final int termCount;
+        private final int documentCount;
+        private final int totalTermFrequency;
+        private final double averageDocumentLength;
+
+        // The read-only views of the snapshot
+        private final Map<String, Integer> termDict = new TermDictionary();
+        private final IntIntHashMap documentFrequencyMap;
+        private final IntDoubleHashMap idfScores;
+
+        private Snapshot(CollectionStatistics statistics) {
+            this.termIds = statistics.termIds;
+            this.terms = statistics.terms.clone();
+            this.documentFrequencies = statistics.documentFrequencies.clone();
+            this.termCount = statistics.termCount;
+            this.documentCount = statistics.documentCount;
+            this.totalTermFrequency = statistics.totalTermFrequency;
+            this.averageDocumentLength = documentCount == 0 ? 0 : (double) statistics.totalDocumentLength / documentCount;
+
+            // The IDFs depend on the number of documents, so they are computed when they are read
+            BufferTable table = BufferTable.keyedByPosition(termCount);
+            this.documentFrequencyMap = table.intColumn(this::documentFrequency);
+            this.idfScores = table.doubleColumn(termId -> CorpusIndex.idf(documentCount, documentFrequency(termId)));
+        }
+
+        /**
+         * @param term a term
+         * @return its termId, or 0 if it was not in the dictionary when the snapshot was taken
+         */
+        int termId(String term) {
+            Integer termId = termIds.get(term);
+            return termId == null || termId > termCount ? 0 : termId;
+        }
+
+        /**
+         * @param term a term
+         * @return number of documents that contain it
+         */
+        int documentFrequency(String term) {
+            return documentFrequency(termId(term));
+        }
+
+        /**
+         * @param termId a termId of the snapshot, or 0
+         * @return number of documents that contain the term
+         */
+        int documentFrequency(int termId) {
+            return termId == 0 ? 0 : documentFrequencies[termId >>> CHUNK_BITS][termId & (CHUNK_SIZE - 1)];
+        }
+
+        /**
+         * @return mapping between (term: String) and (termId: Int), with every term ever counted in; read-only
+         */
+        Map<String, Integer> getTermDict() {
+            return termDict;
+        }
+
+        /**
+         * @return mapping between (termId: Int) and (docFreq: Int); read-only
+         */
+        IntIntHashMap getDocumentFrequencies() {
+            return documentFrequencyMap;
+        }
+
+        /**
+         * @return mapping between (termId: Int) and (IDF: Double), 0 for the terms no document contains; read-only
+         */
+        IntDoubleHashMap getIdfScores() {
+            return idfScores;
+        }
+
+        int getTermCount() {
+            return termCount;
+        }
+
+        int getDocumentCount() {
+            return documentCount;
+        }
+
+        int getTotalTermFrequency() {
+            return totalTermFrequency;
+        }
+
+        double getAverageDocumentLength() {
+            return averageDocumentLength;
+        }
+
+        /**
+         * The dictionary of the collection as a read-only map that hides the terms added after the snapshot
+         */
+        private final class TermDictionary extends AbstractMap<String, Integer> {
+            @Override
+            public int size() {
+                return termCount;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+
+            @Override
+            public Integer get(Object key) {
+                int termId = key instanceof String ? termId((String) key) : 0;
+                return termId > 0 ? termId : null;
+            }
+
+            @Override
+            public Set<Entry<String, Integer>> entrySet() {
+                List<Entry<String, Integer>> entries = new AbstractList<Entry<String, Integer>>() {
+                    @Override
+                    public Entry<String, Integer> get(int index) {
+                        int termId = index + 1;
+                        return new SimpleImmutableEntry<>(terms[termId >>> CHUNK_BITS][termId & (CHUNK_SIZE - 1)], termId);
+                    }
+
+                    @Override
+                    public int size() {
+                        return termCount;
+                    }
+                };
+                return new AbstractSet<Entry<String, Integer>>() {
+                    @Override
+                    public Iterator<Entry<String, Integer>> iterator() {
+                        return entries.iterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return termCount;
+                    }
+                };
+            }
+        }
+    }
+}
@@ -0,0 +1,1019 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * The immutable index of a corpus that every searcher is built on.
+ * <p>
+ * It holds what the ranking models have in common: the term dictionary, the posting lists with term frequencies,
+ * the document frequency and IDF of every term, the raw text length, TF-IDF norm and number of distinct terms of every
+ * document, the collection statistics, and the block-max metadata of BM25 with its default tuning. The model-specific indexers
+ * ({@link VectorSpaceModelIndexer}, {@link ProbabilisticIndexer}) are thin views over it, so one CorpusIndex can serve any number of searchers and threads.
+ * <p>
+ * A CorpusIndex is built from documents by its {@link Builder}, or loaded from an {@link IndexFile}. Either way,
+ * its document table and posting lists can be moved off the heap with {@link CorpusIndex#offHeap(java.nio.file.Path)}.
+ * The maps it hands out must not be modified.
+ */
+final class CorpusIndex {
+
+    /**
+     * Largest ratio of the docId range to the number of documents for which arrays indexed by docId are used
+     */
+    private static final int MAX_DOC_ID_SLOTS_PER_DOCUMENT = 64;
+
+    /**
+     * The posting list of the terms a view has no document of
+     */
+    private static final PostingList EMPTY_POSTING_LIST = new PostingList.Builder(true).build();
+
+    /**
+     * Mapping between (term: String) and (termId: Int); termIds are 1..termCount
+     */
+    private final Map<String, Integer> termDict;
+
+    /**
+     * Mapping between (termId: Int) and (docFreq: Int)
+     */
+    private final IntIntHashMap termDocFrequency;
+
+    /**
+     * Mapping between (termId: Int) and (IDF: Double)
+     */
+    private final IntDoubleHashMap termIdfScore;
+
+    /**
+     * Mapping between (termId: Int) and (postingList: PostingList), with term frequencies
+     */
+    private final IntObjectHashMap<PostingList> postingLists;
+
+    /**
+     * Mapping between (docId: Int) and (document: Document), iterated in docId order
+     */
+    private final SortedMap<Integer, Document> documentDict;
+
+    /**
+     * Documents in docId order
+     */
+    private final List<Document> documents;
+
+    /**
+     * Mapping between (docId: Int) and (length of the raw text: Int)
+     */
+    private final IntIntHashMap documentLengthMap;
+
+    /**
+     * Mapping between (docId: Int) and (norm of its TF-IDF Document Vector: Double)
+     */
+    private final IntDoubleHashMap documentNorms;
+
+    /**
+     * Mapping between (docId: Int) and (number of distinct terms: Int)
+     */
+    private final IntIntHashMap documentTermCounts;
+
+    /**
+     * Mapping between (termId: Int) and (highest term frequency in its postings: Int)
+     */
+    private final IntIntHashMap termMaxFrequency;
+
+    /**
+     * Mapping between (termId: Int) and (length of the shortest raw text in its postings: Int)
+     */
+    private final IntIntHashMap termMinDocumentLength;
+
+    /**
+     * Block-max metadata of BM25 with {@link BM25Similarity#DEFAULT_K1} and {@link BM25Similarity#DEFAULT_B};
+     * computed on first use unless it was loaded
+     */
+    private volatile BlockMaxScores blockMaxScores;
+
+    /**
+     * The log-TF weight of every posting, shared with the views of this index
+     */
+    private final LogTfWeights logTfWeights;
+
+    /**
+     * Mapping between (termId of this view: Int) and (termId of the index it is a view of: Int), or null unless this
+     * is a view of a segment
+     */
+    private final IntIntHashMap viewTermIds;
+
+    /**
+     * The index this is a view of, or this index unless it is a view of a segment
+     */
+    private final CorpusIndex segmentIndex;
+
+    /**
+     * The data searchers derive from the postings and documents of this index alone, by key, see
+     * {@link CorpusIndex#getSegmentData(Object, Function)}
+     */
+    private final ConcurrentHashMap<Object, Object> segmentData = new ConcurrentHashMap<>();
+
+    /**
+     * Where the document table and the posting lists live if they are outside the heap, or null
+     */
+    private final OffHeapStore offHeapStore;
+
+    /**
+     * Number of tokens in the corpus
+     */
+    private final int totalTermFrequency;
+
+    /**
+     * Average length of the raw texts
+     */
+    private final double averageDocumentLength;
+
+    /**
+     * Number of documents the statistics are computed over; larger than the number of documents of this index
+     * if it is a segment of a larger collection
+     */
+    private final int documentCount;
+
+    /**
+     * Largest document Id, or -1 if there is no document
+     */
+    private final int maxDocId;
+
+    /**
+     * Whether the document Ids can index arrays of size maxDocId + 1
+     */
+    private final boolean denseDocIds;
+
+    private CorpusIndex(Map<String, Integer> termDict, IntIntHashMap termDocFrequency, IntDoubleHashMap termIdfScore,
+                        IntObjectHashMap<PostingList> postingLists, SortedMap<Integer, Document> documentDict,
+                        List<Document> documents, IntIntHashMap documentLengthMap, IntDoubleHashMap documentNorms,
+                        IntIntHashMap documentTermCounts, IntIntHashMap termMaxFrequency, IntIntHashMap termMinDocumentLength,
+                        int documentCount, int totalTermFrequency, double averageDocumentLength, BlockMaxScores blockMaxScores,
+                        LogTfWeights logTfWeights, IntIntHashMap viewTermIds, CorpusIndex segmentIndex,
+                        OffHeapStore offHeapStore) {
+        this.termDict = Collections.unmodifiableMap(termDict);
+        this.termDocFrequency = termDocFrequency;
+        this.termIdfScore = termIdfScore;
+        this.postingLists = postingLists;
+        this.documentDict = Collections.unmodifiableSortedMap(documentDict);
+        this.documents = Collections.unmodifiableList(documents);
+        this.documentLengthMap = documentLengthMap;
+        this.documentNorms = documentNorms;
+        this.documentTermCounts = documentTermCounts;
+        this.documentCount = documentCount;
+        this.totalTermFrequency = totalTermFrequency;
+        this.averageDocumentLength = averageDocumentLength;
+        this.termMaxFrequency = termMaxFrequency;
+        this.termMinDocumentLength = termMinDocumentLength;
+        this.maxDocId = documents.isEmpty() ? -1 : documents.get(documents.size() - 1).getId();
+        this.denseDocIds = !documents.isEmpty() && documents.get(0).getId() >= 0
+                && maxDocId < (long) MAX_DOC_ID_SLOTS_PER_DOCUMENT * documents.size();
+        this.blockMaxScores = blockMaxScores;
+        this.logTfWeights = logTfWeights != null ? logTfWeights : new LogTfWeights(postingLists, termDict.size());
+        this.viewTermIds = viewTermIds;
+        this.segmentIndex = segmentIndex != null ? segmentIndex : this;
+        this.offHeapStore = offHeapStore;
+    }
+
+    /**
+     * Load the index from an index file. Every map, posting list and document of the index is a view of the file, so
+     * this takes the same time no matter how large the index is, and nothing is copied to the heap.
+     *
+     * @param indexFile an opened index file
+     * @return the index
+     */
+    static CorpusIndex load(IndexFile indexFile) {
+        // The stored block maxima are reused as long as they were computed for the current default tuning
+        BlockMaxScores blockMaxScores = null;
+        if (indexFile.getBlockMaxTuningK1() == BM25Similarity.DEFAULT_K1
+                && indexFile.getBlockMaxTuningB() == BM25Similarity.DEFAULT_B) {
+            blockMaxScores = indexFile.getBlockMaxScores();
+        }
+
+        return new CorpusIndex(indexFile.getTermDict(), indexFile.getTermDocFrequency(), indexFile.getTermIdfScore(),
+                indexFile.getPostingLists(), indexFile.getDocumentDict(), indexFile.getDocuments(),
+                indexFile.getDocumentLengthMap(), indexFile.getDocumentNorms(), indexFile.getDocumentTermCounts(),
+                indexFile.getTermMaxFrequency(), indexFile.getTermMinDocumentLength(), indexFile.getDocumentCount(),
+                indexFile.getTotalTermFrequency(), indexFile.getAverageDocumentLength(), blockMaxScores, null, null, null, null);
+    }
+
+    /**
+     * A copy of this index whose document lengths, TF-IDF norms, distinct term counts and posting lists live in an
+     * {@link OffHeapStore}, so neither the heap nor the pauses of the garbage collector grow with the number of
+     * documents and postings. The term dictionary and the per-term statistics stay on the heap.
+     * <p>
+     * Searchers skip the per-posting and per-document arrays they would precompute for an index on the heap and
+     * score from the postings instead, see {@link CorpusIndex#isOffHeap()}.
+     *
+     * @param path a scratch file to map the store from, which the caller deletes once the copy is no longer used, or
+     *             null to store it in a direct buffer
+     * @return the copy; this index is left as it is
+     * @throws IOException if the scratch file cannot be written or mapped
+     */
+    CorpusIndex offHeap(Path path) throws IOException {
+        OffHeapStore store = path == null ? OffHeapStore.allocate(this) : OffHeapStore.map(this, path);
+        return new CorpusIndex(termDict, termDocFrequency, termIdfScore, store.getPostingLists(), documentDict,
+                documents, store.getDocumentLengthMap(), store.getDocumentNorms(), store.getDocumentTermCounts(), termMaxFrequency,
+                termMinDocumentLength, documentCount, totalTermFrequency, averageDocumentLength, blockMaxScores, null, null, null, store);
+    }
+
+    /**
+     * A view of this index as one segment of a larger collection, which scores with the statistics of the whole
+     * collection: the view takes the term dictionary, document frequencies and IDFs of the snapshot, which the views
+     * of every segment share, so a query is weighted the same way in every segment. The terms this index lacks have
+     * empty posting lists, and a term that no document of the collection contains any more has an IDF of 0.
+     * The posting lists, documents, log-TF weights and {@link CorpusIndex#getSegmentData segment data} are shared with
+     * this index, and reached through the mapping of termIds, so the view costs constant time. Searchers built on the
+     * view only compute what depends on the collection statistics, see {@link CorpusIndex#isSegmentView()}.
+     *
+     * @param statistics    a snapshot of the statistics of the collection, taken after the terms of this index were
+     *                      counted in
+     * @param termIds       mapping between (termId of the collection: Int) and (termId of this index: Int), see
+     *                      {@link CorpusIndex#mapTermIds(CollectionStatistics)}
+     * @param documentNorms the TF-IDF norms of the documents of this index, see
+     *                      {@link CorpusIndex#calculateDocumentNorms(ToIntFunction, int)}
+     * @return the view
+     */
+    CorpusIndex withCollectionStatistics(CollectionStatistics.Snapshot statistics, IntIntHashMap termIds,
+                                         IntDoubleHashMap documentNorms) {
+        BufferTable viewTerms = BufferTable.keyedByPosition(statistics.getTermCount());
+        IntObjectHashMap<PostingList> viewPostingLists = viewTerms.objectColumn(termId -> {
+            int localTermId = termIds.get(termId);
+            return localTermId > 0 ? postingLists.get(localTermId) : EMPTY_POSTING_LIST;
+        });
+        // The statistics an empty posting list has
+        IntIntHashMap viewTermMaxFrequency = viewTerms.intColumn(termId -> {
+            int localTermId = termIds.get(termId);
+            return localTermId > 0 ? termMaxFrequency.get(localTermId) : 0;
+        });
+        IntIntHashMap viewTermMinDocumentLength = viewTerms.intColumn(termId -> {
+            int localTermId = termIds.get(termId);
+            return localTermId > 0 ? termMinDocumentLength.get(localTermId) : Integer.MAX_VALUE;
+        });
+
+        return new CorpusIndex(statistics.getTermDict(), statistics.getDocumentFrequencies(), statistics.getIdfScores(),
+                viewPostingLists, documentDict, documents, documentLengthMap, documentNorms, documentTermCounts,
+                viewTermMaxFrequency, viewTermMinDocumentLength, statistics.getDocumentCount(),
+                statistics.getTotalTermFrequency(), statistics.getAverageDocumentLength(), null, logTfWeights, termIds,
+                this, offHeapStore);
+    }
+
+    /**
+     * Map the termIds of a collection this index is a segment of to the termIds of this index; takes time in the
+     * number of terms of this index
+     *
+     * @param statistics the statistics of the collection, which the terms of this index are counted in
+     * @return mapping between (termId of the collection: Int) and (termId of this index: Int)
+     */
+    IntIntHashMap mapTermIds(CollectionStatistics statistics) {
+        IntIntHashMap termIds = new IntIntHashMap(termDict.size());
+        for (Map.Entry<String, Integer> entry : termDict.entrySet()) {
+            termIds.put(statistics.termId(entry.getKey()), entry.getValue());
+        }
+        return termIds;
+    }
+
+    /**
+     * Calculate the TF-IDF norms of the documents of this index with the statistics of a larger collection,
+     * summed posting list by posting list; takes time in the number of postings
+     *
+     * @param documentFrequencies the number of documents of the collection that contain a term
+     * @param documentCount       number of documents of the collection
+     * @return mapping between (docId: Int) and (norm: Double)
+     */
+    IntDoubleHashMap calculateDocumentNorms(ToIntFunction<String> documentFrequencies, int documentCount) {
+        IntDoubleHashMap norms = new IntDoubleHashMap(documents.size());
+        for (Document document : documents) {
+            norms.put(document.getId(), 0);
+        }
+        for (Map.Entry<String, Integer> entry : termDict.entrySet()) {
+            double idf = idf(documentCount, documentFrequencies.applyAsInt(entry.getKey()));
+            PostingList.Cursor cursor = postingLists.get(entry.getValue()).cursor();
+            while (cursor.nextDoc() != PostingList.NO_MORE_DOCS) {
+                norms.addTo(cursor.docId(), Math.pow(TfIdfMathUtil.calculateTermFrequency(cursor.termFrequency()) * idf, 2));
+            }
+        }
+        for (int slot = norms.nextSlot(-1); slot >= 0; slot = norms.nextSlot(slot)) {
+            norms.setValueAt(slot, Math.sqrt(norms.valueAt(slot)));
+        }
+        return norms;
+    }
+
+    /**
+     * @return the IDF of a term in a collection, or 0 if no document of the collection contains it
+     */
+    static double idf(int documentCount, int documentFrequency) {
+        return documentFrequency == 0 ? 0 : TfIdfMathUtil.calculateInvertedDocFrequency(documentCount, documentFrequency);
+    }
+
+    /**
+     * Open a cursor for every query term, each positioned on its first posting
+     *
+     * @param queryTermFreq mapping between (termId: Int) and (termFreqInsideQuery: Int)
+     * @return array of cursors in the slot order of {@code queryTermFreq}
+     */
+    PostingList.Cursor[] openCursors(IntIntHashMap queryTermFreq) {
+        PostingList.Cursor[] cursors = new PostingList.Cursor[queryTermFreq.size()];
+        int i = 0;
+        for (int slot = queryTermFreq.nextSlot(-1); slot >= 0; slot = queryTermFreq.nextSlot(slot)) {
+            cursors[i++] = openCursor(queryTermFreq.keyAt(slot));
+        }
+        return cursors;
+    }
+
+    /**
+     * Open a cursor positioned on the first posting of a term
+     *
+     * @param termId termId of a term in the dictionary
+     * @return the cursor
+     */
+    PostingList.Cursor openCursor(int termId) {
+        PostingList.Cursor cursor = postingLists.get(termId).cursor();
+        cursor.nextDoc();
+        return cursor;
+    }
+
+    /**
+     * @return number of documents the statistics are computed over, which is the number of documents of this index
+     * unless it is a view of a segment
+     */
+    int getDocumentCount() {
+        return documentCount;
+    }
+
+    int getTermCount() {
+        return termDict.size();
+    }
+
+    Map<String, Integer> getTermDict() {
+        return termDict;
+    }
+
+    IntIntHashMap getTermDocFrequency() {
+        return termDocFrequency;
+    }
+
+    IntDoubleHashMap getTermIdfScore() {
+        return termIdfScore;
+    }
+
+    IntObjectHashMap<PostingList> getPostingLists() {
+        return postingLists;
+    }
+
+    /**
+     * @return mapping between (docId: Int) and (document: Document), ordered by docId
+     */
+    SortedMap<Integer, Document> getDocumentDict() {
+        return documentDict;
+    }
+
+    /**
+     * @return every document in docId order
+     */
+    List<Document> getDocuments() {
+        return documents;
+    }
+
+    IntIntHashMap getDocumentLengthMap() {
+        return documentLengthMap;
+    }
+
+    IntDoubleHashMap getDocumentNorms() {
+        return documentNorms;
+    }
+
+    /**
+     * @return mapping between (docId: Int) and (number of distinct terms: Int)
+     */
+    IntIntHashMap getDocumentTermCounts() {
+        return documentTermCounts;
+    }
+
+    /**
+     * @return mapping between (termId: Int) and (highest term frequency in its postings: Int)
+     */
+    IntIntHashMap getTermMaxFrequency() {
+        return termMaxFrequency;
+    }
+
+    /**
+     * @return mapping between (termId: Int) and (length of the shortest raw text in its postings: Int)
+     */
+    IntIntHashMap getTermMinDocumentLength() {
+        return termMinDocumentLength;
+    }
+
+    /**
+     * @return block-max metadata of BM25 with {@link BM25Similarity#DEFAULT_K1} and {@link BM25Similarity#DEFAULT_B}
+     */
+    BlockMaxScores getBlockMaxScores() {
+        BlockMaxScores scores = blockMaxScores;
+        if (scores == null) {
+            synchronized (this) {
+                scores = blockMaxScores;
+                if (scores == null) {
+                    scores = BlockMaxScores.compute(this,
+                            new BM25Similarity(BM25Similarity.DEFAULT_K1, BM25Similarity.DEFAULT_B, BM25Similarity.DEFAULT_K3));
+                    blockMaxScores = scores;
+                }
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * The weight 1 + log10(tf) of every posting of a term, which does not depend on any collection statistic.
+     * The weights of every term are computed together on first use, and shared by the views of this index.
+     *
+     * @param termId termId of a term in the dictionary
+     * @return the weights in posting order, or null if the index is off the heap
+     */
+    double[] getLogTfWeights(int termId) {
+        if (offHeapStore != null) {
+            return null;
+        }
+        return logTfWeights.get(getSegmentTermId(termId));
+    }
+
+    /**
+     * @return true if this is a view of a segment with the statistics of a larger collection, which an
+     * {@link IndexWriter} builds anew on every refresh; searchers then take what does not depend on the statistics
+     * from the {@link CorpusIndex#getSegmentData segment data} instead of precomputing it for the view
+     */
+    boolean isSegmentView() {
+        return viewTermIds != null;
+    }
+
+    /**
+     * @param termId termId of a term in the dictionary
+     * @return its termId in the index this is a view of, or 0 if no document of it contains the term; the termId
+     * itself unless this is a view of a segment
+     */
+    int getSegmentTermId(int termId) {
+        return viewTermIds == null ? termId : viewTermIds.get(termId);
+    }
+
+    /**
+     * Data a searcher derives from the postings and documents of an index alone, which does not depend on the
+     * collection statistics. It is computed once, over the index this is a view of, and shared by every view of it
+     * for as long as the index lives, so it is not recomputed on every refresh of an {@link IndexWriter}. The data
+     * is indexed by the termIds of the segment, see {@link CorpusIndex#getSegmentTermId(int)}.
+     *
+     * @param key     identifies the data, e.g. its class
+     * @param factory computes the data from the index this is a view of, or from this index
+     * @return the data
+     */
+    @SuppressWarnings("unchecked")
+    <T> T getSegmentData(Object key, Function<CorpusIndex, T> factory) {
+        return (T) segmentIndex.segmentData.computeIfAbsent(key, k -> factory.apply(segmentIndex));
+    }
+
+    /**
+     * @return true if the document table and the posting lists are outside the heap; searchers then do not
+     * precompute anything per posting or per document
+     */
+    boolean isOffHeap() {
+        return offHeapStore != null;
+    }
+
+    /**
+     * @return the largest document Id, or -1 if there is no document
+     */
+    int getMaxDocId() {
+        return maxDocId;
+    }
+
+    /**
+     * @return true if the document Ids are non-negative and dense enough to index arrays of size
+     * {@link CorpusIndex#getMaxDocId()} + 1
+     */
+    boolean hasDenseDocIds() {
+        return denseDocIds;
+    }
+
+    int getTotalTermFrequency() {
+        return totalTermFrequency;
+    }
+
+    double getAverageDocumentLength() {
+        return averageDocumentLength;
+    }
+
+    /**
+     * The log-TF weights of the postings of an index, computed on first use
+     */
+    private static final class LogTfWeights {
+        private static final double[] NO_WEIGHTS = new double[0];
+
+        /**
+         * The posting lists of the index, by termId from 1 to termCount
+         */
+        private final IntObjectHashMap<PostingList> postingLists;
+        private final int termCount;
+
+        /**
+         * Indexed by termId then posting position
+         */
+        private volatile double[][] weights;
+
+        LogTfWeights(IntObjectHashMap<PostingList> postingLists, int termCount) {
+            this.postingLists = postingLists;
+            this.termCount = termCount;
+        }
+
+        /**
+         * @param termId termId of the index, or 0 for a term a view adds, which has no posting
+         */
+        double[] get(int termId) {
+            double[][] termWeights = weights;
+            if (termWeights == null) {
+                synchronized (this) {
+                    termWeights = weights;
+                    if (termWeights == null) {
+                        termWeights = compute();
+                        weights = termWeights;
+                    }
+                }
+            }
+            return termId > 0 ? termWeights[termId] : NO_WEIGHTS;
+        }
+
+        private double[][] compute() {
+            double[][] termWeights = new double[termCount + 1][];
+            for (int termId = 1; termId <= termCount; termId++) {
+                double[] postingWeights = new double[postingLists.get(termId).size()];
+                PostingList.Cursor cursor = postingLists.get(termId).cursor();
+                for (int i = 0; cursor.nextDoc() != PostingList.NO_MORE_DOCS; i++) {
+                    postingWeights[i] = TfIdfMathUtil.calculateTermFrequency(cursor.termFrequency());
+                }
+                termWeights[termId] = postingWeights;
+            }
+            return termWeights;
+        }
+    }
+
+    /**
+     * Builder that indexes a list of documents
+     */
+    static class Builder {
+        /**
+         * Minimum number of documents per shard of the parallel build
+         */
+        private static final int MIN_SHARD_SIZE = 256;
+
+        private final List<Document> documents;
+
+        /**
+         * Pool that runs the parallel build; null means the index is built on the calling thread
+         */
+        private ForkJoinPool forkJoinPool;
+
+        /**
+         * Whether the built index is moved off the heap, and the scratch file it is mapped from, if any
+         */
+        private boolean offHeap = false;
+        private Path offHeapFile;
+
+        /**
+         * Whether the raw texts are compressed into a {@link DocumentStore}
+         */
+        private boolean storeDocuments = false;
+
+        // State of the build
+        private final HashMap<String, Integer> termDict = new HashMap<>();
+        private IntIntHashMap termDocFrequency = new IntIntHashMap();
+        private IntObjectHashMap<PostingList> postingLists = new IntObjectHashMap<>();
+        private final TreeMap<Integer, Document> documentDict = new TreeMap<>();
+        private final IntIntHashMap documentLengthMap = new IntIntHashMap();
+        private int totalTermFrequency = 0;
+        private double averageDocumentLength = 0;
+        private boolean built = false;
+
+        Builder(List<Document> documents) {
+            this.documents = documents;
+        }
+
+        /**
+         * Build the index in parallel on the given pool
+         *
+         * @param forkJoinPool a pool, or null to build on the calling thread (default)
+         * @return this Builder
+         */
+        Builder setForkJoinPool(ForkJoinPool forkJoinPool) {
+            this.forkJoinPool = forkJoinPool;
+            return this;
+        }
+
+        /**
+         * Move the document table and the posting lists of the index out of the heap once it is built,
+         * see {@link CorpusIndex#offHeap(Path)}
+         *
+         * @param offHeap whether to store them in a direct buffer; false by default
+         * @return this Builder
+         */
+        Builder setOffHeap(boolean offHeap) {
+            this.offHeap = offHeap;
+            return this;
+        }
+
+        /**
+         * Move the document table and the posting lists of the index out of the heap once it is built, into a
+         * memory-mapped file, which is not limited by the direct memory of the JVM
+         *
+         * @param offHeapFile the scratch file, which is replaced if it exists and which the caller deletes once the index
+         *                    is no longer used, or null to keep the index on the heap
+         * @return this Builder
+         */
+        Builder setOffHeapFile(Path offHeapFile) {
+            this.offHeap = offHeapFile != null;
+            this.offHeapFile = offHeapFile;
+            return this;
+        }
+
+        /**
+         * Compress the raw texts into a {@link DocumentStore} while indexing. The index then holds the documents of
+         * the store instead of the given ones, whose texts are only read back for the results a caller renders;
+         * the given documents can be dropped once the index is built.
+         *
+         * @param storeDocuments whether to compress the raw texts; false by default
+         * @return this Builder
+         */
+        Builder setStoreDocuments(boolean storeDocuments) {
+            this.storeDocuments = storeDocuments;
+            return this;
+        }
+
+        /**
+         * Index the documents.
+         * Be careful for this initialization, as it can be expensive for a large dataset.
+         * If a pool is set, the documents are indexed in parallel shards;
+         * the resulting index is identical to the one built sequentially.
+         *
+         * @return the index
+         */
+        CorpusIndex build() {
+            if (built) {
+                throw new IllegalStateException("A CorpusIndex.Builder can only build once");
+            }
+            built = true;
+
+            IntObjectHashMap<IntDoubleHashMap> tempDocVector;
+            if (forkJoinPool != null && documents.size() >= 2 * MIN_SHARD_SIZE) {
+                tempDocVector = indexInParallel();
+            } else {
+                tempDocVector = index();
+            }
+
+            // Document statistics derived from the term frequencies of each document
+            int totalDocument = tempDocVector.size();
+            IntDoubleHashMap termIdfScore = calculateTermIdfScores(totalDocument);
+            IntDoubleHashMap documentNorms = calculateDocumentNorms(tempDocVector, totalDocument);
+            IntIntHashMap documentTermCounts = new IntIntHashMap(totalDocument);
+            for (int slot = tempDocVector.nextSlot(-1); slot >= 0; slot = tempDocVector.nextSlot(slot)) {
+                documentTermCounts.put(tempDocVector.keyAt(slot), tempDocVector.valueAt(slot).size());
+            }
+            averageDocumentLength = averageDocumentLength / (double) totalDocument;
+            if (storeDocuments) {
+                for (Document document : DocumentStore.write(new ArrayList<>(documentDict.values())).getDocuments()) {
+                    documentDict.put(document.getId(), document);
+                }
+            }
+
+            // Per-term statistics that bound the weight of a term in any of its documents
+            IntIntHashMap termMaxFrequency = new IntIntHashMap(termDict.size());
+            IntIntHashMap termMinDocumentLength = new IntIntHashMap(termDict.size());
+            calculateTermBoundStatistics(termMaxFrequency, termMinDocumentLength);
+
+            CorpusIndex corpusIndex = new CorpusIndex(termDict, termDocFrequency, termIdfScore, postingLists, documentDict,
+                    new ArrayList<>(documentDict.values()), documentLengthMap, documentNorms, documentTermCounts,
+                    termMaxFrequency, termMinDocumentLength, totalDocument, totalTermFrequency, averageDocumentLength,
+                    null, null, null, null, null);
+            if (!offHeap) {
+                return corpusIndex;
+            }
+            try {
+                // The maps and posting lists on the heap are garbage from now on
+                return corpusIndex.offHeap(offHeapFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot map the off-heap index: " + offHeapFile, e);
+            }
+        }
+
+        /**
+         * Index the documents on the calling thread
+         *
+         * @return mapping between (docId: Int) and (Mapping between (termId: Int) and (termFreq: Double))
+         */
+        private IntObjectHashMap<IntDoubleHashMap> index() {
+            // Temporary Mapping between (docId: Int) and (Mapping between (termId: Int) and (termFreq: Double))
+            IntObjectHashMap<IntDoubleHashMap> tempDocVector = new IntObjectHashMap<>(documents.size());
+
+            // Mapping between (termId: Int) and the PostingList being built
+            IntObjectHashMap<PostingList.Builder> postingListBuilders = new IntObjectHashMap<>();
+
+            // Initialize the term Id counter
+            int termIdCounter = 0;
+
+            // Iterates thru all Documents in the param List
+            for (final Document document : documents) {
+                // Create an empty Vector for the Document
+                IntDoubleHashMap docTermScoreMap = new IntDoubleHashMap();
+                tempDocVector.put(document.getId(), docTermScoreMap);
+                addDocument(document);
+
+                for (final String token : document.getTokens()) {            // We iterate thru all tokens in the document
+                    totalTermFrequency++;                                    // Add up total frequency
+
+                    Integer currentTermId = termDict.get(token);             // Variable for storing termId
+                    if (currentTermId == null) {                             // If we never seen this token String before,
+                        // Add that token String to the termDict;
+                        // also increment termIdCounter by 1.
+                        // Assign the counter Id as the Current termId
+                        currentTermId = ++termIdCounter;
+                        termDict.put(token, currentTermId);
+
+                        // Prepare the PostingList for this termId
+                        postingListBuilders.put(currentTermId, new PostingList.Builder(true));
+                    }
+
+                    // Crank the frequency up by 1; if the term is new to this document, it starts from 0.
+                    docTermScoreMap.addTo(currentTermId, 1.0);
+                }
+
+                // For every explored terms in this document
+                for (int slot = docTermScoreMap.nextSlot(-1); slot >= 0; slot = docTermScoreMap.nextSlot(slot)) {
+                    int termId = docTermScoreMap.keyAt(slot);
+                    // We add docId with its term frequency to the PostingList of termId.
+                    postingListBuilders.get(termId).add(document.getId(), (int) docTermScoreMap.valueAt(slot));
+                    // We add up document Frequency by 1.
+                    termDocFrequency.addTo(termId, 1);
+                }
+            }
+
+            // Encode every PostingList
+            postingLists = new IntObjectHashMap<>(postingListBuilders.size());
+            for (int slot = postingListBuilders.nextSlot(-1); slot >= 0; slot = postingListBuilders.nextSlot(slot)) {
+                postingLists.put(postingListBuilders.keyAt(slot), postingListBuilders.valueAt(slot).build());
+            }
+            return tempDocVector;
+        }
+
+        /**
+         * Index the documents in shards on {@link Builder#forkJoinPool}.
+         * <p>
+         * Phase 1 collects the vocabulary of each shard in first-appearance order. The vocabularies are merged
+         * shard by shard, so every term gets the same termId as in the sequential build. Phase 2 builds the
+         * Document Vectors and partial PostingLists of each shard against the merged (read-only) term dictionary.
+         * Lastly, the partial PostingLists of every term are concatenated in shard order.
+         * Document Vectors are built token by token exactly like the sequential build, so every floating point
+         * sum over them comes out the same.
+         *
+         * @return mapping between (docId: Int) and (Mapping between (termId: Int) and (termFreq: Double))
+         */
+        private IntObjectHashMap<IntDoubleHashMap> indexInParallel() {
+            final Document[] documentArray = documents.toArray(new Document[0]);
+            final int shardSize = Math.max(MIN_SHARD_SIZE, documentArray.length / (forkJoinPool.getParallelism() * 4));
+            final int shardCount = (documentArray.length + shardSize - 1) / shardSize;
+
+            // Phase 1: vocabulary of each shard, in first-appearance order
+            final List<List<String>> shardVocabularies = new ArrayList<>(Collections.nCopies(shardCount, null));
+            runInParallel(shardCount, shard -> {
+                HashSet<String> seen = new HashSet<>();
+                List<String> vocabulary = new ArrayList<>();
+                for (int d = shard * shardSize; d < Math.min(documentArray.length, (shard + 1) * shardSize); d++) {
+                    for (String token : documentArray[d].getTokens()) {
+                        if (seen.add(token)) {
+                            vocabulary.add(token);
+                        }
+                    }
+                }
+                shardVocabularies.set(shard, vocabulary);
+            });
+
+            // Merge the vocabularies in shard order to assign termIds like the sequential build does
+            int termIdCounter = 0;
+            for (List<String> vocabulary : shardVocabularies) {
+                for (String token : vocabulary) {
+                    if (!termDict.containsKey(token)) {
+                        termDict.put(token, ++termIdCounter);
+                    }
+                }
+            }
+            shardVocabularies.clear();
+
+            // Phase 2: Document Vectors, token counts and partial PostingLists of each shard
+            final IntDoubleHashMap[] documentVectorArray = new IntDoubleHashMap[documentArray.length];
+            final int[] shardTermFrequencies = new int[shardCount];
+            final List<IntObjectHashMap<PostingList.Builder>> shardPostingLists = new ArrayList<>(Collections.nCopies(shardCount, null));
+            runInParallel(shardCount, shard -> {
+                IntObjectHashMap<PostingList.Builder> builders = new IntObjectHashMap<>();
+                for (int d = shard * shardSize; d < Math.min(documentArray.length, (shard + 1) * shardSize); d++) {
+                    IntDoubleHashMap docTermScoreMap = new IntDoubleHashMap();
+                    for (String token : documentArray[d].getTokens()) {
+                        shardTermFrequencies[shard]++;
+                        docTermScoreMap.addTo(termDict.get(token), 1.0);
+                    }
+                    for (int slot = docTermScoreMap.nextSlot(-1); slot >= 0; slot = docTermScoreMap.nextSlot(slot)) {
+                        int termId = docTermScoreMap.keyAt(slot);
+                        PostingList.Builder builder = builders.get(termId);
+                        if (builder == null) {
+                            builder = new PostingList.Builder(true);
+                            builders.put(termId, builder);
+                        }
+                        builder.add(documentArray[d].getId(), (int) docTermScoreMap.valueAt(slot));
+                    }
+                    documentVectorArray[d] = docTermScoreMap;
+                }
+                shardPostingLists.set(shard, builders);
+            });
+
+            // Put the documents in the original order
+            IntObjectHashMap<IntDoubleHashMap> tempDocVector = new IntObjectHashMap<>(documentArray.length);
+            for (int d = 0; d < documentArray.length; d++) {
+                tempDocVector.put(documentArray[d].getId(), documentVectorArray[d]);
+                addDocument(documentArray[d]);
+            }
+            for (int shardTermFrequency : shardTermFrequencies) {
+                totalTermFrequency += shardTermFrequency;
+            }
+
+            // Concatenate the partial PostingLists of every term in shard order
+            final PostingList[] postingListArray = new PostingList[termIdCounter + 1];
+            runInParallel(termIdCounter, t -> {
+                int termId = t + 1;
+                PostingList.Builder builder = new PostingList.Builder(true);
+                for (IntObjectHashMap<PostingList.Builder> builders : shardPostingLists) {
+                    PostingList.Builder partial = builders.get(termId);
+                    if (partial != null) {
+                        builder.addAll(partial);
+                    }
+                }
+                postingListArray[termId] = builder.build();
+            });
+            shardPostingLists.clear();
+
+            postingLists = new IntObjectHashMap<>(termIdCounter);
+            termDocFrequency = new IntIntHashMap(termIdCounter);
+            for (int termId = 1; termId <= termIdCounter; termId++) {
+                postingLists.put(termId, postingListArray[termId]);
+                termDocFrequency.put(termId, postingListArray[termId].size());
+            }
+            return tempDocVector;
+        }
+
+        /**
+         * Record a document and its length
+         *
+         * @param document the document being indexed
+         */
+        private void addDocument(Document document) {
+            documentDict.put(document.getId(), document);
+            documentLengthMap.put(document.getId(), document.getRawText().length());
+            averageDocumentLength += document.getRawText().length();
+        }
+
+        /**
+         * Calculate the IDF of every term
+         *
+         * @param totalDocument number of documents
+         * @return mapping between (termId: Int) and (IDF: Double)
+         */
+        private IntDoubleHashMap calculateTermIdfScores(int totalDocument) {
+            final int[] termIds = termDocFrequency.keys();
+            final double[] idfs = new double[termIds.length];
+            runInParallel(termIds.length, t ->
+                    idfs[t] = TfIdfMathUtil.calculateInvertedDocFrequency(totalDocument, termDocFrequency.get(termIds[t])));
+
+            IntDoubleHashMap termIdfScore = new IntDoubleHashMap(termIds.length);
+            for (int t = 0; t < termIds.length; t++) {
+                termIdfScore.put(termIds[t], idfs[t]);
+            }
+            return termIdfScore;
+        }
+
+        /**
+         * Find the highest term frequency and the shortest document in the postings of every term
+         *
+         * @param termMaxFrequency      receives mapping between (termId: Int) and (highest term frequency: Int)
+         * @param termMinDocumentLength receives mapping between (termId: Int) and (shortest raw text length: Int)
+         */
+        private void calculateTermBoundStatistics(IntIntHashMap termMaxFrequency, IntIntHashMap termMinDocumentLength) {
+            final int[] termIds = postingLists.keys();
+            final int[] maxFrequencies = new int[termIds.length];
+            final int[] minDocumentLengths = new int[termIds.length];
+            runInParallel(termIds.length, t -> {
+                int maxFrequency = 0;
+                int minDocumentLength = Integer.MAX_VALUE;
+                PostingList.Cursor cursor = postingLists.get(termIds[t]).cursor();
+                while (cursor.nextDoc() != PostingList.NO_MORE_DOCS) {
+                    maxFrequency = Math.max(maxFrequency, cursor.termFrequency());
+                    minDocumentLength = Math.min(minDocumentLength, documentLengthMap.get(cursor.docId()));
+                }
+                maxFrequencies[t] = maxFrequency;
+                minDocumentLengths[t] = minDocumentLength;
+            });
+
+            for (int t = 0; t < termIds.length; t++) {
+                termMaxFrequency.put(termIds[t], maxFrequencies[t]);
+                termMinDocumentLength.put(termIds[t], minDocumentLengths[t]);
+            }
+        }
+
+        /**
+         * Calculate the norm of the TF-IDF Document Vector of every document. The weights are summed in the slot
+         * order of the term frequency map, like {@link VectorSpaceModelIndexer#calculateTfIdfWeight} followed by
+         * {@link TfIdfMathUtil#calculateNorm(IntDoubleHashMap)} would.
+         *
+         * @param tempDocVector mapping between (docId: Int) and (Mapping between (termId: Int) and (termFreq: Double))
+         * @param totalDocument number of documents
+         * @return mapping between (docId: Int) and (norm: Double)
+         */
+        private IntDoubleHashMap calculateDocumentNorms(IntObjectHashMap<IntDoubleHashMap> tempDocVector, int totalDocument) {
+            final int[] docIds = new int[tempDocVector.size()];
+            final IntDoubleHashMap[] vectors = new IntDoubleHashMap[docIds.length];
+            int i = 0;
+            for (int slot = tempDocVector.nextSlot(-1); slot >= 0; slot = tempDocVector.nextSlot(slot)) {
+                docIds[i] = tempDocVector.keyAt(slot);
+                vectors[i++] = tempDocVector.valueAt(slot);
+            }
+
+            final double[] norms = new double[docIds.length];
+            runInParallel(docIds.length, d -> {
+                IntDoubleHashMap vector = vectors[d];
+                double sum = 0;
+                for (int slot = vector.nextSlot(-1); slot >= 0; slot = vector.nextSlot(slot)) {
+                    double tfIdfWeight = TfIdfMathUtil.calculateTermFrequency((int) vector.valueAt(slot))
+                            * TfIdfMathUtil.calculateInvertedDocFrequency(totalDocument, termDocFrequency.get(vector.keyAt(slot)));
+                    sum += Math.pow(tfIdfWeight, 2);
+                }
+                norms[d] = Math.sqrt(sum);
+            });
+
+            IntDoubleHashMap documentNorms = new IntDoubleHashMap(docIds.length);
+            for (int d = 0; d < docIds.length; d++) {
+                documentNorms.put(docIds[d], norms[d]);
+            }
+            return documentNorms;
+        }
+
+        /**
+         * Run the action for every index in [0, count) on {@link Builder#forkJoinPool}, split into a few chunks
+         * per worker. Without a pool, the action runs on the calling thread in ascending order.
+         * Actions must only write to state owned by their own index.
+         *
+         * @param count  number of indexes
+         * @param action the action to be run for each index
+         */
+        private void runInParallel(int count, IntConsumer action) {
+            if (forkJoinPool == null || count <= 1) {
+                for (int i = 0; i < count; i++) {
+                    action.accept(i);
+                }
+                return;
+            }
+
+            int chunkCount = Math.min(count, forkJoinPool.getParallelism() * 4);
+            List<Callable<Void>> tasks = new ArrayList<>(chunkCount);
+            for (int c = 0; c < chunkCount; c++) {
+                final int from = (int) ((long) count * c / chunkCount);
+                final int to = (int) ((long) count * (c + 1) / chunkCount);
+                tasks.add(() -> {
+                    for (int i = from; i < to; i++) {
+                        action.accept(i);
+                    }
+                    return null;
+                });
+            }
+
+            try {
+                for (Future<Void> future : forkJoinPool.invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Indexing was interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("Indexing failed", e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The raw texts of a corpus, compressed in blocks, with a small cache of decompressed blocks.
+ * <p>
+ * The texts are written in docId order, at index time, into blocks of about {@link DocumentStore#DEFAULT_BLOCK_SIZE}
+ * bytes of UTF-8; a document never spans two blocks. Every block is deflated on its own and laid out as
+ * <pre>
+ * [uncompressedLength][deflate([documentCount][textEnd] * documentCount [texts in UTF-8])]
+ * </pre>
+ * so a text is read by inflating its block only. The documents the store hands out are {@link StoredDocument}s,
+ * which only hold their Id and position; their raw text is read from the store every time it is asked for, so the
+ * heap holds no text apart from the cached blocks. Searching never reads a text: only the caller does, for the
+ * results it renders.
+ * <p>
+ * The least recently used block is evicted when the cache is full. A DocumentStore is immutable apart from its cache
+ * and can be shared by any number of searchers and threads.
+ */
+final class DocumentStore {
+
+    /**
+     * Number of bytes of UTF-8 text after which a block is closed
+     */
+    static final int DEFAULT_BLOCK_SIZE = 16 * 1024;
+
+    /**
+     * Number of decompressed blocks kept
+     */
+    static final int DEFAULT_CACHE_CAPACITY = 8;
+
+    /**
+     * Every compressed block, one after the other
+     */
+    private final byte[] data;
+
+    /**
+     * Start of every block in {@link DocumentStore#data}, then the end of the last one
+     */
+    private final int[] blockOffsets;
+
+    /**
+     * Position of the first document of every block
+     */
+    private final int[] blockFirstOrdinals;
+
+    /**
+     * The documents in docId order
+     */
+    private final List<Document> documents;
+
+    private final int cacheCapacity;
+
+    /**
+     * The decompressed blocks in access order, from the least recently used; guarded by itself
+     */
+    private final LinkedHashMap<Integer, ByteBuffer> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private DocumentStore(byte[] data, int[] blockOffsets, int[] blockFirstOrdinals, int[] documentIds, int cacheCapacity) {
+        this.data = data;
+        this.blockOffsets = blockOffsets;
+        this.blockFirstOrdinals = blockFirstOrdinals;
+        this.cacheCapacity = cacheCapacity;
+        this.cache = new LinkedHashMap<Integer, ByteBuffer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ByteBuffer> eldest) {
+                return size() > DocumentStore.this.cacheCapacity;
+            }
+        };
+
+        Document[] documentArray = new Document[documentIds.length];
+        for (int ordinal = 0; ordinal < documentIds.length; ordinal++) {
+            documentArray[ordinal] = new StoredDocument(documentIds[ordinal], ordinal);
+        }
+        this.documents = Collections.unmodifiableList(Arrays.asList(documentArray));
+    }
+
+    /**
+     * Compress the raw texts of documents with the default block size and cache capacity
+     *
+     * @param documents documents in docId order
+     * @return the store
+     */
+    static DocumentStore write(List<Document> documents) {
+        return write(documents, DEFAULT_BLOCK_SIZE, DEFAULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * Compress the raw texts of documents
+     *
+     * @param documents     documents in docId order
+     * @param blockSize     number of bytes of UTF-8 text after which a block is closed; larger blocks compress better
+     *                      but take longer to read a text from
+     * @param cacheCapacity number of decompressed blocks kept, or 0 to inflate a block for every text that is read
+     * @return the store
+     */
+    static DocumentStore write(List<Document> documents, int blockSize, int cacheCapacity) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        if (cacheCapacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + cacheCapacity);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Integer> blockOffsets = new ArrayList<>();
+        List<Integer> blockFirstOrdinals = new ArrayList<>();
+        int[] documentIds = new int[documents.size()];
+        Deflater deflater = new Deflater();
+        try {
+            List<byte[]> texts = new ArrayList<>();
+            int textsSize = 0;
+            for (int ordinal = 0; ordinal < documents.size(); ordinal++) {
+                documentIds[ordinal] = documents.get(ordinal).getId();
+                if (texts.isEmpty()) {
+                    blockFirstOrdinals.add(ordinal);
+                }
+                byte[] text = documents.get(ordinal).getRawText().getBytes(StandardCharsets.UTF_8);
+                texts.add(text);
+                textsSize += text.length;
+                if (textsSize >= blockSize || ordinal == documents.size() - 1) {
+                    blockOffsets.add(out.size());
+                    writeBlock(out, deflater, texts, textsSize);
+                    texts.clear();
+                    textsSize = 0;
+                }
+            }
+            blockOffsets.add(out.size());
+        } finally {
+            deflater.end();
+        }
+        return new DocumentStore(out.toByteArray(), toArray(blockOffsets), toArray(blockFirstOrdinals), documentIds,
+                cacheCapacity);
+    }
+
+    private static void writeBlock(ByteArrayOutputStream out, Deflater deflater, List<byte[]> texts, int textsSize) {
+        ByteBuffer block = ByteBuffer.allocate(4 + 4 * texts.size() + textsSize);
+        block.putInt(texts.size());
+        int textEnd = 0;
+        for (byte[] text : texts) {
+            textEnd += text.length;
+            block.putInt(textEnd);
+        }
+        for (byte[] text : texts) {
+            block.put(text);
+        }
+
+        out.write(block.capacity() >>> 24);
+        out.write(block.capacity() >>> 16);
+        out.write(block.capacity() >>> 8);
+        out.write(block.capacity());
+        deflater.reset();
+        deflater.setInput(block.array());
+        deflater.finish();
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * @return every document in docId order; raw texts are read from the store when they are asked for
+     */
+    List<Document> getDocuments() {
+        return documents;
+    }
+
+    /**
+     * @return number of compressed blocks
+     */
+    int getBlockCount() {
+        return blockFirstOrdinals.length;
+    }
+
+    /**
+     * @return number of bytes of the compressed blocks
+     */
+    long sizeInBytes() {
+        return data.length;
+    }
+
+    /**
+     * @return number of texts read from a cached block
+     */
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of texts whose block had to be inflated
+     */
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Read the raw text of a document
+     *
+     * @param ordinal position of the document in {@link DocumentStore#getDocuments()}
+     * @return the text
+     */
+    String text(int ordinal) {
+        int block = Arrays.binarySearch(blockFirstOrdinals, ordinal);
+        if (block < 0) {
+            block = -block - 2;
+        }
+        ByteBuffer texts = block(block);
+        int index = ordinal - blockFirstOrdinals[block];
+        int textsStart = 4 + 4 * texts.getInt(0);
+        int start = index == 0 ? 0 : texts.getInt(4 + 4 * (index - 1));
+        int end = texts.getInt(4 + 4 * index);
+        return new String(texts.array(), textsStart + start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a decompressed block, from the cache if it is there
+     */
+    private ByteBuffer block(int block) {
+        ByteBuffer texts;
+        synchronized (cache) {
+            texts = cache.get(block);
+        }
+        if (texts != null) {
+            hits.increment();
+            return texts;
+        }
+
+        // Inflate without holding the lock; two threads may inflate the same block, and one of them is kept
+        misses.increment();
+        int start = blockOffsets[block];
+        int uncompressedLength = ByteBuffer.wrap(data, start, 4).getInt();
+        byte[] bytes = new byte[uncompressedLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, start + 4, blockOffsets[block + 1] - start - 4);
+            int length = 0;
+            while (length < uncompressedLength && !inflater.finished()) {
+                length += inflater.inflate(bytes, length, uncompressedLength - length);
+            }
+            if (length != uncompressedLength) {
+                throw new IllegalStateException("Truncated document block " + block);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted document block " + block, e);
+        } finally {
+            inflater.end();
+        }
+        texts = ByteBuffer.wrap(bytes);
+        if (cacheCapacity > 0) {
+            synchronized (cache) {
+                cache.put(block, texts);
+            }
+        }
+        return texts;
+    }
+
+    /**
+     * A Document whose raw text stays compressed in the store until it is asked for
+     */
+    final class StoredDocument extends LazyDocument {
+        private final int ordinal;
+
+        private StoredDocument(int docId, int ordinal) {
+            super(docId);
+            this.ordinal = ordinal;
+        }
+
+        /**
+         * @return the store the raw text is in
+         */
+        DocumentStore getStore() {
+            return DocumentStore.this;
+        }
+
+        @Override
+        public String getRawText() {
+            return text(ordinal);
+        }
+    }
+}
@@ -0,0 +1,771 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A persistent, read-only index of a corpus that is memory-mapped instead of being rebuilt from the documents.
+ * <p>
+ * The file holds everything the three searchers need: the term dictionary, the posting lists with term frequencies,
+ * the document frequency, IDF, score bound statistics and BM25 block maxima of every term, and the raw text length,
+ * the TF-IDF norm, the number of distinct terms and the raw text of every document. All numbers are big-endian;
+ * the layout is
+ * <pre>
+ * header       magic, version, CRC32 of the whole file but this field, documentCount, termCount,
+ *              totalTermFrequency, averageDocumentLength, start of the term bytes, block maxima, postings and
+ *              texts sections, k1 and b of the block maxima
+ * documents    [docId, length, norm, textOffset, textLength, termCount] * documentCount, fixed size, ordered by docId
+ * terms        [docFrequency, idf, maxTermFrequency, minDocumentLength, postingOffset, postingLength, termOffset,
+ *              termLength, blockMaximaOffset, blockCount, BM25 term maximum] * termCount, fixed size, by termId
+ * term order   [termId] * termCount, ordered by the UTF-8 bytes of the terms
+ * term bytes   every term in UTF-8
+ * block maxima the BM25 block maxima of every term
+ * postings     the posting lists exactly as {@link PostingList#writeTo(java.io.DataOutput)} writes them
+ * texts        the raw text of every document in UTF-8
+ * </pre>
+ * Opening a file maps it with a {@link FileChannel} and only reads the header. Every accessor reads the mapping:
+ * the per-term and per-document statistics are {@link BufferTable} views, a term is looked up by binary search over
+ * the term order, a posting list is wrapped around its bytes and a raw text is only decoded when it is asked for.
+ * So opening and {@link CorpusIndex#load(IndexFile)} take the same time no matter how large the corpus is, and the
+ * heap holds nothing per term, posting or document.
+ * <p>
+ * An IndexFile is immutable and can be shared by any number of searchers and threads.
+ */
+final class IndexFile {
+
+    /**
+     * "MUGL" in ASCII
+     */
+    static final int MAGIC = 0x4D55474C;
+
+    /**
+     * Version of the layout; bumped on every incompatible change
+     */
+    static final int VERSION = 6;
+
+    private static final int HEADER_SIZE = 68;
+    private static final int DOCUMENT_ENTRY_SIZE = 28;
+    private static final int TERM_ENTRY_SIZE = 48;
+    private static final int CHECKSUM_POSITION = 8;
+
+    /**
+     * The whole file
+     */
+    private final ByteBuffer buffer;
+
+    private final int documentCount;
+    private final int termCount;
+    private final int totalTermFrequency;
+    private final double averageDocumentLength;
+    private final int termOrderStart;
+    private final int termBytesStart;
+    private final int blockMaximaStart;
+    private final int postingsStart;
+    private final int textsStart;
+    private final double blockMaxTuningK1;
+    private final double blockMaxTuningB;
+
+    // The read-only views of the file
+    private final BufferTable documentTable;
+    private final BufferTable termTable;
+    private final Map<String, Integer> termDict = new TermDictionary();
+    private final SortedMap<Integer, Document> documentDict;
+    private final List<Document> documents = new DocumentList();
+    private final BlockMaxScores blockMaxScores = new MappedBlockMaxScores();
+
+    private IndexFile(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        this.documentCount = buffer.getInt(16);
+        this.termCount = buffer.getInt(20);
+        this.totalTermFrequency = buffer.getInt(24);
+        this.averageDocumentLength = buffer.getDouble(28);
+        this.termBytesStart = buffer.getInt(36);
+        this.blockMaximaStart = buffer.getInt(40);
+        this.postingsStart = buffer.getInt(44);
+        this.textsStart = buffer.getInt(48);
+        this.blockMaxTuningK1 = buffer.getDouble(52);
+        this.blockMaxTuningB = buffer.getDouble(60);
+
+        long termsStart = HEADER_SIZE + (long) DOCUMENT_ENTRY_SIZE * documentCount;
+        long termOrderStart = termsStart + (long) TERM_ENTRY_SIZE * termCount;
+        if (documentCount < 0 || termCount < 0 || termBytesStart != termOrderStart + 4L * termCount
+                || blockMaximaStart < termBytesStart || postingsStart < blockMaximaStart
+                || textsStart < postingsStart || textsStart > buffer.limit()) {
+            throw new IOException("Corrupted index file: inconsistent section offsets");
+        }
+        this.termOrderStart = (int) termOrderStart;
+        this.documentTable = BufferTable.keyedByFirstColumn(buffer, HEADER_SIZE, DOCUMENT_ENTRY_SIZE, documentCount);
+        this.termTable = BufferTable.keyedByPosition(buffer, (int) termsStart, TERM_ENTRY_SIZE, termCount);
+        this.documentDict = new DocumentDictionary(0, documentCount);
+    }
+
+    /**
+     * Map an index file and check its header. The rest of the file is only read when it is used, so a corrupted
+     * section goes unnoticed until then; see {@link IndexFile#open(Path, boolean)} to verify the checksum.
+     *
+     * @param path the index file
+     * @return the opened index
+     * @throws IOException if the file cannot be read, is not an index file, has another version or an inconsistent
+     *                     header
+     */
+    static IndexFile open(Path path) throws IOException {
+        return open(path, false);
+    }
+
+    /**
+     * Map an index file
+     *
+     * @param path           the index file
+     * @param verifyChecksum whether to verify the checksum, which reads the whole file once
+     * @return the opened index
+     * @throws IOException if the file cannot be read, is not an index file, has another version or is corrupted
+     */
+    static IndexFile open(Path path, boolean verifyChecksum) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not an index file: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an index file: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported index version " + buffer.getInt(4) + " (expected " + VERSION + "): " + path);
+        }
+        if (verifyChecksum && buffer.getLong(CHECKSUM_POSITION) != checksum(buffer)) {
+            throw new IOException("Checksum mismatch, the index file is corrupted: " + path);
+        }
+        return new IndexFile(buffer);
+    }
+
+    /**
+     * Build an index of the documents and write it
+     *
+     * @param path      the index file; it is replaced if it exists
+     * @param documents list of Document Objects
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path path, List<Document> documents) throws IOException {
+        write(path, new CorpusIndex.Builder(documents)
+                .setForkJoinPool(ForkJoinPool.commonPool())
+                .build());
+    }
+
+    /**
+     * Write an index. The file is written next to the destination and moved over it once it is complete,
+     * so a reader never sees a partially written file.
+     *
+     * @param path        the index file; it is replaced if it exists
+     * @param corpusIndex the index of the corpus
+     * @throws IOException if the file cannot be written or the index does not fit in one mapping
+     */
+    static void write(Path path, CorpusIndex corpusIndex) throws IOException {
+        Map<Integer, Document> documentDict = corpusIndex.getDocumentDict();
+        int documentCount = documentDict.size();
+        int termCount = corpusIndex.getTermDict().size();
+        BlockMaxScores blockMaxScores = corpusIndex.getBlockMaxScores();
+
+        // Terms by termId; termIds are 1..termCount
+        byte[][] termBytes = new byte[termCount + 1][];
+        for (Map.Entry<String, Integer> entry : corpusIndex.getTermDict().entrySet()) {
+            termBytes[entry.getValue()] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        }
+        Integer[] termOrder = new Integer[termCount];
+        Arrays.setAll(termOrder, i -> i + 1);
+        Arrays.sort(termOrder, (a, b) -> compare(termBytes[a], termBytes[b]));
+
+        // Raw texts and the section sizes, to know every offset before writing
+        byte[][] texts = new byte[documentCount][];
+        long textsSize = 0;
+        int ordinal = 0;
+        for (Document document : documentDict.values()) {
+            texts[ordinal] = document.getRawText().getBytes(StandardCharsets.UTF_8);
+            textsSize += texts[ordinal++].length;
+        }
+        long termBytesSize = 0;
+        long blockMaximaSize = 0;
+        long postingsSize = 0;
+        for (int termId = 1; termId <= termCount; termId++) {
+            PostingList postingList = corpusIndex.getPostingLists().get(termId);
+            termBytesSize += termBytes[termId].length;
+            blockMaximaSize += 4L * postingList.blockCount();
+            postingsSize += postingList.sizeInBytes();
+        }
+        long termBytesStart = HEADER_SIZE + (long) DOCUMENT_ENTRY_SIZE * documentCount
+                + (long) (TERM_ENTRY_SIZE + 4) * termCount;
+        long blockMaximaStart = termBytesStart + termBytesSize;
+        long postingsStart = blockMaximaStart + blockMaximaSize;
+        long textsStart = postingsStart + postingsSize;
+        if (textsStart + textsSize > Integer.MAX_VALUE) {
+            throw new IOException("The index is too large for a single mapping: " + (textsStart + textsSize) + " bytes");
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+
+            // Documents
+            IntDoubleHashMap norms = corpusIndex.getDocumentNorms();
+            int textOffset = 0;
+            ordinal = 0;
+            for (Document document : documentDict.values()) {
+                out.writeInt(document.getId());
+                out.writeInt(corpusIndex.getDocumentLengthMap().get(document.getId()));
+                out.writeDouble(norms.get(document.getId()));
+                out.writeInt(textOffset);
+                out.writeInt(texts[ordinal].length);
+                out.writeInt(corpusIndex.getDocumentTermCounts().get(document.getId()));
+                textOffset += texts[ordinal++].length;
+            }
+
+            // Terms
+            int postingOffset = 0;
+            int termOffset = 0;
+            int blockMaximaOffset = 0;
+            for (int termId = 1; termId <= termCount; termId++) {
+                PostingList postingList = corpusIndex.getPostingLists().get(termId);
+                out.writeInt(corpusIndex.getTermDocFrequency().get(termId));
+                out.writeDouble(corpusIndex.getTermIdfScore().get(termId));
+                out.writeInt(corpusIndex.getTermMaxFrequency().get(termId));
+                out.writeInt(corpusIndex.getTermMinDocumentLength().get(termId));
+                out.writeInt(postingOffset);
+                out.writeInt((int) postingList.sizeInBytes());
+                out.writeInt(termOffset);
+                out.writeInt(termBytes[termId].length);
+                out.writeInt(blockMaximaOffset);
+                out.writeInt(postingList.blockCount());
+                out.writeFloat((float) blockMaxScores.getTermUpperBound(termId));
+                postingOffset += (int) postingList.sizeInBytes();
+                termOffset += termBytes[termId].length;
+                blockMaximaOffset += 4 * postingList.blockCount();
+            }
+            for (int termId : termOrder) {
+                out.writeInt(termId);
+            }
+            for (int termId = 1; termId <= termCount; termId++) {
+                out.write(termBytes[termId]);
+            }
+            for (int termId = 1; termId <= termCount; termId++) {
+                for (float blockMaximum : blockMaxScores.getBlockUpperBounds(termId)) {
+                    out.writeFloat(blockMaximum);
+                }
+            }
+
+            // Postings
+            for (int termId = 1; termId <= termCount; termId++) {
+                corpusIndex.getPostingLists().get(termId).writeTo(out);
+            }
+
+            // Texts
+            for (byte[] text : texts) {
+                out.write(text);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(0)
+                    .putInt(documentCount).putInt(termCount).putInt(corpusIndex.getTotalTermFrequency())
+                    .putDouble(corpusIndex.getAverageDocumentLength())
+                    .putInt((int) termBytesStart).putInt((int) blockMaximaStart).putInt((int) postingsStart)
+                    .putInt((int) textsStart)
+                    .putDouble(BM25Similarity.DEFAULT_K1).putDouble(BM25Similarity.DEFAULT_B);
+            updateWithHeader(crc, header);
+            header.putLong(CHECKSUM_POSITION, crc.getValue());
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * CRC32 of the sections after the header followed by the header without its checksum field
+     */
+    private static long checksum(ByteBuffer buffer) {
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        updateWithHeader(crc, buffer);
+        return crc.getValue();
+    }
+
+    /**
+     * Add the header bytes around the checksum field to the CRC
+     */
+    private static void updateWithHeader(CRC32 crc, ByteBuffer buffer) {
+        ByteBuffer header = buffer.duplicate();
+        header.position(0);
+        header.limit(CHECKSUM_POSITION);
+        crc.update(header);
+        header.limit(HEADER_SIZE);
+        header.position(CHECKSUM_POSITION + Long.BYTES);
+        crc.update(header);
+    }
+
+    /**
+     * Compare two byte strings as unsigned bytes, which orders UTF-8 strings by code point
+     */
+    private static int compare(byte[] a, byte[] b) {
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            int difference = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private ByteBuffer slice(int position, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.limit(position + length);
+        return view.slice();
+    }
+
+    private String decode(int position, int length) {
+        return StandardCharsets.UTF_8.decode(slice(position, length)).toString();
+    }
+
+    int getDocumentCount() {
+        return documentCount;
+    }
+
+    int getTermCount() {
+        return termCount;
+    }
+
+    int getTotalTermFrequency() {
+        return totalTermFrequency;
+    }
+
+    double getAverageDocumentLength() {
+        return averageDocumentLength;
+    }
+
+    /**
+     * @return mapping between (term: String) and (termId: Int), backed by the mapping; read-only
+     */
+    Map<String, Integer> getTermDict() {
+        return termDict;
+    }
+
+    /**
+     * @return mapping between (termId: Int) and (docFreq: Int), backed by the mapping; read-only
+     */
+    IntIntHashMap getTermDocFrequency() {
+        return termTable.intColumn(0);
+    }
+
+    /**
+     * @return mapping between (termId: Int) and (IDF: Double), backed by the mapping; read-only
+     */
+    IntDoubleHashMap getTermIdfScore() {
+        return termTable.doubleColumn(4);
+    }
+
+    /**
+     * @return mapping between (termId: Int) and (highest term frequency in its postings: Int), backed by the mapping;
+     * read-only
+     */
+    IntIntHashMap getTermMaxFrequency() {
+        return termTable.intColumn(12);
+    }
+
+    /**
+     * @return mapping between (termId: Int) and (length of the shortest raw text in its postings: Int), backed by the
+     * mapping; read-only
+     */
+    IntIntHashMap getTermMinDocumentLength() {
+        return termTable.intColumn(16);
+    }
+
+    /**
+     * @return mapping between (termId: Int) and (postingList: PostingList), with term frequencies; a posting list is
+     * wrapped around the mapping every time it is asked for
+     */
+    IntObjectHashMap<PostingList> getPostingLists() {
+        return termTable.objectColumn(this::postingList);
+    }
+
+    /**
+     * @return mapping between (docId: Int) and (document: Document), ordered by docId; read-only
+     */
+    SortedMap<Integer, Document> getDocumentDict() {
+        return documentDict;
+    }
+
+    /**
+     * @return every document in docId order; raw texts are decoded lazily
+     */
+    List<Document> getDocuments() {
+        return documents;
+    }
+
+    /**
+     * @return mapping between (docId: Int) and (length of the raw text: Int), backed by the mapping; read-only
+     */
+    IntIntHashMap getDocumentLengthMap() {
+        return documentTable.intColumn(4);
+    }
+
+    /**
+     * @return mapping between (docId: Int) and (norm of its TF-IDF Document Vector: Double), backed by the mapping;
+     * read-only
+     */
+    IntDoubleHashMap getDocumentNorms() {
+        return documentTable.doubleColumn(8);
+    }
+
+    /**
+     * @return mapping between (docId: Int) and (number of distinct terms: Int), backed by the mapping; read-only
+     */
+    IntIntHashMap getDocumentTermCounts() {
+        return documentTable.intColumn(24);
+    }
+
+    /**
+     * @return the BM25 block maxima of the terms, computed with {@link IndexFile#getBlockMaxTuningK1()} and
+     * {@link IndexFile#getBlockMaxTuningB()}, backed by the mapping
+     */
+    BlockMaxScores getBlockMaxScores() {
+        return blockMaxScores;
+    }
+
+    double getBlockMaxTuningK1() {
+        return blockMaxTuningK1;
+    }
+
+    double getBlockMaxTuningB() {
+        return blockMaxTuningB;
+    }
+
+    /**
+     * @param termId termId from 1 to {@link IndexFile#getTermCount()}
+     * @return the term
+     */
+    String getTerm(int termId) {
+        int entry = termTable.entry(termId);
+        return decode(termBytesStart + buffer.getInt(entry + 28), buffer.getInt(entry + 32));
+    }
+
+    /**
+     * Look a term up by binary search over the term order
+     *
+     * @param term a term
+     * @return its termId, or -1 if it is not in the dictionary
+     */
+    int termIdOf(String term) {
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int termId = buffer.getInt(termOrderStart + 4 * middle);
+            int comparison = compareTerm(termId, key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return termId;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compare the UTF-8 bytes of a term of the file with a key, as unsigned bytes
+     */
+    private int compareTerm(int termId, byte[] key) {
+        int entry = termTable.entry(termId);
+        int position = termBytesStart + buffer.getInt(entry + 28);
+        int length = buffer.getInt(entry + 32);
+        for (int i = 0; i < Math.min(length, key.length); i++) {
+            int difference = (buffer.get(position + i) & 0xFF) - (key[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    private PostingList postingList(int termId) {
+        int entry = termTable.entry(termId);
+        return PostingList.wrap(slice(postingsStart + buffer.getInt(entry + 20), buffer.getInt(entry + 24)));
+    }
+
+    private Document document(int ordinal) {
+        return new MappedDocument(documentTable.keyAt(ordinal), ordinal);
+    }
+
+    private String documentText(int ordinal) {
+        int entry = documentTable.entry(ordinal);
+        return decode(textsStart + buffer.getInt(entry + 16), buffer.getInt(entry + 20));
+    }
+
+    /**
+     * The term dictionary as a read-only map; a term is looked up by binary search and decoded when it is iterated
+     */
+    private final class TermDictionary extends AbstractMap<String, Integer> {
+        @Override
+        public int size() {
+            return termCount;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            int termId = termIdOf((String) key);
+            return termId > 0 ? termId : null;
+        }
+
+        @Override
+        public Set<Entry<String, Integer>> entrySet() {
+            return new OrdinalSet<>(termCount, i -> new SimpleImmutableEntry<>(getTerm(i + 1), i + 1));
+        }
+    }
+
+    /**
+     * The documents with the ordinals from..to - 1 as a read-only map ordered by docId; a docId is looked up by binary
+     * search. The bounds of a sub map are clamped to the range of the map it is taken from.
+     */
+    private final class DocumentDictionary extends AbstractMap<Integer, Document>
+            implements SortedMap<Integer, Document> {
+        private final int from;
+        private final int to;
+
+        DocumentDictionary(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return ordinalOf(key) >= 0;
+        }
+
+        @Override
+        public Document get(Object key) {
+            int ordinal = ordinalOf(key);
+            return ordinal >= 0 ? document(ordinal) : null;
+        }
+
+        @Override
+        public Set<Entry<Integer, Document>> entrySet() {
+            return new OrdinalSet<>(to - from, i -> {
+                Document document = document(from + i);
+                return new SimpleImmutableEntry<>(document.getId(), document);
+            });
+        }
+
+        @Override
+        public Comparator<? super Integer> comparator() {
+            return null;
+        }
+
+        @Override
+        public SortedMap<Integer, Document> subMap(Integer fromKey, Integer toKey) {
+            if (fromKey > toKey) {
+                throw new IllegalArgumentException("fromKey > toKey");
+            }
+            return new DocumentDictionary(boundary(fromKey), boundary(toKey));
+        }
+
+        @Override
+        public SortedMap<Integer, Document> headMap(Integer toKey) {
+            return new DocumentDictionary(from, boundary(toKey));
+        }
+
+        @Override
+        public SortedMap<Integer, Document> tailMap(Integer fromKey) {
+            return new DocumentDictionary(boundary(fromKey), to);
+        }
+
+        @Override
+        public Integer firstKey() {
+            if (from == to) {
+                throw new NoSuchElementException();
+            }
+            return documentTable.keyAt(from);
+        }
+
+        @Override
+        public Integer lastKey() {
+            if (from == to) {
+                throw new NoSuchElementException();
+            }
+            return documentTable.keyAt(to - 1);
+        }
+
+        private int ordinalOf(Object key) {
+            int ordinal = key instanceof Integer ? documentTable.indexOf((Integer) key) : -1;
+            return ordinal >= from && ordinal < to ? ordinal : -1;
+        }
+
+        /**
+         * @return the ordinal of the first document whose docId is at least the key, within from..to
+         */
+        private int boundary(int key) {
+            int ordinal = documentTable.indexOf(key);
+            if (ordinal < 0) {
+                ordinal = -(ordinal + 1);
+            }
+            return Math.min(Math.max(ordinal, from), to);
+        }
+    }
+
+    /**
+     * The documents in docId order
+     */
+    private final class DocumentList extends AbstractList<Document> implements RandomAccess {
+        @Override
+        public Document get(int ordinal) {
+            if (ordinal < 0 || ordinal >= documentCount) {
+                throw new IndexOutOfBoundsException("Index: " + ordinal + ", Size: " + documentCount);
+            }
+            return document(ordinal);
+        }
+
+        @Override
+        public int size() {
+            return documentCount;
+        }
+    }
+
+    /**
+     * A read-only set of the elements 0..size - 1 of a table, built when they are iterated
+     */
+    private static final class OrdinalSet<E> extends AbstractSet<E> {
+        private final int size;
+        private final IntFunction<E> element;
+
+        OrdinalSet(int size, IntFunction<E> element) {
+            this.size = size;
+            this.element = element;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public E next() {
+                    if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return element.apply(next++);
+                }
+            };
+        }
+    }
+
+    /**
+     * The BM25 block maxima, read from the mapping
+     */
+    private final class MappedBlockMaxScores extends BlockMaxScores {
+        @Override
+        double getTermUpperBound(int termId) {
+            return buffer.getFloat(termTable.entry(termId) + 44);
+        }
+
+        @Override
+        double getBlockUpperBound(int termId, int block) {
+            return buffer.getFloat(blockMaximaStart + buffer.getInt(termTable.entry(termId) + 36) + 4 * block);
+        }
+
+        @Override
+        float[] getBlockUpperBounds(int termId) {
+            float[] blockMaxima = new float[buffer.getInt(termTable.entry(termId) + 40)];
+            for (int block = 0; block < blockMaxima.length; block++) {
+                blockMaxima[block] = (float) getBlockUpperBound(termId, block);
+            }
+            return blockMaxima;
+        }
+    }
+
+    /**
+     * A Document whose raw text stays in the mapping until it is asked for
+     */
+    private final class MappedDocument extends LazyDocument {
+        private final int ordinal;
+
+        MappedDocument(int docId, int ordinal) {
+            super(docId);
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public String getRawText() {
+            return documentText(ordinal);
+        }
+    }
+}
@@ -0,0 +1,784 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * An index that documents can be added to and deleted from one at a time, without reindexing the corpus.
+ * <p>
+ * New documents are buffered and then flushed into a small in-memory segment, which is an immutable
+ * {@link CorpusIndex} of its own. A deleted document stays in its segment and is only marked in the deletion bitset
+ * of the segment; adding a document with the Id of a live one replaces it. A {@link TieredMergePolicy} merges
+ * segments of similar size into larger ones, which also drops their deleted documents; the merges run on the pool
+ * of the writer, or on the thread that triggered them if there is none.
+ * <p>
+ * Changes become visible to the {@link SegmentSearcher} of the writer when it refreshes: only when
+ * {@link IndexWriter#refresh()} is called, after every change, or periodically, depending on the refresh interval.
+ * A refresh flushes the buffer and gives every segment a view with the statistics of the whole collection, so the
+ * scores are the ones a full reindex of the live documents would give, up to rounding. The term dictionary, document
+ * frequencies and IDFs are kept once for the collection, in {@link CollectionStatistics}; the views of a refresh share
+ * one snapshot of them and reach the postings of their segment through a mapping of termIds, so a view costs
+ * constant time.
+ * <p>
+ * The searcher of every view is built anew on every refresh, so it must not precompute anything from the postings:
+ * the searchers of this project take what does not depend on the statistics from the segment, where it is computed
+ * once, and only compute what does, see {@link CorpusIndex#isSegmentView()}. BM25 weighs the IDF on the query side
+ * and bounds its blocks with statistics of the segment, stored-weight TF-IDF applies the IDF at query time, and
+ * Jaccard keeps its bucketed posting lists with the segment. Apart from the norms below, a refresh then costs time in
+ * the number of documents, for the length normalizations of BM25 and the unit weights of Jaccard, but none in the
+ * vocabulary or the postings.
+ * <p>
+ * The TF-IDF norms of the documents are the only part of a view that takes time in the number of postings, so every
+ * segment keeps the norms it was given and reuses them while they are fresh enough: while the number of documents
+ * of the collection is within the maximum norm staleness of the one they were computed with, and the document
+ * frequencies of the terms of the segment have changed by less than that fraction of their sum. Stale norms are
+ * recomputed on the next refresh, in the background if the writer has a pool; until then, the TF-IDF scores are off
+ * by the drift of the IDFs. With a maximum norm staleness of 0, the norms of every segment are recomputed whenever
+ * the collection has changed, and the scores are exact.
+ * <p>
+ * The writer is thread-safe; the changes are serialized, and searches never wait for them.
+ */
+final class IndexWriter implements Closeable {
+
+    /**
+     * The searcher that is built on the view of every segment
+     */
+    private final Function<CorpusIndex, Searcher> searcherFactory;
+
+    /**
+     * Number of buffered documents that triggers a flush into a new segment
+     */
+    private final int maxBufferedDocuments;
+
+    private final TieredMergePolicy mergePolicy;
+
+    /**
+     * Fraction by which the statistics the norms of a segment were computed with may drift before they are recomputed
+     */
+    private final double maxNormStaleness;
+
+    /**
+     * Pool the merges run on; null means they run on the thread that triggered them
+     */
+    private final ForkJoinPool forkJoinPool;
+
+    /**
+     * Refreshes the searcher periodically; null unless the refresh interval is positive
+     */
+    private final ScheduledExecutorService refresher;
+
+    /**
+     * Negative to refresh only on request, 0 to refresh after every change, or the period of the refreshes
+     */
+    private final long refreshIntervalMillis;
+
+    /**
+     * The searcher over the segments of the last refresh
+     */
+    private final SegmentSearcher searcher;
+
+    // State of the writer, guarded by this
+    private final LinkedHashMap<Integer, Document> bufferedDocuments = new LinkedHashMap<>();
+    private final List<Segment> segments = new ArrayList<>();
+
+    /**
+     * Mapping between (docId: Int) and (segment that holds the live document: Segment); buffered documents are not in it
+     */
+    private final HashMap<Integer, Segment> liveSegments = new HashMap<>();
+
+    /**
+     * Collection statistics over every live document, buffered ones included
+     */
+    private final CollectionStatistics statistics = new CollectionStatistics();
+
+    /**
+     * Whether the segments or the documents have changed since the last refresh
+     */
+    private boolean changed = false;
+
+    private long generation = 0;
+
+    /**
+     * Number of merges and norm recomputations running in the background
+     */
+    private int runningTasks = 0;
+    private boolean closed = false;
+
+    private IndexWriter(Builder builder) {
+        this.searcherFactory = builder.searcherFactory;
+        this.maxBufferedDocuments = builder.maxBufferedDocuments;
+        this.mergePolicy = new TieredMergePolicy(builder.segmentsPerTier, builder.maxBufferedDocuments, builder.maxDeletedRatio);
+        this.maxNormStaleness = builder.maxNormStaleness;
+        this.forkJoinPool = builder.forkJoinPool;
+        this.refreshIntervalMillis = builder.refreshIntervalMillis;
+        this.searcher = new SegmentSearcher(new SegmentSearcher.Reader(0, new ArrayList<>()));
+
+        if (builder.initialIndex != null && builder.initialIndex.getDocumentCount() > 0) {
+            for (Document document : builder.initialIndex.getDocuments()) {
+                addStatistics(document, 1);
+            }
+            // Its own norms were computed with the statistics of its documents, which are the whole collection
+            Segment segment = newSegment(builder.initialIndex, builder.initialIndex.getDocumentNorms());
+            segments.add(segment);
+            for (Document document : builder.initialIndex.getDocuments()) {
+                liveSegments.put(document.getId(), segment);
+            }
+            changed = true;
+            refresh();
+        }
+
+        if (refreshIntervalMillis > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "IndexWriter refresher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(this::refresh, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            refresher = null;
+        }
+    }
+
+    /**
+     * Add a document, replacing the live document with the same Id if there is one
+     *
+     * @param document the document to be added
+     */
+    synchronized void addDocument(Document document) {
+        ensureOpen();
+        add(document);
+        refreshIfImmediate();
+    }
+
+    /**
+     * Add documents, replacing the live documents with the same Ids; with a refresh interval of 0, they become
+     * visible together
+     *
+     * @param documents the documents to be added
+     */
+    synchronized void addDocuments(Collection<Document> documents) {
+        ensureOpen();
+        for (Document document : documents) {
+            add(document);
+        }
+        refreshIfImmediate();
+    }
+
+    /**
+     * Delete the live document with an Id
+     *
+     * @param docId document Id
+     * @return true if there was such a document
+     */
+    synchronized boolean deleteDocument(int docId) {
+        ensureOpen();
+        boolean deleted = delete(docId);
+        if (deleted) {
+            refreshIfImmediate();
+        }
+        return deleted;
+    }
+
+    /**
+     * Flush the buffered documents into a segment and make every change so far visible to the searcher
+     */
+    synchronized void refresh() {
+        flush();
+        // Deletions alone do not flush, so the segments they left with too many deleted documents are found here
+        maybeMerge();
+        if (!changed) {
+            return;
+        }
+        CollectionStatistics.Snapshot snapshot = statistics.snapshot();
+        List<SegmentSearcher.SegmentView> views = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            if (segment.getLiveCount() == 0) {
+                continue;
+            }
+            if (segment.hasStaleNorms(snapshot.getDocumentCount(), maxNormStaleness)) {
+                updateNorms(segment, snapshot);
+            }
+            CorpusIndex view = segment.corpusIndex.withCollectionStatistics(snapshot, segment.termIds, segment.norms);
+            views.add(new SegmentSearcher.SegmentView(view, searcherFactory.apply(view), segment.docIds,
+                    (BitSet) segment.deletions.clone()));
+        }
+        searcher.setReader(new SegmentSearcher.Reader(++generation, views));
+        changed = false;
+    }
+
+    /**
+     * Wait for the running merges to finish, including the merges they trigger, and for the norms being recomputed
+     * in the background
+     */
+    synchronized void waitForMerges() {
+        while (runningTasks > 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Waiting for the merges was interrupted", e);
+            }
+        }
+    }
+
+    /**
+     * Stop the periodic refreshes, wait for the merges, and make every change visible; the searcher keeps working
+     */
+    @Override
+    public void close() {
+        if (refresher != null) {
+            refresher.shutdown();
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            waitForMerges();
+            refresh();
+        }
+    }
+
+    /**
+     * @return the searcher over the segments of the last refresh
+     */
+    SegmentSearcher getSearcher() {
+        return searcher;
+    }
+
+    /**
+     * @return number of live documents, buffered ones included
+     */
+    synchronized int getDocumentCount() {
+        return statistics.getDocumentCount();
+    }
+
+    /**
+     * @return number of documents waiting to be flushed into a segment
+     */
+    synchronized int getBufferedDocumentCount() {
+        return bufferedDocuments.size();
+    }
+
+    /**
+     * @return number of segments, including the ones being merged
+     */
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("The IndexWriter is closed");
+        }
+    }
+
+    private void refreshIfImmediate() {
+        if (refreshIntervalMillis == 0) {
+            refresh();
+        }
+    }
+
+    private void add(Document document) {
+        delete(document.getId());
+        bufferedDocuments.put(document.getId(), document);
+        addStatistics(document, 1);
+        changed = true;
+        if (bufferedDocuments.size() >= maxBufferedDocuments) {
+            flush();
+        }
+    }
+
+    private boolean delete(int docId) {
+        Document buffered = bufferedDocuments.remove(docId);
+        if (buffered != null) {
+            addStatistics(buffered, -1);
+            changed = true;
+            return true;
+        }
+        Segment segment = liveSegments.remove(docId);
+        if (segment == null) {
+            return false;
+        }
+        segment.delete(docId);
+        addStatistics(segment.corpusIndex.getDocumentDict().get(docId), -1);
+        changed = true;
+        return true;
+    }
+
+    /**
+     * Count a document in or out of the collection statistics, and the changes of document frequency in every segment
+     * that has one of its terms
+     *
+     * @param document the document
+     * @param sign     1 to count it in, -1 to count it out
+     */
+    private void addStatistics(Document document, int sign) {
+        int[] termIds = statistics.add(document, sign);
+        for (Segment segment : segments) {
+            for (int termId : termIds) {
+                if (segment.termIds.containsKey(termId)) {
+                    segment.documentFrequencyChanges++;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a segment of an index whose norms were computed with the current collection statistics
+     */
+    private Segment newSegment(CorpusIndex corpusIndex, IntDoubleHashMap norms) {
+        IntIntHashMap termIds = corpusIndex.mapTermIds(statistics);
+        return new Segment(corpusIndex, termIds, norms, statistics.getDocumentCount(),
+                documentFrequencySum(termIds, statistics::documentFrequency), 0);
+    }
+
+    /**
+     * @param termIds             mapping between the termIds of the collection and the ones of a segment
+     * @param documentFrequencies document frequency by termId of the collection
+     * @return sum of the document frequencies of the terms of the segment
+     */
+    private static long documentFrequencySum(IntIntHashMap termIds, IntUnaryOperator documentFrequencies) {
+        long sum = 0;
+        for (int slot = termIds.nextSlot(-1); slot >= 0; slot = termIds.nextSlot(slot)) {
+            sum += documentFrequencies.applyAsInt(termIds.keyAt(slot));
+        }
+        return sum;
+    }
+
+    /**
+     * Index the buffered documents into a new segment
+     */
+    private void flush() {
+        if (bufferedDocuments.isEmpty()) {
+            return;
+        }
+        List<Document> documents = new ArrayList<>(bufferedDocuments.values());
+        documents.sort(Comparator.comparingInt(Document::getId));
+        CorpusIndex corpusIndex = new CorpusIndex.Builder(documents).build();
+        Segment segment = newSegment(corpusIndex,
+                corpusIndex.calculateDocumentNorms(statistics::documentFrequency, statistics.getDocumentCount()));
+        segments.add(segment);
+        for (Document document : documents) {
+            liveSegments.put(document.getId(), segment);
+        }
+        bufferedDocuments.clear();
+        maybeMerge();
+    }
+
+    /**
+     * Start the merges the merge policy finds among the segments that are not being merged
+     */
+    private void maybeMerge() {
+        List<Segment> eligible = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (!segment.merging) {
+                eligible.add(segment);
+            }
+        }
+        for (List<Segment> merge : mergePolicy.findMerges(eligible)) {
+            for (Segment segment : merge) {
+                segment.merging = true;
+            }
+            runningTasks++;
+            if (forkJoinPool == null) {
+                merge(merge);
+            } else {
+                forkJoinPool.execute(() -> merge(merge));
+            }
+        }
+    }
+
+    /**
+     * Merge the live documents of some segments into one. The index is built without holding the lock;
+     * the documents deleted or replaced meanwhile are deleted from the new segment when it replaces the old ones.
+     *
+     * @param sources the segments to be merged
+     */
+    private void merge(List<Segment> sources) {
+        List<Document> documents = new ArrayList<>();
+        synchronized (this) {
+            for (Segment source : sources) {
+                for (Document document : source.corpusIndex.getDocuments()) {
+                    if (liveSegments.get(document.getId()) == source) {
+                        documents.add(document);
+                    }
+                }
+            }
+        }
+        documents.sort(Comparator.comparingInt(Document::getId));
+
+        CorpusIndex merged = null;
+        try {
+            if (!documents.isEmpty()) {
+                merged = new CorpusIndex.Builder(documents).build();
+            }
+        } finally {
+            synchronized (this) {
+                if (merged != null || documents.isEmpty()) {
+                    replace(sources, merged);
+                } else {
+                    // The build failed; the segments stay as they are
+                    for (Segment source : sources) {
+                        source.merging = false;
+                    }
+                }
+                runningTasks--;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Replace merged segments by the segment they were merged into
+     *
+     * @param sources the merged segments
+     * @param merged  the index of their live documents at the start of the merge, or null if there was none
+     */
+    private void replace(List<Segment> sources, CorpusIndex merged) {
+        segments.removeAll(sources);
+        if (merged != null) {
+            // A document scores the same in any segment, so the merged segment takes the norms of the sources, and is
+            // as stale as the stalest of them
+            IntDoubleHashMap norms = new IntDoubleHashMap(merged.getDocuments().size());
+            int documentCount = statistics.getDocumentCount();
+            int normsDocumentCount = sources.get(0).normsDocumentCount;
+            long normsDocumentFrequencySum = 0;
+            long documentFrequencyChanges = 0;
+            for (Segment source : sources) {
+                for (int slot = source.norms.nextSlot(-1); slot >= 0; slot = source.norms.nextSlot(slot)) {
+                    if (merged.getDocumentDict().containsKey(source.norms.keyAt(slot))) {
+                        norms.put(source.norms.keyAt(slot), source.norms.valueAt(slot));
+                    }
+                }
+                if (Math.abs(documentCount - source.normsDocumentCount) > Math.abs(documentCount - normsDocumentCount)) {
+                    normsDocumentCount = source.normsDocumentCount;
+                }
+                normsDocumentFrequencySum += source.normsDocumentFrequencySum;
+                documentFrequencyChanges += source.documentFrequencyChanges;
+            }
+            Segment segment = new Segment(merged, merged.mapTermIds(statistics), norms, normsDocumentCount,
+                    normsDocumentFrequencySum, documentFrequencyChanges);
+            for (Document document : merged.getDocuments()) {
+                if (sources.contains(liveSegments.get(document.getId()))) {
+                    liveSegments.put(document.getId(), segment);
+                } else {
+                    segment.delete(document.getId());
+                }
+            }
+            segments.add(segment);
+        }
+        changed = true;
+        maybeMerge();
+    }
+
+    /**
+     * Recompute the norms of a segment with a snapshot of the collection statistics: right away if the norms must
+     * always be exact or there is no pool, otherwise in the background, while the segment keeps its stale norms
+     */
+    private void updateNorms(Segment segment, CollectionStatistics.Snapshot snapshot) {
+        if (maxNormStaleness == 0 || forkJoinPool == null) {
+            segment.setNorms(segment.corpusIndex.calculateDocumentNorms(snapshot::documentFrequency, snapshot.getDocumentCount()),
+                    snapshot.getDocumentCount(), documentFrequencySum(segment.termIds, snapshot::documentFrequency),
+                    segment.documentFrequencyChanges);
+            return;
+        }
+        if (segment.updatingNorms) {
+            return;
+        }
+        segment.updatingNorms = true;
+        runningTasks++;
+        // The snapshot is immutable, so the norms are computed without holding the lock
+        long changesSeen = segment.documentFrequencyChanges;
+        forkJoinPool.execute(() -> {
+            IntDoubleHashMap norms = null;
+            long documentFrequencySum = 0;
+            try {
+                norms = segment.corpusIndex.calculateDocumentNorms(snapshot::documentFrequency, snapshot.getDocumentCount());
+                documentFrequencySum = documentFrequencySum(segment.termIds, snapshot::documentFrequency);
+            } finally {
+                synchronized (this) {
+                    // A segment merged meanwhile is gone, and its merged segment took the stale norms
+                    if (norms != null && segments.contains(segment)) {
+                        segment.setNorms(norms, snapshot.getDocumentCount(), documentFrequencySum, changesSeen);
+                        changed = true;
+                    }
+                    segment.updatingNorms = false;
+                    runningTasks--;
+                    notifyAll();
+                }
+            }
+        });
+    }
+
+    /**
+     * Builder of an {@link IndexWriter}
+     */
+    static class Builder {
+        private final Function<CorpusIndex, Searcher> searcherFactory;
+        private CorpusIndex initialIndex;
+        private int maxBufferedDocuments = 1000;
+        private int segmentsPerTier = 10;
+        private double maxDeletedRatio = 0.3;
+        private double maxNormStaleness = 0.05;
+        private ForkJoinPool forkJoinPool;
+        private long refreshIntervalMillis = -1;
+
+        /**
+         * @param searcherFactory builds the searcher of every segment on its view, e.g. {@code MyCoolSearcher::new}
+         */
+        Builder(Function<CorpusIndex, Searcher> searcherFactory) {
+            this.searcherFactory = searcherFactory;
+        }
+
+        /**
+         * Start from an index that has been built or loaded already, which becomes the first segment
+         *
+         * @param initialIndex the index, or null to start empty (default)
+         * @return this Builder
+         */
+        Builder setInitialIndex(CorpusIndex initialIndex) {
+            this.initialIndex = initialIndex;
+            return this;
+        }
+
+        /**
+         * @param maxBufferedDocuments number of buffered documents that triggers a flush into a new segment,
+         *                             which is also the size of the smallest tier; 1000 by default
+         * @return this Builder
+         */
+        Builder setMaxBufferedDocuments(int maxBufferedDocuments) {
+            if (maxBufferedDocuments <= 0) {
+                throw new IllegalArgumentException("The buffer must hold at least one document: " + maxBufferedDocuments);
+            }
+            this.maxBufferedDocuments = maxBufferedDocuments;
+            return this;
+        }
+
+        /**
+         * @param segmentsPerTier number of segments of similar size that are merged into one; 10 by default
+         * @return this Builder
+         */
+        Builder setSegmentsPerTier(int segmentsPerTier) {
+            if (segmentsPerTier < 2) {
+                throw new IllegalArgumentException("At least two segments must be merged at once: " + segmentsPerTier);
+            }
+            this.segmentsPerTier = segmentsPerTier;
+            return this;
+        }
+
+        /**
+         * @param maxDeletedRatio ratio of deleted documents above which a segment is rewritten without them;
+         *                        0.3 by default
+         * @return this Builder
+         */
+        Builder setMaxDeletedRatio(double maxDeletedRatio) {
+            if (!(maxDeletedRatio > 0 && maxDeletedRatio <= 1)) {
+                throw new IllegalArgumentException("The ratio must be in (0, 1]: " + maxDeletedRatio);
+            }
+            this.maxDeletedRatio = maxDeletedRatio;
+            return this;
+        }
+
+        /**
+         * @param maxNormStaleness fraction by which the number of documents, or the document frequencies of the terms
+         *                         of a segment, may drift before its TF-IDF norms are recomputed; 0.05 by default,
+         *                         0 keeps the norms exact
+         * @return this Builder
+         */
+        Builder setMaxNormStaleness(double maxNormStaleness) {
+            if (!(maxNormStaleness >= 0)) {
+                throw new IllegalArgumentException("The staleness must not be negative: " + maxNormStaleness);
+            }
+            this.maxNormStaleness = maxNormStaleness;
+            return this;
+        }
+
+        /**
+         * Merge the segments and recompute stale norms in the background on the given pool
+         *
+         * @param forkJoinPool a pool, or null to merge on the thread that flushes (default)
+         * @return this Builder
+         */
+        Builder setForkJoinPool(ForkJoinPool forkJoinPool) {
+            this.forkJoinPool = forkJoinPool;
+            return this;
+        }
+
+        /**
+         * Set how soon the changes become visible to the searcher
+         *
+         * @param refreshIntervalMillis negative to refresh only when {@link IndexWriter#refresh()} is called
+         *                              (default), 0 to refresh after every change, or the period of the refreshes
+         * @return this Builder
+         */
+        Builder setRefreshInterval(long refreshIntervalMillis) {
+            this.refreshIntervalMillis = refreshIntervalMillis;
+            return this;
+        }
+
+        IndexWriter build() {
+            return new IndexWriter(this);
+        }
+    }
+
+    /**
+     * An immutable index of some documents, with the bitset of the ones that have been deleted since and their
+     * TF-IDF norms
+     */
+    static final class Segment {
+        private final CorpusIndex corpusIndex;
+
+        /**
+         * Mapping between (termId of the collection: Int) and (termId of the segment: Int)
+         */
+        private final IntIntHashMap termIds;
+
+        /**
+         * Ids of the documents in ascending order; the deletions are indexed by position in it
+         */
+        private final int[] docIds;
+
+        /**
+         * Guarded by the writer
+         */
+        private final BitSet deletions = new BitSet();
+        private boolean merging = false;
+
+        /**
+         * The norms of the documents, with the number of documents and the sum of the document frequencies of the
+         * terms of the segment they were computed with
+         */
+        private IntDoubleHashMap norms;
+        private int normsDocumentCount;
+        private long normsDocumentFrequencySum;
+
+        /**
+         * Number of changes of the document frequency of a term of the segment since the norms were computed
+         */
+        private long documentFrequencyChanges;
+        private boolean updatingNorms = false;
+
+        Segment(CorpusIndex corpusIndex, IntIntHashMap termIds, IntDoubleHashMap norms, int normsDocumentCount,
+                long normsDocumentFrequencySum, long documentFrequencyChanges) {
+            this.corpusIndex = corpusIndex;
+            this.termIds = termIds;
+            this.norms = norms;
+            this.normsDocumentCount = normsDocumentCount;
+            this.normsDocumentFrequencySum = normsDocumentFrequencySum;
+            this.documentFrequencyChanges = documentFrequencyChanges;
+            this.docIds = new int[corpusIndex.getDocuments().size()];
+            for (int i = 0; i < docIds.length; i++) {
+                docIds[i] = corpusIndex.getDocuments().get(i).getId();
+            }
+        }
+
+        /**
+         * @param changesSeen the document frequency changes the statistics of the norms include
+         */
+        void setNorms(IntDoubleHashMap norms, int documentCount, long documentFrequencySum, long changesSeen) {
+            this.norms = norms;
+            this.normsDocumentCount = documentCount;
+            this.normsDocumentFrequencySum = documentFrequencySum;
+            this.documentFrequencyChanges -= changesSeen;
+        }
+
+        /**
+         * @return whether the statistics have drifted from the ones of the norms by more than a fraction
+         */
+        boolean hasStaleNorms(int documentCount, double maxStaleness) {
+            return Math.abs(documentCount - normsDocumentCount) > maxStaleness * normsDocumentCount
+                    || documentFrequencyChanges > maxStaleness * normsDocumentFrequencySum;
+        }
+
+        void delete(int docId) {
+            deletions.set(Arrays.binarySearch(docIds, docId));
+        }
+
+        int getSize() {
+            return docIds.length;
+        }
+
+        int getLiveCount() {
+            return docIds.length - deletions.cardinality();
+        }
+    }
+
+    /**
+     * Finds the segments to be merged. The segments are put in tiers by their number of live documents: the first
+     * tier holds up to the flush size, and every tier above holds segmentsPerTier times more. As soon as a tier has
+     * segmentsPerTier segments, its smallest segmentsPerTier are merged, so the number of segments grows with the
+     * logarithm of the corpus size. A segment with too many deleted documents is rewritten on its own.
+     */
+    static final class TieredMergePolicy {
+        private final int segmentsPerTier;
+        private final int floorSegmentSize;
+        private final double maxDeletedRatio;
+
+        TieredMergePolicy(int segmentsPerTier, int floorSegmentSize, double maxDeletedRatio) {
+            this.segmentsPerTier = segmentsPerTier;
+            this.floorSegmentSize = floorSegmentSize;
+            this.maxDeletedRatio = maxDeletedRatio;
+        }
+
+        /**
+         * @param segments the segments that may be merged
+         * @return the groups of segments to be merged, each into one segment; disjoint
+         */
+        List<List<Segment>> findMerges(List<Segment> segments) {
+            List<List<Segment>> merges = new ArrayList<>();
+            Map<Integer, List<Segment>> tiers = new HashMap<>();
+            for (Segment segment : segments) {
+                int deletedCount = segment.getSize() - segment.getLiveCount();
+                if (deletedCount > 0 && deletedCount > maxDeletedRatio * segment.getSize()) {
+                    List<Segment> merge = new ArrayList<>();
+                    merge.add(segment);
+                    merges.add(merge);
+                } else {
+                    tiers.computeIfAbsent(tierOf(segment.getLiveCount()), tier -> new ArrayList<>()).add(segment);
+                }
+            }
+            for (List<Segment> tier : tiers.values()) {
+                tier.sort(Comparator.comparingInt(Segment::getLiveCount));
+                for (int from = 0; from + segmentsPerTier <= tier.size(); from += segmentsPerTier) {
+                    merges.add(new ArrayList<>(tier.subList(from, from + segmentsPerTier)));
+                }
+            }
+            return merges;
+        }
+
+        /**
+         * @param liveCount number of live documents of a segment
+         * @return its tier, from 0 for the smallest segments
+         */
+        int tierOf(int liveCount) {
+            int tier = 0;
+            for (long bound = floorSegmentSize; liveCount > bound; bound *= segmentsPerTier) {
+                tier++;
+            }
+            return tier;
+        }
+    }
+}
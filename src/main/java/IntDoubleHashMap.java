@@ -0,0 +1,106 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+/**
+ * A mapping between primitive int keys and primitive double values backed by open addressing;
+ * see {@link IntHashContainer}.
+ */
+class IntDoubleHashMap extends IntHashContainer {
+
+    /**
+     * Values parallel to the keys
+     */
+    private double[] values;
+
+    IntDoubleHashMap() {
+        this(0);
+    }
+
+    IntDoubleHashMap(int expectedElements) {
+        super(expectedElements);
+    }
+
+    /**
+     * @param key the key
+     * @return the value of the key, or 0 if the key is absent
+     */
+    double get(int key) {
+        return getOrDefault(key, 0d);
+    }
+
+    /**
+     * @param key          the key
+     * @param defaultValue the value to be returned if the key is absent
+     * @return the value of the key, or {@code defaultValue} if the key is absent
+     */
+    double getOrDefault(int key, double defaultValue) {
+        int slot = indexOf(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Associate the value to the key
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    void put(int key, double value) {
+        int slot = insert(key);
+        values[slot >= 0 ? slot : -slot - 1] = value;
+    }
+
+    /**
+     * Add the increment to the value of the key; an absent key starts from 0
+     *
+     * @param key       the key
+     * @param increment the amount to be added
+     * @return the new value of the key
+     */
+    double addTo(int key, double increment) {
+        int slot = insert(key);
+        if (slot < 0) {
+            slot = -slot - 1;
+        }
+        return values[slot] += increment;
+    }
+
+    /**
+     * @param slot an occupied slot
+     * @return the value in the slot
+     */
+    double valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Replace the value in an occupied slot
+     *
+     * @param slot  an occupied slot
+     * @param value the new value
+     */
+    void setValueAt(int slot, double value) {
+        values[slot] = value;
+    }
+
+    @Override
+    protected void allocateValues(int arraySize) {
+        values = new double[arraySize];
+    }
+
+    @Override
+    protected Object values() {
+        return values;
+    }
+
+    @Override
+    protected void moveValue(Object oldValues, int from, int to) {
+        values[to] = ((double[]) oldValues)[from];
+    }
+}
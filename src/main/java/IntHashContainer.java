@@ -0,0 +1,277 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.Arrays;
+
+/**
+ * Base class of the int-keyed open-addressing hash containers used by the indexers.
+ * <p>
+ * Keys are stored in a plain int array with linear probing, so there is no boxing and no entry object per element.
+ * The key 0 marks an empty slot; the key 0 itself is kept in the extra slot at the end of the arrays.
+ * Subclasses keep their values in arrays parallel to {@link IntHashContainer#keys}.
+ * <p>
+ * Elements can be iterated without allocation by slots:
+ * <pre>
+ * for (int slot = map.nextSlot(-1); slot &gt;= 0; slot = map.nextSlot(slot)) {
+ *     int key = map.keyAt(slot);
+ * }
+ * </pre>
+ * Removal is not supported as the indexes only ever grow while they are built.
+ */
+abstract class IntHashContainer {
+
+    /**
+     * Maximum ratio between the number of keys and the number of slots before the arrays grow
+     */
+    private static final double LOAD_FACTOR = 0.75;
+
+    /**
+     * Smallest number of slots
+     */
+    private static final int MIN_CAPACITY = 4;
+
+    /**
+     * Keys of the container; 0 means the slot is empty. The last slot is reserved for the key 0.
+     */
+    protected int[] keys;
+
+    /**
+     * Number of slots minus one; the number of slots is always a power of two
+     */
+    protected int mask;
+
+    /**
+     * Number of non-zero keys in the container
+     */
+    protected int assigned;
+
+    /**
+     * Whether the key 0 is present (in the last slot)
+     */
+    protected boolean hasZeroKey;
+
+    /**
+     * Number of non-zero keys at which the arrays grow
+     */
+    private int resizeAt;
+
+    /**
+     * Instantiate a container that can hold the expected number of elements without growing
+     *
+     * @param expectedElements expected number of elements
+     */
+    protected IntHashContainer(int expectedElements) {
+        allocate(capacityFor(expectedElements));
+    }
+
+    /**
+     * @return number of elements in the container
+     */
+    int size() {
+        return assigned + (hasZeroKey ? 1 : 0);
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Check whether the key is present
+     *
+     * @param key the key
+     * @return true if the key is present
+     */
+    boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Find the slot of the key
+     *
+     * @param key the key
+     * @return the slot of the key, or a negative number if the key is absent
+     */
+    int indexOf(int key) {
+        if (key == 0) {
+            return hasZeroKey ? mask + 1 : -1;
+        }
+        int slot = hash(key) & mask;
+        int existing;
+        while ((existing = keys[slot]) != 0) {
+            if (existing == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Return the next occupied slot after the given one
+     *
+     * @param slot the previous slot, or -1 to start from the beginning
+     * @return the next occupied slot, or -1 if there is none
+     */
+    int nextSlot(int slot) {
+        for (slot++; slot <= mask; slot++) {
+            if (keys[slot] != 0) {
+                return slot;
+            }
+        }
+        return slot == mask + 1 && hasZeroKey ? slot : -1;
+    }
+
+    /**
+     * @param slot an occupied slot
+     * @return the key in the slot
+     */
+    int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Copy all keys into a new array
+     *
+     * @return array of keys in no particular order
+     */
+    int[] keys() {
+        int[] result = new int[size()];
+        int i = 0;
+        for (int slot = nextSlot(-1); slot >= 0; slot = nextSlot(slot)) {
+            result[i++] = keys[slot];
+        }
+        return result;
+    }
+
+    /**
+     * Copy all keys into a new sorted array
+     *
+     * @return array of keys in ascending order
+     */
+    int[] sortedKeys() {
+        int[] result = keys();
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Find the slot of the key, inserting the key if it is absent. The arrays may grow during the insertion.
+     *
+     * @param key the key
+     * @return the slot of an existing key, or (-slot - 1) if the key has just been inserted
+     */
+    protected int insert(int key) {
+        if (key == 0) {
+            if (hasZeroKey) {
+                return mask + 1;
+            }
+            hasZeroKey = true;
+            return -(mask + 1) - 1;
+        }
+        int slot = hash(key) & mask;
+        int existing;
+        while ((existing = keys[slot]) != 0) {
+            if (existing == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (assigned >= resizeAt) {
+            grow();
+            slot = hash(key) & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        keys[slot] = key;
+        assigned++;
+        return -slot - 1;
+    }
+
+    /**
+     * Allocate the value arrays for the given number of slots (the extra slot of the key 0 included)
+     *
+     * @param arraySize length of the value arrays
+     */
+    protected abstract void allocateValues(int arraySize);
+
+    /**
+     * @return the current value arrays, to be handed back in {@link IntHashContainer#moveValue}
+     */
+    protected abstract Object values();
+
+    /**
+     * Move a value from the old value arrays into the current ones while the container grows
+     *
+     * @param oldValues value arrays returned by {@link IntHashContainer#values()} before growing
+     * @param from      slot in the old arrays
+     * @param to        slot in the current arrays
+     */
+    protected abstract void moveValue(Object oldValues, int from, int to);
+
+    /**
+     * Double the number of slots and re-insert every key
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        Object oldValues = values();
+        int oldMask = mask;
+        allocate((mask + 1) * 2);
+
+        for (int from = 0; from <= oldMask; from++) {
+            int key = oldKeys[from];
+            if (key == 0) {
+                continue;
+            }
+            int to = hash(key) & mask;
+            while (keys[to] != 0) {
+                to = (to + 1) & mask;
+            }
+            keys[to] = key;
+            moveValue(oldValues, from, to);
+        }
+        if (hasZeroKey) {
+            moveValue(oldValues, oldMask + 1, mask + 1);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity + 1];
+        mask = capacity - 1;
+        resizeAt = Math.min(capacity - 1, (int) Math.ceil(capacity * LOAD_FACTOR));
+        allocateValues(capacity + 1);
+    }
+
+    /**
+     * Compute the power-of-two number of slots for the expected number of elements
+     *
+     * @param expectedElements expected number of elements
+     * @return number of slots
+     */
+    private static int capacityFor(int expectedElements) {
+        long required = (long) Math.ceil(Math.max(expectedElements, 0) / LOAD_FACTOR) + 1;
+        int capacity = MIN_CAPACITY;
+        while (capacity < required) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Scramble the bits of the key so that sequential Ids spread over the slots
+     *
+     * @param key the key
+     * @return the mixed hash
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
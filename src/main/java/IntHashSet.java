@@ -0,0 +1,61 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+/**
+ * A set of primitive ints backed by open addressing; see {@link IntHashContainer}.
+ */
+class IntHashSet extends IntHashContainer {
+
+    IntHashSet() {
+        this(0);
+    }
+
+    IntHashSet(int expectedElements) {
+        super(expectedElements);
+    }
+
+    /**
+     * Add the key to the set
+     *
+     * @param key the key
+     * @return true if the key was not present before
+     */
+    boolean add(int key) {
+        return insert(key) < 0;
+    }
+
+    /**
+     * Add every key of the other set to this set
+     *
+     * @param other another set
+     */
+    void addAll(IntHashSet other) {
+        for (int slot = other.nextSlot(-1); slot >= 0; slot = other.nextSlot(slot)) {
+            add(other.keyAt(slot));
+        }
+    }
+
+    boolean contains(int key) {
+        return containsKey(key);
+    }
+
+    @Override
+    protected void allocateValues(int arraySize) {
+    }
+
+    @Override
+    protected Object values() {
+        return null;
+    }
+
+    @Override
+    protected void moveValue(Object oldValues, int from, int to) {
+    }
+}
@@ -0,0 +1,76 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+/**
+ * A mapping between primitive int keys and object values backed by open addressing;
+ * see {@link IntHashContainer}.
+ *
+ * @param <V> type of the values
+ */
+class IntObjectHashMap<V> extends IntHashContainer {
+
+    /**
+     * Values parallel to the keys
+     */
+    private Object[] values;
+
+    IntObjectHashMap() {
+        this(0);
+    }
+
+    IntObjectHashMap(int expectedElements) {
+        super(expectedElements);
+    }
+
+    /**
+     * @param key the key
+     * @return the value of the key, or null if the key is absent
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int slot = indexOf(key);
+        return slot >= 0 ? (V) values[slot] : null;
+    }
+
+    /**
+     * Associate the value to the key
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    void put(int key, V value) {
+        int slot = insert(key);
+        values[slot >= 0 ? slot : -slot - 1] = value;
+    }
+
+    /**
+     * @param slot an occupied slot
+     * @return the value in the slot
+     */
+    @SuppressWarnings("unchecked")
+    V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    @Override
+    protected void allocateValues(int arraySize) {
+        values = new Object[arraySize];
+    }
+
+    @Override
+    protected Object values() {
+        return values;
+    }
+
+    @Override
+    protected void moveValue(Object oldValues, int from, int to) {
+        values[to] = ((Object[]) oldValues)[from];
+    }
+}
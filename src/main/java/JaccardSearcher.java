@@ -9,16 +9,36 @@ The group consists of
  */
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This class facilitates an algorithm to retrieve documents based on its Jaccard Coefficient.
+ * The top k is searched by a {@link JaccardTopKEngine}, which skips the documents that cannot make it.
+ * <p>
+ * In the approximate mode, the top k is searched among the documents found by a {@link MinHashIndex} instead,
+ * which may miss some of the exact top k but only looks at a few candidates.
  */
 public class JaccardSearcher extends Searcher {
 
     /**
-     * An instance of indexer which contains all indexed docs and terms.
+     * The ranking model, bound to the index
      */
-    private VectorSpaceModelIndexer indexer;
+    private final JaccardSimilarity similarity;
+
+    /**
+     * The top-k engine over the index which contains all indexed docs and terms, or null in the approximate mode
+     */
+    private final JaccardTopKEngine topKEngine;
+
+    /**
+     * The MinHash index of the approximate mode, or null for exact search
+     */
+    private final MinHashIndex minHashIndex;
+
+    /**
+     * Whether the approximate mode ranks its candidates by their exact Jaccard Coefficient
+     */
+    private final boolean verifyCandidates;
 
     /**
      * Main constructor for the Searcher
@@ -29,9 +49,60 @@ public class JaccardSearcher extends Searcher {
         super(docFilename);
         // TODO: YOUR CODE HERE
 
-        // Instantiate the indexer
-        // VSM MyCoolSearcher.Indexer is being used because we don't want to create static nested Builder class for the MyCoolSearcher.Indexer class
-        indexer = new VectorSpaceModelIndexer.Builder(documents, stopWords).build();
+        // Instantiate the index and the query engine over it
+        CorpusIndex corpusIndex = new CorpusIndex.Builder(documents)
+                .setForkJoinPool(ForkJoinPool.commonPool())
+                .build();
+        similarity = new JaccardSimilarity(corpusIndex);
+        topKEngine = new JaccardTopKEngine(new QueryEngine(corpusIndex), similarity);
+        minHashIndex = null;
+        verifyCandidates = false;
+    }
+
+    /**
+     * Constructor for the approximate mode backed by a {@link MinHashIndex}
+     *
+     * @param docFilename      the name of a file that contains documents in it
+     * @param signatureLength  number of MinHash rows of every document
+     * @param bands            number of bands the rows are cut into; it must divide the signature length
+     * @param verifyCandidates whether the candidates are ranked by their exact Jaccard Coefficient
+     *                         instead of the estimated one
+     */
+    public JaccardSearcher(String docFilename, int signatureLength, int bands, boolean verifyCandidates) {
+        this(new CorpusIndex.Builder(parseDocumentFromFile(docFilename))
+                .setForkJoinPool(ForkJoinPool.commonPool())
+                .build(), signatureLength, bands, verifyCandidates);
+    }
+
+    /**
+     * Constructor that builds on a shared index instead of indexing the documents again
+     *
+     * @param corpusIndex the index of the corpus, built from documents or loaded from an {@link IndexFile}
+     */
+    JaccardSearcher(CorpusIndex corpusIndex) {
+        super(corpusIndex.getDocuments());
+        this.similarity = new JaccardSimilarity(corpusIndex);
+        this.topKEngine = new JaccardTopKEngine(new QueryEngine(corpusIndex), similarity);
+        this.minHashIndex = null;
+        this.verifyCandidates = false;
+    }
+
+    /**
+     * Constructor for the approximate mode on a shared index
+     *
+     * @param corpusIndex      the index of the corpus, built from documents or loaded from an {@link IndexFile}
+     * @param signatureLength  number of MinHash rows of every document
+     * @param bands            number of bands the rows are cut into; it must divide the signature length
+     * @param verifyCandidates whether the candidates are ranked by their exact Jaccard Coefficient
+     *                         instead of the estimated one
+     */
+    JaccardSearcher(CorpusIndex corpusIndex, int signatureLength, int bands, boolean verifyCandidates) {
+        super(corpusIndex.getDocuments());
+        QueryEngine queryEngine = new QueryEngine(corpusIndex);
+        this.similarity = new JaccardSimilarity(corpusIndex);
+        this.topKEngine = null;
+        this.minHashIndex = new MinHashIndex(queryEngine, similarity, signatureLength, bands);
+        this.verifyCandidates = verifyCandidates;
     }
 
     /**
@@ -44,82 +115,19 @@ public class JaccardSearcher extends Searcher {
     @Override
     public List<SearchResult> search(String queryString, int k) {
         // TODO: YOUR CODE HERE
-
-        // Tokenize the query and put it into a Set
-        HashSet<String> tokenSet = new HashSet<>(Searcher.tokenize(queryString));
-
-        /*
-         * Section 1: FETCHING termId, termFreq and relevant docId from the Query
-         */
-
-        // Init a set to store Relevant Document Id
-        HashSet<Integer> relevantDocIdSet = new HashSet<>();
-        for (String token : tokenSet) {         // Iterates thru all query tokens
-            int termId;
-            try {
-                termId = indexer.getTermDict().get(token);
-            } catch (NullPointerException e) {      // In case current token is not in the termDict
-                continue;                           // Skip this one
-            }
-            // Get the Posting associate to the termId
-            HashSet<Integer> posting = indexer.getPostingLists().get(termId);
-            relevantDocIdSet.addAll(posting);   // Add them all to the Relevant Document Id set
+        if (minHashIndex != null) {
+            return minHashIndex.search(queryString, k, verifyCandidates);
         }
-
-        /*
-         * Section 2: Calculate Jaccard Coefficient between the Query and all POTENTIAL DOCUMENTS
-         */
-
-        // ArrayList for the Final Result
-        ArrayList<SearchResult> searchResults = new ArrayList<>();
-        for (Document doc : documents) {        // Iterates thru all documents
-            if (!relevantDocIdSet.contains(doc.getId())) {                  // If the document is relevant
-                searchResults.add(new SearchResult(doc, 0));          // Add the document as a SearchResult with zero score
-            } else {
-                HashSet<String> termIdSet = new HashSet<>(doc.getTokens()); // Get the token set from the document
-
-                // Calculate Jaccard Coefficient of the document
-                double jaccardScore = JaccardMathHelper.calculateJaccardSimilarity(tokenSet, termIdSet);
-
-                // Add the SearchResult with the computed Jaccard Score
-                searchResults.add(new SearchResult(doc, jaccardScore));
-            }
-        }
-
-        return TFIDFSearcher.finalizeSearchResult(searchResults, k);
+        return topKEngine.search(queryString, k);
     }
 
-}
-
-/**
- * This class contains helper methods that facilitates Jaccard Coefficient
- */
-class JaccardMathHelper {
-
     /**
-     * Calculate the Jaccard Similarity Score for two given termId Sets
-     *
-     * @param queryTermIdSet    set for termId of the query
-     * @param documentTermIdSet set for termId of the document
-     * @return Jaccard Score
+     * Search for a batch of queries in parallel; the top-k engine and the MinHash index read arrays of their own
+     * rather than the encoded posting lists, so there are no postings to share
      */
-    static double calculateJaccardSimilarity(Set<String> queryTermIdSet, Set<String> documentTermIdSet) {
-        if (queryTermIdSet.isEmpty() || documentTermIdSet.isEmpty()) {
-            return 0;
-        }
-
-        // Intersection between QUERY termId set and DOCUMENT termId set
-        Set<String> intersect = new HashSet<>(queryTermIdSet);
-        intersect.retainAll(documentTermIdSet);
-
-        // Union of DOCUMENT termId set and QUERY term Id set
-        Set<String> union = new HashSet<>(documentTermIdSet);
-        union.addAll(queryTermIdSet);
-
-        // System.out.println();
-        // System.out.println("Query:" + queryTermIdSet);
-        // System.out.println("Doc:" + documentTermIdSet);
-        // System.out.println("Intersect: " + intersect.size() + "\tUnion: " + union.size());
-        return (double) intersect.size() / (double) union.size();
+    @Override
+    public List<List<SearchResult>> searchBatch(List<String> queries, int k) {
+        return QueryEngine.parallelMap(ForkJoinPool.commonPool(), queries.size(), i -> search(queries.get(i), k));
     }
+
 }
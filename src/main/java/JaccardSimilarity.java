@@ -0,0 +1,78 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.Arrays;
+
+/**
+ * Jaccard Coefficient as a {@link Similarity}: |intersection(Q, D)| / |union(Q, D)| over the distinct terms of the query and the document.
+ * Every query term in the document adds one to the intersection, and the union is |Q| + |D| - |intersection(Q, D)|,
+ * where |Q| also counts the query tokens that are not in the dictionary and |D| is stored in the {@link CorpusIndex}.
+ * <p>
+ * A JaccardSimilarity bound to an index hands out unit posting weights for it, so that the {@link QueryEngine}
+ * counts the intersections term at a time.
+ */
+class JaccardSimilarity implements Similarity {
+
+    /**
+     * The index the posting weights are handed out for, or null if there is none
+     */
+    private final CorpusIndex boundIndex;
+
+    /**
+     * Weight 1 for every posting of the longest posting list of {@link JaccardSimilarity#boundIndex}, which has no
+     * more postings than the index has documents
+     */
+    private final double[] unitWeights;
+
+    JaccardSimilarity() {
+        this.boundIndex = null;
+        this.unitWeights = null;
+    }
+
+    /**
+     * @param corpusIndex the index this similarity will mostly search
+     */
+    JaccardSimilarity(CorpusIndex corpusIndex) {
+        // Not the largest document frequency, which would take a pass over the whole vocabulary for every view of a
+        // segment
+        this.boundIndex = corpusIndex;
+        this.unitWeights = new double[corpusIndex.getDocuments().size()];
+        Arrays.fill(unitWeights, 1);
+    }
+
+    @Override
+    public double queryTermWeight(CorpusIndex corpusIndex, int termId, int queryTermFreq) {
+        return 1;
+    }
+
+    @Override
+    public double termWeight(CorpusIndex corpusIndex, int termId, int termFreq, int docId) {
+        return 1;
+    }
+
+    @Override
+    public double normalize(CorpusIndex corpusIndex, int docId, double score, QueryEngine.Query query) {
+        // Number of distinct terms in the document
+        int documentTermCount = corpusIndex.getDocumentTermCounts().get(docId);
+
+        // Intersection and union sizes are whole numbers, so the division is the same as on the sets themselves
+        return score / (query.getDistinctTokenCount() + documentTermCount - score);
+    }
+
+    @Override
+    public double[] postingWeights(CorpusIndex corpusIndex, int termId) {
+        return corpusIndex == boundIndex ? unitWeights : null;
+    }
+
+    @Override
+    public double getFillScore() {
+        return 0;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exact top-k Jaccard search that only scores the documents which may still make the top k.
+ * <p>
+ * A document with |D| distinct terms that contains c of the m query terms in the dictionary scores
+ * c / (|Q| + |D| - c), which grows with c. So a document scores at most min(m, |D|) / (|Q| + |D| - min(m, |D|)),
+ * which falls as |D| grows past m (length filtering), and it needs at least as many query terms as it takes to
+ * reach the top k threshold; such a document must appear in one of the posting lists of the rarest query terms,
+ * all but that many minus one (prefix filtering).
+ * <p>
+ * The posting lists are kept bucketed by the number of distinct terms of their documents, and the buckets are
+ * scored term at a time from the shortest documents up: in every bucket only the prefix lists bring in candidates,
+ * and the rest only count for them. Once the bound of a bucket past m terms falls below the threshold, no longer
+ * document can make it, so the search stops. The ranking is the same as the exhaustive one of the
+ * {@link QueryEngine}, ties on the threshold included.
+ * <p>
+ * The bucketed posting lists depend on nothing but the postings, so they are kept with the index, see
+ * {@link CorpusIndex#getSegmentData}, and every engine over the index or a view of it shares them.
+ */
+class JaccardTopKEngine {
+
+    private final QueryEngine queryEngine;
+
+    private final JaccardSimilarity similarity;
+
+    /**
+     * The bucketed posting lists of the index, or null if the document Ids cannot index the accumulator or the
+     * index is off the heap
+     */
+    private final BucketedPostings bucketedPostings;
+
+    /**
+     * @param queryEngine the query engine over the index being searched, which parses the queries
+     * @param similarity  the Jaccard similarity for the index
+     */
+    JaccardTopKEngine(QueryEngine queryEngine, JaccardSimilarity similarity) {
+        this.queryEngine = queryEngine;
+        this.similarity = similarity;
+
+        CorpusIndex corpusIndex = queryEngine.getCorpusIndex();
+        // The arrays would take as much heap as the postings, which an index off the heap is meant to spare
+        if (!corpusIndex.hasDenseDocIds() || corpusIndex.isOffHeap()) {
+            bucketedPostings = null;
+            return;
+        }
+        bucketedPostings = corpusIndex.getSegmentData(BucketedPostings.class, BucketedPostings::new);
+    }
+
+    /**
+     * Search the index by given query string with top k items.
+     *
+     * @param queryString keyword to be searched
+     * @param k           number of top ranking results to be returned
+     * @return k top most relevant results
+     */
+    List<SearchResult> search(String queryString, int k) {
+        if (bucketedPostings == null) {
+            return queryEngine.search(queryString, k, similarity);
+        }
+        CorpusIndex corpusIndex = queryEngine.getCorpusIndex();
+        QueryEngine.Query query = queryEngine.parse(queryString, similarity);
+        int queryTokenCount = query.getDistinctTokenCount();
+        int[][] postingDocIds = bucketedPostings.postingDocIds;
+        int[][] postingDocTermCounts = bucketedPostings.postingDocTermCounts;
+
+        // Query terms from the rarest to the most common one, by their termIds in the bucketed posting lists
+        int[] termIds = query.getTermFreq().keys();
+        for (int i = 0; i < termIds.length; i++) {
+            termIds[i] = corpusIndex.getSegmentTermId(termIds[i]);
+        }
+        for (int i = 1; i < termIds.length; i++) {
+            for (int j = i; j > 0 && postingDocIds[termIds[j]].length < postingDocIds[termIds[j - 1]].length; j--) {
+                int termId = termIds[j];
+                termIds[j] = termIds[j - 1];
+                termIds[j - 1] = termId;
+            }
+        }
+        final int m = termIds.length;
+
+        // Position of every query term in its posting list
+        int[] positions = new int[m];
+
+        TopKCollector collector = new TopKCollector(k);
+        QueryEngine.Accumulator matches = QueryEngine.accumulator();
+        matches.ensureCapacity(corpusIndex.getMaxDocId() + 1);
+        try {
+            while (k > 0) {
+                // The next bucket holds the shortest documents left
+                int documentTermCount = Integer.MAX_VALUE;
+                for (int c = 0; c < m; c++) {
+                    if (positions[c] < postingDocIds[termIds[c]].length) {
+                        documentTermCount = Math.min(documentTermCount, postingDocTermCounts[termIds[c]][positions[c]]);
+                    }
+                }
+                if (documentTermCount == Integer.MAX_VALUE) {
+                    break;
+                }
+
+                // Length filter: the best a document of the bucket can score; past m terms, every later bucket
+                // can only score less
+                double threshold = collector.getThreshold();
+                int maxMatches = Math.min(m, documentTermCount);
+                if (score(maxMatches, queryTokenCount, documentTermCount) < threshold) {
+                    if (documentTermCount >= m) {
+                        break;
+                    }
+                    for (int c = 0; c < m; c++) {
+                        positions[c] = bucketEnd(termIds[c], positions[c], documentTermCount);
+                    }
+                    continue;
+                }
+
+                // Prefix filter: a document of the bucket needs minMatches query terms to make the top k,
+                // so it appears in one of the first m - minMatches + 1 posting lists
+                int minMatches = 1;
+                while (minMatches < maxMatches && score(minMatches, queryTokenCount, documentTermCount) < threshold) {
+                    minMatches++;
+                }
+                int prefix = m - minMatches + 1;
+
+                for (int c = 0; c < m; c++) {
+                    int[] docIds = postingDocIds[termIds[c]];
+                    int end = bucketEnd(termIds[c], positions[c], documentTermCount);
+                    for (int i = positions[c]; i < end; i++) {
+                        if (c < prefix || matches.isTouched(docIds[i])) {
+                            matches.add(docIds[i], 1);
+                        }
+                    }
+                    positions[c] = end;
+                }
+
+                for (int i = 0; i < matches.size(); i++) {
+                    int docId = matches.docIdAt(i);
+                    collector.collect(docId, similarity.normalize(corpusIndex, docId, matches.get(docId), query));
+                }
+                matches.clear();
+            }
+        } finally {
+            matches.clear();
+        }
+        return collector.finalizeSearchResult(corpusIndex.getDocumentDict(), similarity.getFillScore());
+    }
+
+    /**
+     * @return the position after the bucket of documents with the given number of distinct terms
+     */
+    private int bucketEnd(int termId, int position, int documentTermCount) {
+        int[] documentTermCounts = bucketedPostings.postingDocTermCounts[termId];
+        while (position < documentTermCounts.length && documentTermCounts[position] == documentTermCount) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * @return the Jaccard Coefficient of a document with the given sizes, computed like
+     * {@link JaccardSimilarity#normalize}, so that a bound never falls below the score it bounds
+     */
+    private static double score(int matches, int queryTokenCount, int documentTermCount) {
+        double intersection = matches;
+        return intersection / (queryTokenCount + documentTermCount - intersection);
+    }
+
+    /**
+     * The posting lists of an index with their documents ordered by their number of distinct terms, then by Id
+     */
+    static final class BucketedPostings {
+        private static final int[] EMPTY = new int[0];
+
+        /**
+         * Document Ids of every posting list, indexed by termId; index 0 is empty
+         */
+        private final int[][] postingDocIds;
+
+        /**
+         * Number of distinct terms of the documents in {@link BucketedPostings#postingDocIds}
+         */
+        private final int[][] postingDocTermCounts;
+
+        /**
+         * @param corpusIndex an index on the heap whose document Ids can index the accumulator
+         */
+        BucketedPostings(CorpusIndex corpusIndex) {
+            IntIntHashMap documentTermCounts = corpusIndex.getDocumentTermCounts();
+            postingDocIds = new int[corpusIndex.getTermCount() + 1][];
+            postingDocTermCounts = new int[postingDocIds.length][];
+            postingDocIds[0] = EMPTY;
+            postingDocTermCounts[0] = EMPTY;
+            for (int termId = 1; termId < postingDocIds.length; termId++) {
+                // Sort (termCount, docId) pairs packed in a long; Ids are non-negative
+                long[] postings = new long[corpusIndex.getPostingLists().get(termId).size()];
+                PostingList.Cursor cursor = corpusIndex.openCursor(termId);
+                for (int i = 0; cursor.docId() != PostingList.NO_MORE_DOCS; i++, cursor.nextDoc()) {
+                    postings[i] = (long) documentTermCounts.get(cursor.docId()) << 32 | cursor.docId();
+                }
+                Arrays.sort(postings);
+
+                postingDocIds[termId] = new int[postings.length];
+                postingDocTermCounts[termId] = new int[postings.length];
+                for (int i = 0; i < postings.length; i++) {
+                    postingDocIds[termId][i] = (int) postings[i];
+                    postingDocTermCounts[termId][i] = (int) (postings[i] >>> 32);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A read-only Document that only holds its Id; its raw text is read from where it is stored every time it is asked
+ * for, e.g. an {@link IndexFile} or a {@link DocumentStore}, so the heap holds nothing else per document.
+ * <p>
+ * Tokens are only needed by a few scorers and at index time, so they are computed from the raw text on every call
+ * rather than kept for the lifetime of the index.
+ */
+abstract class LazyDocument extends Document {
+
+    LazyDocument(int docId) {
+        super(docId, null, null);
+    }
+
+    @Override
+    public abstract String getRawText();
+
+    @Override
+    public void setRawText(String rawText) {
+        throw readOnly();
+    }
+
+    @Override
+    public List<String> getTokens() {
+        return Collections.unmodifiableList(Searcher.tokenize(getRawText()));
+    }
+
+    @Override
+    public void setTokens(List<String> tokens) {
+        throw readOnly();
+    }
+
+    @Override
+    public String toString() {
+        String rawText = getRawText();
+        return "[ID:" + getId() + ", " + (rawText.length() > 50 ? rawText.substring(0, 50) + "..." : rawText) + "]";
+    }
+
+    private UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Document " + getId() + " is read-only; its text is stored elsewhere");
+    }
+}
@@ -0,0 +1,289 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * MinHash signatures of the term sets of the documents of a {@link CorpusIndex}, banded into locality-sensitive
+ * hash tables for approximate top-k Jaccard search.
+ * <p>
+ * Every row of a signature is the smallest value of one hash function over the termIds of a set, and two sets agree
+ * on a row with a probability of exactly their Jaccard Coefficient; the fraction of agreeing rows estimates it.
+ * The rows are cut into bands, and a document is a candidate for a query only if all the rows of one of its bands
+ * agree with the query's, which happens with a probability of 1 - (1 - J^rows)^bands. More rows per band make
+ * fewer candidates and faster searches, more bands a higher recall.
+ * <p>
+ * Candidates are ranked by their estimated Jaccard Coefficient, or, if verification is asked for, by their exact one,
+ * which is counted from the posting lists of the query terms. Documents that are not candidates are never seen,
+ * so the top k may miss some of the exact one; {@link SearcherEvaluator#getRecallLoss} measures how many.
+ */
+final class MinHashIndex {
+
+    /**
+     * Seed of the hash functions, fixed so that the same corpus always gets the same signatures
+     */
+    private static final long SEED = 0x5DEECE66DL;
+
+    /**
+     * Number of rows of every signature
+     */
+    private final int signatureLength;
+
+    /**
+     * Number of rows of every band
+     */
+    private final int rowsPerBand;
+
+    /**
+     * Seed of every hash function
+     */
+    private final long[] hashSeeds;
+
+    /**
+     * Signatures of all documents, one after another in the order of {@link CorpusIndex#getDocuments()}
+     */
+    private final int[] signatures;
+
+    /**
+     * Document Ids in the order of {@link CorpusIndex#getDocuments()}
+     */
+    private final int[] docIds;
+
+    /**
+     * Every hash table sorted by (band key, document ordinal) packed in a long, indexed by band;
+     * documents without any term are left out
+     */
+    private final long[][] bandTables;
+
+    private final QueryEngine queryEngine;
+
+    private final JaccardSimilarity similarity;
+
+    /**
+     * Compute the signatures of every document of the index and hash them into the band tables
+     *
+     * @param queryEngine     the query engine over the index being searched, which parses the queries
+     * @param similarity      the Jaccard similarity for the index, which ranks verified candidates
+     * @param signatureLength number of hash functions, i.e. rows of every signature
+     * @param bands           number of bands; it must divide the signature length
+     */
+    MinHashIndex(QueryEngine queryEngine, JaccardSimilarity similarity, int signatureLength, int bands) {
+        if (signatureLength <= 0 || bands <= 0 || signatureLength % bands != 0) {
+            throw new IllegalArgumentException("The " + bands + " bands must evenly divide a signature of "
+                    + signatureLength + " rows");
+        }
+        this.queryEngine = queryEngine;
+        this.similarity = similarity;
+        this.signatureLength = signatureLength;
+        this.rowsPerBand = signatureLength / bands;
+
+        Random random = new Random(SEED);
+        hashSeeds = new long[signatureLength];
+        for (int i = 0; i < signatureLength; i++) {
+            hashSeeds[i] = random.nextLong();
+        }
+
+        CorpusIndex corpusIndex = queryEngine.getCorpusIndex();
+        List<Document> documents = corpusIndex.getDocuments();
+        docIds = new int[documents.size()];
+        IntIntHashMap ordinals = new IntIntHashMap();
+        for (int ordinal = 0; ordinal < docIds.length; ordinal++) {
+            docIds[ordinal] = documents.get(ordinal).getId();
+            ordinals.put(docIds[ordinal], ordinal);
+        }
+
+        // Every term is hashed once, then lowers the rows of the documents in its posting list
+        signatures = new int[docIds.length * signatureLength];
+        Arrays.fill(signatures, Integer.MAX_VALUE);
+        int[] termHashes = new int[signatureLength];
+        for (int termId = 1; termId <= corpusIndex.getTermCount(); termId++) {
+            hashAll(termId, termHashes);
+            PostingList.Cursor cursor = corpusIndex.openCursor(termId);
+            for (; cursor.docId() != PostingList.NO_MORE_DOCS; cursor.nextDoc()) {
+                int offset = ordinals.get(cursor.docId()) * signatureLength;
+                for (int i = 0; i < signatureLength; i++) {
+                    signatures[offset + i] = Math.min(signatures[offset + i], termHashes[i]);
+                }
+            }
+        }
+
+        IntIntHashMap documentTermCounts = corpusIndex.getDocumentTermCounts();
+        bandTables = new long[bands][];
+        for (int band = 0; band < bands; band++) {
+            long[] table = new long[docIds.length];
+            int size = 0;
+            for (int ordinal = 0; ordinal < docIds.length; ordinal++) {
+                if (documentTermCounts.get(docIds[ordinal]) > 0) {
+                    table[size++] = (long) bandKey(signatures, ordinal * signatureLength, band) << 32 | ordinal;
+                }
+            }
+            bandTables[band] = Arrays.copyOf(table, size);
+            Arrays.sort(bandTables[band]);
+        }
+    }
+
+    /**
+     * Search the index by given query string with top k items.
+     *
+     * @param queryString keyword to be searched
+     * @param k           number of top ranking results to be returned
+     * @param verify      whether the candidates are ranked by their exact Jaccard Coefficient instead of the estimate
+     * @return k top most relevant results among the candidates, padded like the exact search
+     */
+    List<SearchResult> search(String queryString, int k, boolean verify) {
+        CorpusIndex corpusIndex = queryEngine.getCorpusIndex();
+        QueryEngine.Query query = queryEngine.parse(queryString, similarity);
+        int[] querySignature = signature(Searcher.tokenize(queryString), corpusIndex);
+
+        TopKCollector collector = new TopKCollector(k);
+        QueryEngine.Accumulator candidates = QueryEngine.accumulator();
+        candidates.ensureCapacity(docIds.length);
+        try {
+            // Only a query with a term in the dictionary can share a band with a document
+            if (k > 0 && !query.getTermFreq().isEmpty()) {
+                for (int band = 0; band < bandTables.length; band++) {
+                    long[] table = bandTables[band];
+                    long key = (long) bandKey(querySignature, 0, band) << 32;
+                    int i = Arrays.binarySearch(table, key);
+                    for (i = i < 0 ? -i - 1 : i; i < table.length && (table[i] & 0xFFFFFFFF00000000L) == key; i++) {
+                        int ordinal = (int) table[i];
+                        if (!candidates.isTouched(ordinal)) {
+                            candidates.add(ordinal, 0);
+                        }
+                    }
+                }
+            }
+
+            if (verify) {
+                collectExactly(candidates, query, collector);
+            } else {
+                for (int c = 0; c < candidates.size(); c++) {
+                    int ordinal = candidates.docIdAt(c);
+                    collector.collect(docIds[ordinal], estimate(querySignature, ordinal));
+                }
+            }
+        } finally {
+            candidates.clear();
+        }
+        return collector.finalizeSearchResult(corpusIndex.getDocumentDict(), similarity.getFillScore());
+    }
+
+    int getSignatureLength() {
+        return signatureLength;
+    }
+
+    int getBandCount() {
+        return bandTables.length;
+    }
+
+    /**
+     * Count the query terms of every candidate with one cursor per query term, then score them like
+     * {@link JaccardSimilarity}
+     */
+    private void collectExactly(QueryEngine.Accumulator candidates, QueryEngine.Query query, TopKCollector collector) {
+        CorpusIndex corpusIndex = queryEngine.getCorpusIndex();
+        int[] candidateDocIds = new int[candidates.size()];
+        for (int c = 0; c < candidateDocIds.length; c++) {
+            candidateDocIds[c] = docIds[candidates.docIdAt(c)];
+        }
+        Arrays.sort(candidateDocIds);
+
+        int[] intersections = new int[candidateDocIds.length];
+        IntIntHashMap queryTermFreq = query.getTermFreq();
+        for (int slot = queryTermFreq.nextSlot(-1); slot >= 0; slot = queryTermFreq.nextSlot(slot)) {
+            PostingList.Cursor cursor = corpusIndex.openCursor(queryTermFreq.keyAt(slot));
+            for (int c = 0; c < candidateDocIds.length && cursor.docId() != PostingList.NO_MORE_DOCS; c++) {
+                if (cursor.docId() < candidateDocIds[c]) {
+                    cursor.skipTo(candidateDocIds[c]);
+                }
+                if (cursor.docId() == candidateDocIds[c]) {
+                    intersections[c]++;
+                }
+            }
+        }
+
+        for (int c = 0; c < candidateDocIds.length; c++) {
+            int docId = candidateDocIds[c];
+            collector.collect(docId, similarity.normalize(corpusIndex, docId, intersections[c], query));
+        }
+    }
+
+    /**
+     * @return the signature of the distinct tokens of a query; the tokens that are not in the dictionary are
+     * hashed too, as they count in the union with every document
+     */
+    private int[] signature(List<String> tokens, CorpusIndex corpusIndex) {
+        int[] signature = new int[signatureLength];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int[] tokenHashes = new int[signatureLength];
+        IntHashSet elements = new IntHashSet();
+        for (String token : tokens) {
+            Integer termId = corpusIndex.getTermDict().get(token);
+            // Unknown tokens get negative elements, which no termId can collide with
+            int element = termId != null ? termId : -1 - (token.hashCode() & Integer.MAX_VALUE);
+            if (!elements.add(element)) {
+                continue;
+            }
+            hashAll(element, tokenHashes);
+            for (int i = 0; i < signatureLength; i++) {
+                signature[i] = Math.min(signature[i], tokenHashes[i]);
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * @return the fraction of the rows of a document's signature that agree with the query signature
+     */
+    private double estimate(int[] querySignature, int ordinal) {
+        int offset = ordinal * signatureLength;
+        int agreements = 0;
+        for (int i = 0; i < signatureLength; i++) {
+            if (signatures[offset + i] == querySignature[i]) {
+                agreements++;
+            }
+        }
+        return (double) agreements / signatureLength;
+    }
+
+    /**
+     * Hash an element with every hash function
+     *
+     * @param element a termId, or a negative element for a token outside the dictionary
+     * @param hashes  receives the non-negative hash values
+     */
+    private void hashAll(int element, int[] hashes) {
+        for (int i = 0; i < signatureLength; i++) {
+            hashes[i] = (int) (mix(hashSeeds[i] + element) >>> 33);
+        }
+    }
+
+    /**
+     * @return the hash of the rows of a band of a signature
+     */
+    private int bandKey(int[] signatures, int offset, int band) {
+        long hash = band;
+        for (int i = band * rowsPerBand; i < (band + 1) * rowsPerBand; i++) {
+            hash = mix(hash ^ signatures[offset + i]);
+        }
+        return (int) hash;
+    }
+
+    /**
+     * The finalizer of SplitMix64, which spreads every bit of the input over the output
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * An optional ingestion stage between {@link Searcher#parseDocumentFromFile(String)} and the index: it clusters
+ * the documents whose token sets have a Jaccard Coefficient of at least a threshold, so that only one canonical
+ * representative of each cluster is indexed.
+ * <p>
+ * The documents are visited by ascending Id, and each one joins the cluster of the first canonical document it is
+ * a near-duplicate of, or starts a cluster of its own; so the canonical document is the one with the smallest Id,
+ * which the ranking would put first anyway, and every duplicate is close to its canonical document rather than
+ * merely chained to it. Candidate canonical documents are found with MinHash signatures banded into
+ * locality-sensitive hash tables, then checked against the threshold exactly. Documents without tokens are
+ * never collapsed.
+ */
+final class NearDuplicates {
+
+    /**
+     * Number of MinHash rows of every signature
+     */
+    static final int SIGNATURE_LENGTH = 128;
+
+    /**
+     * Number of rows of every band; with 16 bands of 8 rows, a pair with a Jaccard Coefficient of 0.8 becomes a
+     * candidate with a probability of 0.95, and one of 0.5 with a probability of 0.06; thresholds well below 0.8
+     * find fewer of their near-duplicates
+     */
+    static final int ROWS_PER_BAND = 8;
+
+    /**
+     * Seed of the hash functions, fixed so that the same corpus is always collapsed the same way
+     */
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+
+    /**
+     * The canonical documents, in the order of the input
+     */
+    private final List<Document> canonicalDocuments;
+
+    /**
+     * Mapping between the (canonicalId: Int) of every cluster with duplicates and its (duplicateIds: int[]),
+     * in ascending order
+     */
+    private final IntObjectHashMap<int[]> duplicateIds;
+
+    /**
+     * Number of documents in the input
+     */
+    private final int documentCount;
+
+    /**
+     * Number of tokens in the input, and in the collapsed duplicates
+     */
+    private final long tokenCount;
+    private final long collapsedTokenCount;
+
+    private NearDuplicates(List<Document> canonicalDocuments, IntObjectHashMap<int[]> duplicateIds,
+                           int documentCount, long tokenCount, long collapsedTokenCount) {
+        this.canonicalDocuments = canonicalDocuments;
+        this.duplicateIds = duplicateIds;
+        this.documentCount = documentCount;
+        this.tokenCount = tokenCount;
+        this.collapsedTokenCount = collapsedTokenCount;
+    }
+
+    /**
+     * Cluster the near-duplicates of the documents
+     *
+     * @param documents the parsed documents; they are not modified
+     * @param threshold the smallest Jaccard Coefficient between the token sets of a duplicate and its canonical
+     *                  document, in (0, 1]
+     * @return the canonical documents and their duplicates
+     */
+    static NearDuplicates collapse(List<Document> documents, double threshold) {
+        if (!(threshold > 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("The threshold must be in (0, 1]: " + threshold);
+        }
+        int bands = SIGNATURE_LENGTH / ROWS_PER_BAND;
+        long[] hashSeeds = new long[SIGNATURE_LENGTH];
+        Random random = new Random(SEED);
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            hashSeeds[i] = random.nextLong();
+        }
+
+        Document[] byId = documents.toArray(new Document[0]);
+        Arrays.sort(byId, Comparator.comparingInt(Document::getId));
+
+        // Token sets of the canonical documents, and the canonical documents of every band key, indexed by band
+        List<Set<String>> canonicalTokenSets = new ArrayList<>();
+        List<Document> canonicals = new ArrayList<>();
+        List<IntObjectHashMap<int[]>> bandTables = new ArrayList<>(bands);
+        for (int band = 0; band < bands; band++) {
+            bandTables.add(new IntObjectHashMap<>());
+        }
+
+        // Duplicates of every canonical document, and the Ids of the collapsed documents
+        IntObjectHashMap<int[]> duplicateIds = new IntObjectHashMap<>();
+        IntHashSet collapsedIds = new IntHashSet();
+        long tokenCount = 0;
+        long collapsedTokenCount = 0;
+        int[] signature = new int[SIGNATURE_LENGTH];
+        int[] bandKeys = new int[bands];
+        for (Document document : byId) {
+            tokenCount += document.getTokens().size();
+            Set<String> tokenSet = new HashSet<>(document.getTokens());
+            if (tokenSet.isEmpty()) {
+                continue;
+            }
+
+            Arrays.fill(signature, Integer.MAX_VALUE);
+            for (String token : tokenSet) {
+                int element = token.hashCode();
+                for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                    signature[i] = Math.min(signature[i], (int) (MinHashIndex.mix(hashSeeds[i] + element) >>> 33));
+                }
+            }
+            for (int band = 0; band < bands; band++) {
+                long hash = band;
+                for (int i = band * ROWS_PER_BAND; i < (band + 1) * ROWS_PER_BAND; i++) {
+                    hash = MinHashIndex.mix(hash ^ signature[i]);
+                }
+                bandKeys[band] = (int) hash;
+            }
+
+            // The first canonical document that shares a band and passes the exact check
+            int canonical = -1;
+            for (int band = 0; band < bands; band++) {
+                int[] bucket = bandTables.get(band).get(bandKeys[band]);
+                if (bucket == null) {
+                    continue;
+                }
+                for (int c : bucket) {
+                    if ((canonical < 0 || c < canonical) && jaccard(tokenSet, canonicalTokenSets.get(c)) >= threshold) {
+                        canonical = c;
+                    }
+                }
+            }
+
+            if (canonical >= 0) {
+                int canonicalId = canonicals.get(canonical).getId();
+                int[] duplicates = duplicateIds.get(canonicalId);
+                duplicates = duplicates == null ? new int[1] : Arrays.copyOf(duplicates, duplicates.length + 1);
+                duplicates[duplicates.length - 1] = document.getId();
+                duplicateIds.put(canonicalId, duplicates);
+                collapsedIds.add(document.getId());
+                collapsedTokenCount += document.getTokens().size();
+                continue;
+            }
+
+            int c = canonicals.size();
+            canonicals.add(document);
+            canonicalTokenSets.add(tokenSet);
+            for (int band = 0; band < bands; band++) {
+                int[] bucket = bandTables.get(band).get(bandKeys[band]);
+                bucket = bucket == null ? new int[1] : Arrays.copyOf(bucket, bucket.length + 1);
+                bucket[bucket.length - 1] = c;
+                bandTables.get(band).put(bandKeys[band], bucket);
+            }
+        }
+
+        List<Document> canonicalDocuments = new ArrayList<>(documents.size() - collapsedIds.size());
+        for (Document document : documents) {
+            if (!collapsedIds.contains(document.getId())) {
+                canonicalDocuments.add(document);
+            }
+        }
+        return new NearDuplicates(canonicalDocuments, duplicateIds, documents.size(), tokenCount, collapsedTokenCount);
+    }
+
+    /**
+     * @return the documents to be indexed: every document that is not a duplicate, in the order of the input
+     */
+    List<Document> getCanonicalDocuments() {
+        return canonicalDocuments;
+    }
+
+    /**
+     * @param canonicalId the Id of a canonical document
+     * @return the Ids of its duplicates in ascending order, empty if it has none
+     */
+    int[] getDuplicateIds(int canonicalId) {
+        int[] duplicates = duplicateIds.get(canonicalId);
+        return duplicates == null ? new int[0] : duplicates.clone();
+    }
+
+    /**
+     * @return number of documents that were collapsed into a canonical document
+     */
+    int getCollapsedCount() {
+        return documentCount - canonicalDocuments.size();
+    }
+
+    /**
+     * @return number of tokens of the collapsed documents, which the index does not hold
+     */
+    long getCollapsedTokenCount() {
+        return collapsedTokenCount;
+    }
+
+    @Override
+    public String toString() {
+        return "[documents=" + documentCount + ", canonical=" + canonicalDocuments.size()
+                + ", clusters=" + duplicateIds.size() + ", collapsed=" + getCollapsedCount()
+                + ", collapsedTokens=" + collapsedTokenCount + "/" + tokenCount + "]";
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        Set<String> smaller = a.size() <= b.size() ? a : b;
+        Set<String> larger = smaller == a ? b : a;
+        int intersection = 0;
+        for (String token : smaller) {
+            if (larger.contains(token)) {
+                intersection++;
+            }
+        }
+        return (double) intersection / (a.size() + b.size() - intersection);
+    }
+}
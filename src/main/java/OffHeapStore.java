@@ -0,0 +1,184 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The document table and the posting lists of a {@link CorpusIndex}, kept outside the Java heap.
+ * <p>
+ * Everything lives in one buffer, either a direct {@link ByteBuffer} or a read-only mapping of a scratch file.
+ * All numbers are big-endian; the layout is
+ * <pre>
+ * documents  [docId, length, norm, termCount] * documentCount, fixed size, ordered by docId
+ * terms      [postingOffset, postingLength] * termCount, by termId from 1
+ * postings   the posting lists exactly as {@link PostingList#writeTo(ByteBuffer)} writes them
+ * </pre>
+ * The store hands out the very accessors a CorpusIndex on the heap has, as read-only {@link BufferTable} views whose
+ * slots are the positions of the documents in the table and the termIds. A document is looked up by binary search
+ * over the docId column, and a posting list is wrapped around its bytes every time it is asked for, so the heap holds
+ * nothing per document or per posting and the garbage collector never scans any of it.
+ * <p>
+ * The scratch file is not a persistent index; an {@link IndexFile} is. It belongs to the caller, who deletes it once
+ * the store is no longer used. An OffHeapStore is immutable and can be shared by any number of searchers and threads.
+ */
+final class OffHeapStore {
+
+    private static final int DOCUMENT_ENTRY_SIZE = 20;
+    private static final int TERM_ENTRY_SIZE = 8;
+
+    /**
+     * The whole store
+     */
+    private final ByteBuffer buffer;
+
+    // The read-only views of the store
+    private final IntIntHashMap documentLengths;
+    private final IntDoubleHashMap documentNorms;
+    private final IntIntHashMap documentTermCounts;
+    private final IntObjectHashMap<PostingList> postingLists;
+
+    private OffHeapStore(ByteBuffer buffer, int documentCount, int termCount) {
+        this.buffer = buffer;
+        int termsStart = DOCUMENT_ENTRY_SIZE * documentCount;
+        int postingsStart = termsStart + TERM_ENTRY_SIZE * termCount;
+
+        BufferTable documentTable = BufferTable.keyedByFirstColumn(buffer, 0, DOCUMENT_ENTRY_SIZE, documentCount);
+        this.documentLengths = documentTable.intColumn(4);
+        this.documentNorms = documentTable.doubleColumn(8);
+        this.documentTermCounts = documentTable.intColumn(16);
+
+        // A posting list is wrapped around its bytes every time it is asked for
+        BufferTable termTable = BufferTable.keyedByPosition(buffer, termsStart, TERM_ENTRY_SIZE, termCount);
+        this.postingLists = termTable.objectColumn(termId -> {
+            int entry = termTable.entry(termId);
+            int position = postingsStart + buffer.getInt(entry);
+            ByteBuffer view = buffer.duplicate();
+            view.position(position);
+            view.limit(position + buffer.getInt(entry + 4));
+            return PostingList.wrap(view.slice());
+        });
+    }
+
+    /**
+     * Copy the document table and the posting lists of an index into a direct buffer. The direct memory of the JVM is
+     * limited by -XX:MaxDirectMemorySize, which is the maximum heap size unless it is set.
+     *
+     * @param corpusIndex the index; termIds are 1..termCount
+     * @return the store
+     * @throws IllegalArgumentException if the store would not fit in one buffer
+     */
+    static OffHeapStore allocate(CorpusIndex corpusIndex) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(sizeOf(corpusIndex));
+        fill(buffer, corpusIndex);
+        return new OffHeapStore(buffer, corpusIndex.getDocuments().size(), corpusIndex.getTermCount());
+    }
+
+    /**
+     * Copy the document table and the posting lists of an index into a file and map it read-only; the pages are left
+     * to the operating system, which reads them back on demand. The mapping stays valid until the store is garbage
+     * collected, so the file must not be truncated meanwhile.
+     * <p>
+     * The caller owns the file: the store never deletes it, so the caller does once the store is no longer used.
+     *
+     * @param corpusIndex the index; termIds are 1..termCount
+     * @param path        the scratch file; it is replaced if it exists
+     * @return the store
+     * @throws IOException              if the file cannot be written or mapped
+     * @throws IllegalArgumentException if the store would not fit in one mapping
+     */
+    static OffHeapStore map(CorpusIndex corpusIndex, Path path) throws IOException {
+        int size = sizeOf(corpusIndex);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            fill(buffer, corpusIndex);
+            buffer.force();
+            // Searches only read the store, so they get a mapping they cannot write to; it stays valid after the
+            // channel is closed
+            return new OffHeapStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, size),
+                    corpusIndex.getDocuments().size(), corpusIndex.getTermCount());
+        }
+    }
+
+    /**
+     * @return number of bytes of the store of an index
+     */
+    private static int sizeOf(CorpusIndex corpusIndex) {
+        long size = (long) DOCUMENT_ENTRY_SIZE * corpusIndex.getDocuments().size()
+                + (long) TERM_ENTRY_SIZE * corpusIndex.getTermCount();
+        for (int termId = 1; termId <= corpusIndex.getTermCount(); termId++) {
+            size += corpusIndex.getPostingLists().get(termId).sizeInBytes();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The index is too large for a single buffer: " + size + " bytes");
+        }
+        return (int) size;
+    }
+
+    private static void fill(ByteBuffer buffer, CorpusIndex corpusIndex) {
+        for (Document document : corpusIndex.getDocuments()) {
+            int docId = document.getId();
+            buffer.putInt(docId)
+                    .putInt(corpusIndex.getDocumentLengthMap().get(docId))
+                    .putDouble(corpusIndex.getDocumentNorms().get(docId))
+                    .putInt(corpusIndex.getDocumentTermCounts().get(docId));
+        }
+        int postingOffset = 0;
+        for (int termId = 1; termId <= corpusIndex.getTermCount(); termId++) {
+            int postingLength = (int) corpusIndex.getPostingLists().get(termId).sizeInBytes();
+            buffer.putInt(postingOffset).putInt(postingLength);
+            postingOffset += postingLength;
+        }
+        for (int termId = 1; termId <= corpusIndex.getTermCount(); termId++) {
+            corpusIndex.getPostingLists().get(termId).writeTo(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @return mapping between (docId: Int) and (length of the raw text: Int); read-only
+     */
+    IntIntHashMap getDocumentLengthMap() {
+        return documentLengths;
+    }
+
+    /**
+     * @return mapping between (docId: Int) and (norm of its TF-IDF Document Vector: Double); read-only
+     */
+    IntDoubleHashMap getDocumentNorms() {
+        return documentNorms;
+    }
+
+    /**
+     * @return mapping between (docId: Int) and (number of distinct terms: Int); read-only
+     */
+    IntIntHashMap getDocumentTermCounts() {
+        return documentTermCounts;
+    }
+
+    /**
+     * @return mapping between (termId: Int) and (postingList: PostingList) backed by the store; read-only
+     */
+    IntObjectHashMap<PostingList> getPostingLists() {
+        return postingLists;
+    }
+
+    /**
+     * @return number of bytes outside the heap
+     */
+    long sizeInBytes() {
+        return buffer.capacity();
+    }
+}
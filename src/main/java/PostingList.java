@@ -0,0 +1,607 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An immutable, compressed posting list of a term.
+ * <p>
+ * Document Ids are sorted and stored as gaps from the previous Id, each gap encoded as a variable-byte integer
+ * (7 bits per byte, the high bit marks that more bytes follow). Term frequencies, if stored, are kept as
+ * variable-byte integers in a parallel stream. Every {@link PostingList#BLOCK_SIZE} postings a skip entry records
+ * the last document Id of the block and where the block starts in both streams, so that {@link Cursor#skipTo(int)}
+ * can jump over whole blocks without decoding them.
+ * <p>
+ * The whole list lives in one {@link ByteBuffer} laid out as
+ * <pre>
+ * [size][blockCount][docIdStreamLength][termFrequencyStreamLength or -1]
+ * [lastDocId, docIdOffset, termFrequencyOffset] * blockCount
+ * [docIdStream][termFrequencyStream]
+ * </pre>
+ * so the very same bytes are used on the heap and when the list is mapped from an {@link IndexFile}.
+ * <p>
+ * Postings are read thru a {@link Cursor}, which is obtained by {@link PostingList#cursor()}.
+ */
+class PostingList {
+
+    /**
+     * The document Id returned by a cursor once it is exhausted
+     */
+    static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    /**
+     * Number of postings per skip entry
+     */
+    static final int BLOCK_SIZE = 64;
+
+    /**
+     * Number of bytes before the skip entries
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * Number of bytes per skip entry
+     */
+    private static final int SKIP_ENTRY_SIZE = 12;
+
+    /**
+     * The encoded list, from position 0 to its limit
+     */
+    private final ByteBuffer data;
+
+    /**
+     * Number of postings (the document frequency of the term)
+     */
+    private final int size;
+
+    /**
+     * Number of skip entries
+     */
+    private final int blockCount;
+
+    /**
+     * Position of the variable-byte encoded gaps between document Ids in {@link PostingList#data}
+     */
+    private final int docIdStreamStart;
+
+    /**
+     * Position of the variable-byte encoded term frequencies in {@link PostingList#data}, or -1 if they are not stored
+     */
+    private final int termFrequencyStreamStart;
+
+    private PostingList(ByteBuffer data) {
+        this.data = data;
+        this.size = data.getInt(0);
+        this.blockCount = data.getInt(4);
+        int docIdStreamLength = data.getInt(8);
+        int termFrequencyStreamLength = data.getInt(12);
+        this.docIdStreamStart = HEADER_SIZE + SKIP_ENTRY_SIZE * blockCount;
+        this.termFrequencyStreamStart = termFrequencyStreamLength < 0 ? -1 : docIdStreamStart + docIdStreamLength;
+
+        long end = (long) docIdStreamStart + docIdStreamLength + Math.max(termFrequencyStreamLength, 0);
+        if (size < 0 || blockCount != (size + BLOCK_SIZE - 1) / BLOCK_SIZE || docIdStreamLength < size
+                || end != data.limit()) {
+            throw new IllegalArgumentException("Corrupted posting list");
+        }
+    }
+
+    /**
+     * Read a posting list from the bytes written by {@link PostingList#writeTo(DataOutput)}, without copying them
+     *
+     * @param buffer buffer whose content, from position 0 to its limit, is exactly one encoded posting list
+     * @return the posting list backed by the buffer
+     * @throws IllegalArgumentException if the bytes are not a consistent posting list
+     */
+    static PostingList wrap(ByteBuffer buffer) {
+        return new PostingList(buffer);
+    }
+
+    /**
+     * @return number of postings, which is the document frequency of the term
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return number of blocks of {@link PostingList#BLOCK_SIZE} postings; the last one may be shorter
+     */
+    int blockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @param block block index from 0 to {@link PostingList#blockCount()} - 1
+     * @return the last (largest) document Id of the block
+     */
+    int blockLastDocId(int block) {
+        return data.getInt(HEADER_SIZE + SKIP_ENTRY_SIZE * block);
+    }
+
+    /**
+     * @return true if the term frequencies are stored along with the document Ids
+     */
+    boolean hasTermFrequencies() {
+        return termFrequencyStreamStart >= 0;
+    }
+
+    /**
+     * @return a new cursor positioned before the first posting
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * @return number of bytes used by the encoded postings and skip entries
+     */
+    long sizeInBytes() {
+        return data.limit();
+    }
+
+    /**
+     * Write the encoded list as it is; {@link PostingList#wrap(ByteBuffer)} reads it back
+     *
+     * @param out the destination
+     * @throws IOException if the destination cannot be written
+     */
+    void writeTo(DataOutput out) throws IOException {
+        if (data.hasArray()) {
+            out.write(data.array(), data.arrayOffset(), data.limit());
+            return;
+        }
+        for (int i = 0; i < data.limit(); i++) {
+            out.write(data.get(i));
+        }
+    }
+
+    /**
+     * Copy the encoded list as it is into a buffer, from its position on; {@link PostingList#wrap(ByteBuffer)}
+     * reads it back
+     *
+     * @param out the destination, e.g. a direct or mapped buffer; its position is advanced past the list
+     */
+    void writeTo(ByteBuffer out) {
+        ByteBuffer source = data.duplicate();
+        source.position(0);
+        out.put(source);
+    }
+
+    /**
+     * Decode every document Id into a new array
+     *
+     * @return sorted document Ids
+     */
+    int[] toDocIdArray() {
+        int[] docIds = new int[size];
+        Cursor cursor = cursor();
+        for (int i = 0; i < size; i++) {
+            docIds[i] = cursor.nextDoc();
+        }
+        return docIds;
+    }
+
+    /**
+     * Decode every posting at once, for a list that many cursors will read
+     *
+     * @return the decoded postings
+     */
+    Decoded decode() {
+        int[] docIds = new int[size];
+        int[] termFrequencies = hasTermFrequencies() ? new int[size] : null;
+        Cursor cursor = cursor();
+        for (int i = 0; i < size; i++) {
+            docIds[i] = cursor.nextDoc();
+            if (termFrequencies != null) {
+                termFrequencies[i] = cursor.termFrequency();
+            }
+        }
+        return new Decoded(docIds, termFrequencies);
+    }
+
+    /**
+     * Return the smallest current document Id among the cursors; handy for merging several posting lists.
+     *
+     * @param cursors cursors that have been positioned already
+     * @return the smallest document Id, or {@link PostingList#NO_MORE_DOCS} if all of them are exhausted
+     */
+    static int minDocId(Cursor[] cursors) {
+        int min = NO_MORE_DOCS;
+        for (Cursor cursor : cursors) {
+            min = Math.min(min, cursor.docId());
+        }
+        return min;
+    }
+
+    /**
+     * A forward-only iterator over the postings.
+     * A new cursor is positioned before the first posting; {@link Cursor#docId()} returns -1 until it is advanced.
+     */
+    class Cursor {
+        /**
+         * Ordinal of the current posting
+         */
+        private int index = -1;
+
+        /**
+         * Current document Id
+         */
+        private int docId = -1;
+
+        /**
+         * Term frequency of the current posting
+         */
+        private int termFrequency = 0;
+
+        /**
+         * Read position of the document Id stream in {@link PostingList#data}
+         */
+        private int docIdPosition = docIdStreamStart;
+
+        /**
+         * Read position of the term frequency stream in {@link PostingList#data}
+         */
+        private int termFrequencyPosition = termFrequencyStreamStart;
+
+        /**
+         * @return the current document Id, -1 before the first call to nextDoc or skipTo,
+         * or {@link PostingList#NO_MORE_DOCS} once exhausted
+         */
+        int docId() {
+            return docId;
+        }
+
+        /**
+         * @return the term frequency of the current posting, or 0 if term frequencies are not stored
+         */
+        int termFrequency() {
+            return termFrequency;
+        }
+
+        /**
+         * @return the posting list this cursor reads
+         */
+        PostingList postingList() {
+            return PostingList.this;
+        }
+
+        /**
+         * Advance to the next posting
+         *
+         * @return the next document Id, or {@link PostingList#NO_MORE_DOCS} if there is none
+         */
+        int nextDoc() {
+            if (index + 1 >= size) {
+                index = size;
+                return docId = NO_MORE_DOCS;
+            }
+            int base = index < 0 ? 0 : docId;
+            index++;
+
+            // Decode the gap; ints wrap around, so negative Ids are fine as long as the list is sorted
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data.get(docIdPosition++);
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            docId = base + gap;
+
+            if (termFrequencyPosition >= 0) {
+                int value = 0;
+                shift = 0;
+                do {
+                    b = data.get(termFrequencyPosition++);
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                termFrequency = value;
+            }
+            return docId;
+        }
+
+        /**
+         * Advance to the first posting whose document Id is at least the target.
+         * The cursor never moves backward; if it is already at or beyond the target, it stays.
+         *
+         * @param target the document Id to skip to
+         * @return the new current document Id, or {@link PostingList#NO_MORE_DOCS} if there is none
+         */
+        int skipTo(int target) {
+            if (index >= 0 && docId >= target) {
+                return docId;
+            }
+
+            // Jump over the blocks that end before the target
+            int block = Math.max(index, 0) / BLOCK_SIZE;
+            if (block < blockCount && blockLastDocId(block) < target) {
+                int next = block + 1;
+                while (next < blockCount && blockLastDocId(next) < target) {
+                    next++;
+                }
+                if (next >= blockCount) {
+                    index = size;
+                    return docId = NO_MORE_DOCS;
+                }
+                int entry = HEADER_SIZE + SKIP_ENTRY_SIZE * next;
+                index = next * BLOCK_SIZE - 1;
+                docId = blockLastDocId(next - 1);
+                docIdPosition = docIdStreamStart + data.getInt(entry + 4);
+                if (termFrequencyStreamStart >= 0) {
+                    termFrequencyPosition = termFrequencyStreamStart + data.getInt(entry + 8);
+                }
+            }
+
+            // Scan inside the block
+            while (nextDoc() < target) {
+                // Keep decoding
+            }
+            return docId;
+        }
+
+        /**
+         * Find the block that would hold the target from the skip entries alone; the cursor does not move
+         *
+         * @param target a document Id at or after the current one
+         * @return the first block from the current one whose last document Id is at least the target,
+         * or {@link PostingList#blockCount()} if there is none
+         */
+        int blockOf(int target) {
+            int block = Math.max(index, 0) / BLOCK_SIZE;
+            while (block < blockCount && blockLastDocId(block) < target) {
+                block++;
+            }
+            return block;
+        }
+    }
+
+    /**
+     * The postings of this list decoded into arrays; immutable, so any number of threads can read them
+     */
+    final class Decoded {
+        private final int[] docIds;
+
+        /**
+         * Term frequencies parallel to the document Ids, or null if they are not stored
+         */
+        private final int[] termFrequencies;
+
+        private Decoded(int[] docIds, int[] termFrequencies) {
+            this.docIds = docIds;
+            this.termFrequencies = termFrequencies;
+        }
+
+        /**
+         * @return a new cursor over the arrays, positioned before the first posting; it moves exactly like a cursor
+         * over the encoded list
+         */
+        Cursor cursor() {
+            return new DecodedCursor(this);
+        }
+    }
+
+    /**
+     * A cursor that reads the arrays of a {@link Decoded} instead of the encoded streams
+     */
+    private final class DecodedCursor extends Cursor {
+        private final int[] docIds;
+        private final int[] termFrequencies;
+
+        DecodedCursor(Decoded decoded) {
+            this.docIds = decoded.docIds;
+            this.termFrequencies = decoded.termFrequencies;
+        }
+
+        @Override
+        int nextDoc() {
+            int index = super.index + 1;
+            if (index >= size) {
+                super.index = size;
+                return super.docId = NO_MORE_DOCS;
+            }
+            super.index = index;
+            if (termFrequencies != null) {
+                super.termFrequency = termFrequencies[index];
+            }
+            return super.docId = docIds[index];
+        }
+
+        @Override
+        int skipTo(int target) {
+            if (super.index >= 0 && super.docId >= target) {
+                return super.docId;
+            }
+
+            // Jump to the block that holds the target, then scan inside it
+            int block = blockOf(target);
+            if (block >= blockCount) {
+                super.index = size;
+                return super.docId = NO_MORE_DOCS;
+            }
+            super.index = Math.max(super.index, block * BLOCK_SIZE - 1);
+            while (nextDoc() < target) {
+                // Keep reading
+            }
+            return super.docId;
+        }
+    }
+
+    /**
+     * Builder that accumulates (docId, termFrequency) pairs in any order and encodes them on {@link Builder#build()}.
+     */
+    static class Builder {
+        private final boolean withTermFrequencies;
+        private int[] docIds = new int[4];
+        private int[] termFrequencies;
+        private int size = 0;
+        private boolean sorted = true;
+
+        /**
+         * @param withTermFrequencies whether to store the term frequency stream
+         */
+        Builder(boolean withTermFrequencies) {
+            this.withTermFrequencies = withTermFrequencies;
+            this.termFrequencies = withTermFrequencies ? new int[4] : null;
+        }
+
+        /**
+         * Add a posting
+         *
+         * @param docId         document Id
+         * @param termFrequency frequency of the term in the document; ignored if term frequencies are not stored
+         */
+        void add(int docId, int termFrequency) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                if (withTermFrequencies) {
+                    termFrequencies = Arrays.copyOf(termFrequencies, size * 2);
+                }
+            }
+            if (size > 0 && docIds[size - 1] >= docId) {
+                sorted = false;
+            }
+            docIds[size] = docId;
+            if (withTermFrequencies) {
+                termFrequencies[size] = termFrequency;
+            }
+            size++;
+        }
+
+        /**
+         * Append every posting of another builder, in its insertion order
+         *
+         * @param other another builder
+         */
+        void addAll(Builder other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.docIds[i], other.withTermFrequencies ? other.termFrequencies[i] : 0);
+            }
+        }
+
+        /**
+         * @return number of postings added so far
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Sort the postings and encode them. If a document Id was added more than once, the last one is kept.
+         *
+         * @return the immutable posting list
+         */
+        PostingList build() {
+            if (!sorted) {
+                sortAndDeduplicate();
+            }
+
+            int blockCount = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            int[] blockLastDocIds = new int[blockCount];
+            int[] blockDocIdOffsets = new int[blockCount];
+            int[] blockTermFrequencyOffsets = new int[blockCount];
+
+            ByteSink docIdSink = new ByteSink(size + 8);
+            ByteSink termFrequencySink = withTermFrequencies ? new ByteSink(size + 8) : null;
+
+            int previous = 0;
+            for (int i = 0; i < size; i++) {
+                if (i % BLOCK_SIZE == 0) {
+                    blockDocIdOffsets[i / BLOCK_SIZE] = docIdSink.length;
+                    blockTermFrequencyOffsets[i / BLOCK_SIZE] = termFrequencySink == null ? 0 : termFrequencySink.length;
+                }
+                docIdSink.writeVarInt(docIds[i] - previous);
+                previous = docIds[i];
+                if (termFrequencySink != null) {
+                    termFrequencySink.writeVarInt(termFrequencies[i]);
+                }
+                if (i % BLOCK_SIZE == BLOCK_SIZE - 1 || i == size - 1) {
+                    blockLastDocIds[i / BLOCK_SIZE] = docIds[i];
+                }
+            }
+
+            // Lay the header, the skip entries and both streams out in one buffer
+            int termFrequencyStreamLength = termFrequencySink == null ? 0 : termFrequencySink.length;
+            ByteBuffer data = ByteBuffer.allocate(HEADER_SIZE + SKIP_ENTRY_SIZE * blockCount
+                    + docIdSink.length + termFrequencyStreamLength);
+            data.putInt(size).putInt(blockCount).putInt(docIdSink.length)
+                    .putInt(termFrequencySink == null ? -1 : termFrequencyStreamLength);
+            for (int block = 0; block < blockCount; block++) {
+                data.putInt(blockLastDocIds[block]).putInt(blockDocIdOffsets[block]).putInt(blockTermFrequencyOffsets[block]);
+            }
+            data.put(docIdSink.bytes, 0, docIdSink.length);
+            if (termFrequencySink != null) {
+                data.put(termFrequencySink.bytes, 0, termFrequencyStreamLength);
+            }
+            data.clear();
+
+            return new PostingList(data);
+        }
+
+        /**
+         * Sort the postings by document Id, keeping the last added posting of a duplicated document Id
+         */
+        private void sortAndDeduplicate() {
+            // Pack (docId, insertion order) into longs so that one primitive sort orders by docId, then by order
+            long[] packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                packed[i] = ((long) docIds[i] << 32) | i;
+            }
+            Arrays.sort(packed);
+
+            int[] sortedDocIds = new int[size];
+            int[] sortedTermFrequencies = withTermFrequencies ? new int[size] : null;
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int docId = (int) (packed[i] >> 32);
+                int order = (int) packed[i];
+                if (count > 0 && sortedDocIds[count - 1] == docId) {
+                    count--;
+                }
+                sortedDocIds[count] = docId;
+                if (withTermFrequencies) {
+                    sortedTermFrequencies[count] = termFrequencies[order];
+                }
+                count++;
+            }
+            docIds = sortedDocIds;
+            termFrequencies = sortedTermFrequencies;
+            size = count;
+            sorted = true;
+        }
+    }
+
+    /**
+     * A growable byte array for variable-byte encoding
+     */
+    private static class ByteSink {
+        private byte[] bytes;
+        private int length = 0;
+
+        ByteSink(int initialCapacity) {
+            bytes = new byte[initialCapacity];
+        }
+
+        void writeVarInt(int value) {
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A class that responsible for the document indexing using BestMatch25 (BM25), a probability-based similarity matching
+ * The document lengths, the IDFs and the average document length all come from the {@link CorpusIndex}.
+ * Getters are allowed only as we do not allow any reassignments from external classes.
+ */
+class ProbabilisticIndexer extends TFIDFSearcher.Indexer {
+
+    /**
+     * Instantiate the Probabilistic MyCoolSearcher.Indexer; must be instantiate via {@link Builder}
+     */
+    private ProbabilisticIndexer(CorpusIndex corpusIndex) {
+        super(corpusIndex);
+    }
+
+    /**
+     * Builder class for Probabilistic MyCoolSearcher.Indexer
+     */
+    public static class Builder {
+        private final List<Document> documents;
+        private ForkJoinPool forkJoinPool;
+        private final CorpusIndex corpusIndex;
+
+        /**
+         * Builder that indexes the documents into a CorpusIndex of its own
+         *
+         * @param documents List of Document Objects
+         * @param stopWords Set of the Stop word; the tokens of the documents are already free of them
+         */
+        public Builder(List<Document> documents, Set<String> stopWords) {
+            this.documents = documents;
+            this.corpusIndex = null;
+        }
+
+        /**
+         * Builder that builds on a shared CorpusIndex
+         *
+         * @param corpusIndex the index of the corpus
+         */
+        Builder(CorpusIndex corpusIndex) {
+            this.documents = null;
+            this.corpusIndex = corpusIndex;
+        }
+
+        /**
+         * Build the index in parallel on the given pool
+         *
+         * @param forkJoinPool a pool, or null to build on the calling thread (default)
+         * @return this Builder
+         */
+        public Builder setForkJoinPool(ForkJoinPool forkJoinPool) {
+            this.forkJoinPool = forkJoinPool;
+            return this;
+        }
+
+        public ProbabilisticIndexer build() {
+            return new ProbabilisticIndexer(corpusIndex != null ? corpusIndex
+                    : new CorpusIndex.Builder(documents).setForkJoinPool(forkJoinPool).build());
+        }
+    }
+
+    /**
+     * @return mapping between documentId and Raw Document Length
+     */
+    public IntIntHashMap getDocumentLengthMap() {
+        return corpusIndex.getDocumentLengthMap();
+    }
+
+    /**
+     * @return average Document Length in the corpus
+     */
+    public double getAverageDocumentLength() {
+        return corpusIndex.getAverageDocumentLength();
+    }
+
+    /**
+     * @return mapping between termId and IDF score
+     */
+    public IntDoubleHashMap getTermIdfScore() {
+        return corpusIndex.getTermIdfScore();
+    }
+}
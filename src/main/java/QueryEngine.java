@@ -0,0 +1,550 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The query engine shared by every ranking model.
+ * <p>
+ * It tokenizes the query, weights its terms with a {@link Similarity}, and merges the posting lists of the
+ * {@link CorpusIndex} document-at-a-time, so a ranking model is a plugin and never needs an index of its own.
+ * <p>
+ * When the similarity bounds the weight of every query term, the engine skips documents with WAND: with the cursors
+ * sorted by docId, the pivot is the first cursor at which the bounds of the cursors so far could beat the current
+ * top k threshold, and the cursors before it skip straight to the pivot's document. Only documents that reach the
+ * pivot are scored, exactly like the exhaustive evaluation, so the top k is the same. Before that, the block bounds
+ * of the similarity are checked (Block-Max WAND): if the blocks that hold the pivot's document cannot beat the
+ * threshold together, every cursor up to the pivot skips past the first of those blocks to end.
+ * <p>
+ * When the engine cannot skip and the similarity has precomputed the weights of the postings, the scores are
+ * accumulated term at a time into an array indexed by docId instead, which is reused by the searches of a thread.
+ * <p>
+ * A batch of queries decodes the posting lists the queries share only once and scores the queries in parallel.
+ */
+final class QueryEngine {
+
+    /**
+     * Relative slack on the score bounds, which covers rounding when the same weights are summed in another order
+     */
+    private static final double BOUND_SLACK = 1e-9;
+
+    /**
+     * Score accumulator of each thread for the term-at-a-time evaluation
+     */
+    private static final ThreadLocal<Accumulator> accumulator = ThreadLocal.withInitial(Accumulator::new);
+
+    /**
+     * The index being searched
+     */
+    private final CorpusIndex corpusIndex;
+
+    /**
+     * @param corpusIndex the index being searched
+     */
+    QueryEngine(CorpusIndex corpusIndex) {
+        this.corpusIndex = corpusIndex;
+    }
+
+    /**
+     * Search the index by given query string with top k items.
+     *
+     * @param queryString keyword to be searched
+     * @param k           number of top ranking results to be returned
+     * @param similarity  the ranking model
+     * @return k top most relevant results
+     */
+    List<SearchResult> search(String queryString, int k, Similarity similarity) {
+        return search(parse(queryString, similarity), k, similarity, null);
+    }
+
+    /**
+     * Search the index for a batch of queries, sharing the work the queries have in common: the posting list of
+     * every term that appears in more than one query is decoded once, and the cursors of all those queries read
+     * the decoded arrays. The queries are then scored in parallel.
+     *
+     * @param queryStrings keywords to be searched
+     * @param k            number of top ranking results to be returned for each query
+     * @param similarity   the ranking model
+     * @param forkJoinPool the pool to parse, decode and score on, or null to do it all on the calling thread
+     * @return k top most relevant results of each query, in the order of the queries
+     */
+    List<List<SearchResult>> searchBatch(List<String> queryStrings, int k, Similarity similarity, ForkJoinPool forkJoinPool) {
+        List<Query> queries = parallelMap(forkJoinPool, queryStrings.size(), i -> parse(queryStrings.get(i), similarity));
+
+        // Terms shared by queries of the batch
+        IntIntHashMap queryCounts = new IntIntHashMap();
+        for (Query query : queries) {
+            IntIntHashMap queryTermFreq = query.getTermFreq();
+            for (int slot = queryTermFreq.nextSlot(-1); slot >= 0; slot = queryTermFreq.nextSlot(slot)) {
+                queryCounts.addTo(queryTermFreq.keyAt(slot), 1);
+            }
+        }
+        int[] sharedTermIds = new int[queryCounts.size()];
+        int sharedTermCount = 0;
+        for (int slot = queryCounts.nextSlot(-1); slot >= 0; slot = queryCounts.nextSlot(slot)) {
+            if (queryCounts.valueAt(slot) > 1) {
+                sharedTermIds[sharedTermCount++] = queryCounts.keyAt(slot);
+            }
+        }
+
+        // Decode them once; the map is only read once it is filled, so the scoring threads share it
+        int[] termIds = Arrays.copyOf(sharedTermIds, sharedTermCount);
+        List<PostingList.Decoded> decoded = parallelMap(forkJoinPool, termIds.length,
+                i -> corpusIndex.getPostingLists().get(termIds[i]).decode());
+        IntObjectHashMap<PostingList.Decoded> decodedPostings = new IntObjectHashMap<>(termIds.length);
+        for (int i = 0; i < termIds.length; i++) {
+            decodedPostings.put(termIds[i], decoded.get(i));
+        }
+
+        return parallelMap(forkJoinPool, queries.size(), i -> search(queries.get(i), k, similarity, decodedPostings));
+    }
+
+    /**
+     * Search the index for a parsed query
+     *
+     * @param query            the query, parsed with the same similarity
+     * @param k                number of top ranking results to be returned
+     * @param similarity       the ranking model
+     * @param decodedPostings  mapping between (termId: Int) and its decoded postings, for the terms whose postings
+     *                         have been decoded already; may be null
+     * @return k top most relevant results
+     */
+    private List<SearchResult> search(Query query, int k, Similarity similarity,
+                                      IntObjectHashMap<PostingList.Decoded> decodedPostings) {
+        // Open a cursor for every query term, in the order of the weighted query; the weights are kept in the same order
+        IntDoubleHashMap queryWeights = query.getWeights();
+        PostingList.Cursor[] cursors = new PostingList.Cursor[queryWeights.size()];
+        int[] termIds = new int[cursors.length];
+        double[] queryTermWeight = new double[cursors.length];
+        int i = 0;
+        for (int slot = queryWeights.nextSlot(-1); slot >= 0; slot = queryWeights.nextSlot(slot)) {
+            termIds[i] = queryWeights.keyAt(slot);
+            PostingList.Decoded decoded = decodedPostings == null ? null : decodedPostings.get(termIds[i]);
+            if (decoded != null) {
+                cursors[i] = decoded.cursor();
+                cursors[i].nextDoc();
+            } else {
+                cursors[i] = corpusIndex.openCursor(termIds[i]);
+            }
+            queryTermWeight[i++] = queryWeights.valueAt(slot);
+        }
+
+        // Collector that keeps only the top k results; documents without any query term are padded by the collector
+        TopKCollector collector = new TopKCollector(k);
+
+        // Upper bound of the contribution of every query term; skipping needs all of them
+        double[] maxScore = new double[cursors.length];
+        boolean bounded = k > 0;
+        for (int c = 0; c < cursors.length && bounded; c++) {
+            maxScore[c] = queryTermWeight[c] * similarity.termWeightUpperBound(corpusIndex, termIds[c]);
+            bounded = queryTermWeight[c] >= 0 && maxScore[c] >= 0 && maxScore[c] < Double.POSITIVE_INFINITY;
+        }
+
+        // Precomputed weight of every posting of every query term; term-at-a-time evaluation needs all of them
+        double[][] postingWeights = new double[cursors.length][];
+        boolean precomputed = corpusIndex.hasDenseDocIds();
+        for (int c = 0; c < cursors.length && precomputed; c++) {
+            postingWeights[c] = similarity.postingWeights(corpusIndex, termIds[c]);
+            precomputed = postingWeights[c] != null;
+        }
+
+        if (bounded) {
+            collectWithWand(query, similarity, cursors, termIds, queryTermWeight, maxScore, collector);
+        } else if (precomputed) {
+            collectTermAtATime(query, similarity, cursors, postingWeights, queryTermWeight, collector);
+        } else {
+            collectExhaustively(query, similarity, cursors, termIds, queryTermWeight, collector);
+        }
+        return collector.finalizeSearchResult(corpusIndex.getDocumentDict(), similarity.getFillScore());
+    }
+
+    /**
+     * Compute the elements of a list in parallel on a pool, or one after the other on the calling thread
+     *
+     * @param forkJoinPool a pool, or null to compute on the calling thread
+     * @param size         number of elements
+     * @param element      the element at an index
+     * @return the elements in the order of their indexes
+     */
+    static <T> List<T> parallelMap(ForkJoinPool forkJoinPool, int size, IntFunction<T> element) {
+        if (forkJoinPool == null) {
+            List<T> elements = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                elements.add(element.apply(i));
+            }
+            return elements;
+        }
+        // An ordered parallel stream keeps the order; running it inside the pool makes it use that pool
+        return forkJoinPool.submit(() -> IntStream.range(0, size).parallel()
+                .mapToObj(element)
+                .collect(Collectors.toList())).join();
+    }
+
+    /**
+     * Score every document that contains a query term
+     */
+    private void collectExhaustively(Query query, Similarity similarity, PostingList.Cursor[] cursors, int[] termIds,
+                                     double[] queryTermWeight, TopKCollector collector) {
+        // Merge the posting lists of the query terms; every matching docId comes out once, in ascending order
+        for (int docId = PostingList.minDocId(cursors); docId != PostingList.NO_MORE_DOCS; docId = PostingList.minDocId(cursors)) {
+            double score = 0;
+            for (int c = 0; c < cursors.length; c++) {
+                if (cursors[c].docId() != docId) {
+                    continue;
+                }
+                score += queryTermWeight[c] * similarity.termWeight(corpusIndex, termIds[c], cursors[c].termFrequency(), docId);
+
+                // Move the cursor on this document forward
+                cursors[c].nextDoc();
+            }
+            collector.collect(docId, similarity.normalize(corpusIndex, docId, score, query));
+        }
+    }
+
+    /**
+     * Score every document that contains a query term, one posting list after the other, from the precomputed
+     * posting weights. The terms are added in cursor order, which is the order the document-at-a-time evaluation
+     * sums them in, so the scores are bit-identical.
+     */
+    private void collectTermAtATime(Query query, Similarity similarity, PostingList.Cursor[] cursors,
+                                    double[][] postingWeights, double[] queryTermWeight, TopKCollector collector) {
+        Accumulator scores = accumulator();
+        scores.ensureCapacity(corpusIndex.getMaxDocId() + 1);
+        try {
+            for (int c = 0; c < cursors.length; c++) {
+                PostingList.Cursor cursor = cursors[c];
+                double[] weights = postingWeights[c];
+                for (int i = 0; cursor.docId() != PostingList.NO_MORE_DOCS; i++, cursor.nextDoc()) {
+                    scores.add(cursor.docId(), queryTermWeight[c] * weights[i]);
+                }
+            }
+            for (int i = 0; i < scores.size(); i++) {
+                int docId = scores.docIdAt(i);
+                collector.collect(docId, similarity.normalize(corpusIndex, docId, scores.get(docId), query));
+            }
+        } finally {
+            scores.clear();
+        }
+    }
+
+    /**
+     * Score only the documents that may enter the top k, using the WAND bound of every query term and the
+     * Block-Max WAND bound of every block.
+     * Documents come in ascending Id order, so a document whose score can at best tie the threshold loses the tie
+     * to the collected ones and is skipped as well.
+     */
+    private void collectWithWand(Query query, Similarity similarity, PostingList.Cursor[] cursors, int[] termIds,
+                                 double[] queryTermWeight, double[] maxScore, TopKCollector collector) {
+        final int n = cursors.length;
+
+        // Cursor indexes sorted by their current docId, which is kept alongside; exhausted cursors sink to the end
+        int[] order = new int[n];
+        int[] docIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            docIds[i] = cursors[i].docId();
+        }
+        sortByDocId(order, docIds, n);
+
+        // Bound and last docId of the block each cursor was last checked in; recomputed once the pivot passes it
+        double[] blockMaxScore = new double[n];
+        int[] blockLastDocId = new int[n];
+        Arrays.fill(blockLastDocId, -1);
+
+        double threshold = collector.getThreshold();
+        while (true) {
+            // The pivot is the first cursor at which the bounds of the cursors so far could beat the threshold;
+            // no document before the pivot's docId can make the top k
+            double bound = 0;
+            int pivot = -1;
+            for (int i = 0; i < n && docIds[i] != PostingList.NO_MORE_DOCS; i++) {
+                bound += maxScore[order[i]];
+                if (bound * (1 + BOUND_SLACK) > threshold) {
+                    pivot = i;
+                    break;
+                }
+            }
+            if (pivot < 0) {
+                break;  // Not even the remaining terms together could make the top k
+            }
+            int pivotDocId = docIds[pivot];
+
+            // Every cursor on the pivot's document belongs to the pivot
+            while (pivot + 1 < n && docIds[pivot + 1] == pivotDocId) {
+                pivot++;
+            }
+
+            // Bound the documents from the pivot's one up to the end of the first block that holds it,
+            // or up to the next cursor after the pivot, whichever comes first
+            double blockBound = 0;
+            int nextDocId = pivot + 1 < n ? docIds[pivot + 1] : PostingList.NO_MORE_DOCS;
+            for (int i = 0; i <= pivot; i++) {
+                int c = order[i];
+                if (blockLastDocId[c] < pivotDocId) {
+                    int block = cursors[c].blockOf(pivotDocId);
+                    if (block < cursors[c].postingList().blockCount()) {
+                        blockMaxScore[c] = queryTermWeight[c] * similarity.blockWeightUpperBound(corpusIndex, termIds[c], block);
+                        blockLastDocId[c] = cursors[c].postingList().blockLastDocId(block);
+                    } else {
+                        // No posting left at or after the pivot's document
+                        blockMaxScore[c] = 0;
+                        blockLastDocId[c] = PostingList.NO_MORE_DOCS - 1;
+                    }
+                }
+                blockBound += blockMaxScore[c];
+                nextDocId = Math.min(nextDocId, blockLastDocId[c] + 1);
+            }
+
+            // Number of leading cursors that are moved in this round
+            int moved;
+            if (blockBound * (1 + BOUND_SLACK) <= threshold) {
+                // No document before nextDocId can make the top k
+                moved = pivot + 1;
+                for (int i = 0; i < moved; i++) {
+                    docIds[i] = cursors[order[i]].skipTo(nextDocId);
+                }
+            } else if (docIds[0] == pivotDocId) {
+                // Every cursor up to the pivot is on the document; sum in cursor order like the exhaustive
+                // evaluation does, so the score is bit-identical
+                double score = 0;
+                for (int c = 0; c < n; c++) {
+                    if (cursors[c].docId() == pivotDocId) {
+                        score += queryTermWeight[c] * similarity.termWeight(corpusIndex, termIds[c], cursors[c].termFrequency(), pivotDocId);
+                    }
+                }
+                collector.collect(pivotDocId, similarity.normalize(corpusIndex, pivotDocId, score, query));
+                threshold = collector.getThreshold();
+
+                // Move every cursor on this document forward
+                moved = pivot + 1;
+                for (int i = 0; i < moved; i++) {
+                    docIds[i] = cursors[order[i]].nextDoc();
+                }
+            } else {
+                // Skip the cursors before the pivot's document to it
+                moved = 0;
+                while (docIds[moved] < pivotDocId) {
+                    moved++;
+                }
+                for (int i = 0; i < moved; i++) {
+                    docIds[i] = cursors[order[i]].skipTo(pivotDocId);
+                }
+            }
+            sortByDocId(order, docIds, moved);
+        }
+    }
+
+    /**
+     * Restore the docId order after the leading cursors have moved forward; the rest is still sorted
+     *
+     * @param order  cursor indexes
+     * @param docIds current docId of each cursor in {@code order}
+     * @param moved  number of leading cursors that have moved
+     */
+    private static void sortByDocId(int[] order, int[] docIds, int moved) {
+        // Insert the moved cursors into the sorted tail, the last moved one first
+        for (int i = Math.min(moved, order.length - 1) - 1; i >= 0; i--) {
+            int c = order[i];
+            int docId = docIds[i];
+            int j = i + 1;
+            while (j < order.length && docIds[j] < docId) {
+                order[j - 1] = order[j];
+                docIds[j - 1] = docIds[j];
+                j++;
+            }
+            order[j - 1] = c;
+            docIds[j - 1] = docId;
+        }
+    }
+
+    /**
+     * Tokenize a query and weight the terms found in the dictionary
+     *
+     * @param queryString keyword to be searched
+     * @param similarity  the ranking model
+     * @return the weighted query
+     */
+    Query parse(String queryString, Similarity similarity) {
+        List<String> tokens = Searcher.tokenize(queryString);
+
+        // Map for Storing Query's (termId: Int) maps to (termFreqInsideQuery: Int)
+        IntIntHashMap queryTermFreq = new IntIntHashMap();
+        for (String token : tokens) {
+            Integer termId = corpusIndex.getTermDict().get(token);
+            if (termId == null) {   // Not in the Term Dictionary; no document can match it
+                continue;
+            }
+            queryTermFreq.addTo(termId, 1);
+        }
+
+        // Mapping between (termId: Int) and (queryTermWeight: Double), in the slot order of queryTermFreq,
+        // and the weights of the query vector, filled in the same order
+        IntDoubleHashMap queryWeights = new IntDoubleHashMap();
+        IntDoubleHashMap normWeights = new IntDoubleHashMap();
+        for (int slot = queryTermFreq.nextSlot(-1); slot >= 0; slot = queryTermFreq.nextSlot(slot)) {
+            int termId = queryTermFreq.keyAt(slot);
+            queryWeights.put(termId, similarity.queryTermWeight(corpusIndex, termId, queryTermFreq.valueAt(slot)));
+            normWeights.put(termId, similarity.queryNormWeight(corpusIndex, termId, queryTermFreq.valueAt(slot)));
+        }
+
+        return new Query(new HashSet<>(tokens).size(), queryTermFreq, queryWeights, normWeights);
+    }
+
+    CorpusIndex getCorpusIndex() {
+        return corpusIndex;
+    }
+
+    /**
+     * @return the score accumulator of the calling thread; it must be cleared after every search
+     */
+    static Accumulator accumulator() {
+        return accumulator.get();
+    }
+
+    /**
+     * A tokenized query with its term weights; only used by the thread that searches it
+     */
+    static final class Query {
+
+        /**
+         * Number of distinct tokens in the query, including the ones that are not in the dictionary
+         */
+        private final int distinctTokenCount;
+
+        /**
+         * Mapping between (termId: Int) and (termFreqInsideQuery: Int)
+         */
+        private final IntIntHashMap termFreq;
+
+        /**
+         * Mapping between (termId: Int) and (queryTermWeight: Double)
+         */
+        private final IntDoubleHashMap weights;
+
+        /**
+         * Mapping between (termId: Int) and (weight in the query vector: Double)
+         */
+        private final IntDoubleHashMap normWeights;
+
+        /**
+         * Euclidean norm of the query vector; computed on first use
+         */
+        private double norm = Double.NaN;
+
+        Query(int distinctTokenCount, IntIntHashMap termFreq, IntDoubleHashMap weights, IntDoubleHashMap normWeights) {
+            this.distinctTokenCount = distinctTokenCount;
+            this.termFreq = termFreq;
+            this.weights = weights;
+            this.normWeights = normWeights;
+        }
+
+        int getDistinctTokenCount() {
+            return distinctTokenCount;
+        }
+
+        IntIntHashMap getTermFreq() {
+            return termFreq;
+        }
+
+        IntDoubleHashMap getWeights() {
+            return weights;
+        }
+
+        /**
+         * @return Euclidean norm of the query vector, which is made of the query term weights unless the similarity
+         * says otherwise
+         */
+        double getNorm() {
+            if (Double.isNaN(norm)) {
+                double sum = 0;
+                for (int slot = normWeights.nextSlot(-1); slot >= 0; slot = normWeights.nextSlot(slot)) {
+                    sum += Math.pow(normWeights.valueAt(slot), 2);
+                }
+                norm = Math.sqrt(sum);
+            }
+            return norm;
+        }
+    }
+
+    /**
+     * Dense scores indexed by docId, along with the docIds that have been touched so that only they are cleared
+     */
+    static final class Accumulator {
+
+        private double[] scores = new double[0];
+
+        private boolean[] touched = new boolean[0];
+
+        /**
+         * The touched docIds in the order they were first touched
+         */
+        private int[] touchedDocIds = new int[16];
+
+        private int size = 0;
+
+        /**
+         * @param docIdBound largest docId that will be added, plus one
+         */
+        void ensureCapacity(int docIdBound) {
+            if (scores.length < docIdBound) {
+                scores = new double[docIdBound];
+                touched = new boolean[docIdBound];
+            }
+        }
+
+        void add(int docId, double value) {
+            if (!touched[docId]) {
+                touched[docId] = true;
+                if (size == touchedDocIds.length) {
+                    touchedDocIds = Arrays.copyOf(touchedDocIds, size * 2);
+                }
+                touchedDocIds[size++] = docId;
+            }
+            scores[docId] += value;
+        }
+
+        double get(int docId) {
+            return scores[docId];
+        }
+
+        boolean isTouched(int docId) {
+            return touched[docId];
+        }
+
+        /**
+         * @return number of touched docIds
+         */
+        int size() {
+            return size;
+        }
+
+        int docIdAt(int i) {
+            return touchedDocIds[i];
+        }
+
+        /**
+         * Reset the touched scores to 0
+         */
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                scores[touchedDocIds[i]] = 0;
+                touched[touchedDocIds[i]] = false;
+            }
+            size = 0;
+        }
+    }
+}
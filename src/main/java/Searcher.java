@@ -1,8 +1,12 @@
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -18,7 +22,17 @@ import opennlp.tools.stemmer.PorterStemmer;
  * @author Dr. Suppawong Tuarob, (copyrighted 2018)
  */
 public abstract class Searcher {
+    /**
+     * @deprecated PorterStemmer keeps the word being stemmed in its own fields, so this shared instance is not
+     * thread-safe; the tokenizers no longer use it
+     */
+    @Deprecated
     public static PorterStemmer porterStemmer = new PorterStemmer();
+
+    /**
+     * The stemmer of each thread, for the same reason
+     */
+    private static final ThreadLocal<PorterStemmer> STEMMERS = ThreadLocal.withInitial(PorterStemmer::new);
     public static final Set<String> stopWords = Stream.of("a", "about", "above", "after", "again", "against", "all", "am", "an", "and", "any", "are", "aren't", "as", "at", "be", "because", "been", "before", "being", "below", "between", "both", "but", "by", "can't", "cannot", "could", "couldn't", "did", "didn't", "do", "does", "doesn't", "doing", "don't", "down", "during", "each", "few", "for", "from", "further", "had", "hadn't", "has", "hasn't", "have", "haven't", "having", "he", "he'd", "he'll", "he's", "her", "here", "here's", "hers", "herself", "him", "himself", "his", "how", "how's", "i", "i'd", "i'll", "i'm", "i've", "if", "in", "into", "is", "isn't", "it", "it's", "its", "itself", "let's", "me", "more", "most", "mustn't", "my", "myself", "no", "nor", "not", "of", "off", "on", "once", "only", "or", "other", "ought", "our", "ours", "ourselves", "out", "over", "own", "same", "shan't", "she", "she'd", "she'll", "she's", "should", "shouldn't", "so", "some", "such", "than", "that", "that's", "the", "their", "theirs", "them", "themselves", "then", "there", "there's", "these", "they", "they'd", "they'll", "they're", "they've", "this", "those", "through", "to", "too", "under", "until", "up", "very", "was", "wasn't", "we", "we'd", "we'll", "we're", "we've", "were", "weren't", "what", "what's", "when", "when's", "where", "where's", "which", "while", "who", "who's", "whom", "why", "why's", "with", "won't", "would", "wouldn't", "you", "you'd", "you'll", "you're", "you've", "your", "yours", "yourself", "yourselves").collect(Collectors.toSet());
 
     protected List<Document> documents = null;
@@ -32,7 +46,28 @@ public abstract class Searcher {
         this.documents = Searcher.parseDocumentFromFile(docFilename);
     }
 
+    /**
+     * Constructor for documents that have been loaded already, e.g. from an {@link IndexFile}
+     *
+     * @param documents List of Document Objects
+     */
+    protected Searcher(List<Document> documents) {
+        this.documents = documents;
+    }
+
     public static List<Document> parseDocumentFromFile(String filename) {
+        return parseDocumentFromFile(filename, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Load raw documents from the file. Lines are parsed and tokenized in parallel on the given pool;
+     * the documents are returned in file order either way.
+     *
+     * @param filename     the name of a file that contains documents in it
+     * @param forkJoinPool a pool, or null to parse on the calling thread
+     * @return List of Document Objects in file order, or null if the file cannot be read
+     */
+    public static List<Document> parseDocumentFromFile(String filename, ForkJoinPool forkJoinPool) {
         //load the document file
         List<String> lines = null;
         try {
@@ -43,18 +78,20 @@ public abstract class Searcher {
             return null;
         }
 
-        List<Document> documents = new Vector<Document>();
-        for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty()) continue;
-            //parse necessary document information
-            String[] parts = line.split("\\t");
-            Integer id = Integer.parseInt(parts[0]);
-            String rawText = parts[1];
-            List<String> tokens = tokenize(rawText);
-            //add a document entry to documents
-            Document doc = new Document(id, rawText, tokens);
-            documents.add(doc);
+        List<Document> documents;
+        if (forkJoinPool == null) {
+            documents = new Vector<Document>();
+            for (String line : lines) {
+                Document doc = parseDocument(line);
+                if (doc != null) documents.add(doc);
+            }
+        } else {
+            // An ordered parallel stream keeps the file order; running it inside the pool makes it use that pool
+            final List<String> allLines = lines;
+            documents = forkJoinPool.submit(() -> allLines.parallelStream()
+                    .map(Searcher::parseDocument)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList())).join();
         }
 
         System.out.println("@@@ Finished loading " + documents.size() + " documents from " + filename);
@@ -62,14 +99,46 @@ public abstract class Searcher {
         return documents;
     }
 
+    /**
+     * Parse one line of a document file into a Document
+     *
+     * @param line a line in the form of "id\trawText"
+     * @return the Document, or null if the line is empty
+     */
+    private static Document parseDocument(String line) {
+        line = line.trim();
+        if (line.isEmpty()) return null;
+        //parse necessary document information
+        String[] parts = line.split("\\t");
+        Integer id = Integer.parseInt(parts[0]);
+        String rawText = parts[1];
+        List<String> tokens = tokenize(rawText);
+        //add a document entry to documents
+        return new Document(id, rawText, tokens);
+    }
+
     /**
      * Default statis method for preprocessing and tokenizing raw text. You are required to use this method to
      * tokenize raw document and query text, to produce the same set of vocabulary.
      *
+     * The text is scanned once by {@link Tokenizer}, which produces the same tokens as
+     * {@link Searcher#tokenizeWithRegex(String)}.
+     *
      * @param rawText
      * @return
      */
     public static List<String> tokenize(String rawText) {
+        return Tokenizer.tokenize(rawText);
+    }
+
+    /**
+     * The original regex-based implementation of {@link Searcher#tokenize(String)}. It serves as the reference
+     * behavior and as the fallback for texts the single-pass {@link Tokenizer} does not handle.
+     *
+     * @param rawText
+     * @return
+     */
+    static List<String> tokenizeWithRegex(String rawText) {
         //lower casing
         String text = rawText.toLowerCase();
 
@@ -85,7 +154,7 @@ public abstract class Searcher {
             if (t.length() <= 1) continue;
             if (stopWords.contains(t)) continue;
 
-            t = porterStemmer.stem(t);
+            t = STEMMERS.get().stem(t);
             tokens.add(t);
         }
         //return
@@ -118,4 +187,31 @@ public abstract class Searcher {
      * @return
      */
     abstract public List<SearchResult> search(String queryString, int k);
+
+    /**
+     * Search for a batch of queries at once, e.g. for offline evaluation. By default the queries are searched
+     * one after the other; searchers that can share work between the queries or score them in parallel
+     * override it.
+     *
+     * @param queries raw-text queries
+     * @param k       number of top ranking results to be returned for each query
+     * @return the results of {@link Searcher#search(String, int)} for each query, in the order of the queries
+     */
+    public List<List<SearchResult>> searchBatch(List<String> queries, int k) {
+        List<List<SearchResult>> results = new ArrayList<>(queries.size());
+        for (String query : queries) {
+            results.add(search(query, k));
+        }
+        return results;
+    }
+
+    /**
+     * The parameters the ranking depends on besides the documents and the query, e.g. the tuning variables of
+     * a model; a {@link CachingSearcher} keys the results on them. There are none by default.
+     *
+     * @return the current values of the parameters
+     */
+    public List<Object> getRankingParameters() {
+        return Collections.emptyList();
+    }
 }
@@ -10,6 +10,7 @@ The group consists of
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -87,9 +88,17 @@ public class SearcherEvaluator {
      */
     public double[] getQueryPRF(Document query, Searcher searcher, int k) {
         // TODO: YOUR CODE HERE
-        List<SearchResult> searchResults = searcher.search(query.getRawText(), k);
-        int retrievedItem = searchResults.size();
+        return getQueryPRF(query, searcher.search(query.getRawText(), k));
+    }
 
+    /**
+     * Returns an array of 3 numbers: precision, recall, F1, computed from the search results of *query*
+     *
+     * @param query         Document Object for a query
+     * @param searchResults the top k SearchResult of the query
+     * @return an array consists of precision, recall and F1
+     */
+    private double[] getQueryPRF(Document query, List<SearchResult> searchResults) {
         Set<Integer> realRelevantDocIdSet = answers.get(query.getId());
 
         HashSet<Integer> searchResultDocIdSet = new HashSet<>();
@@ -117,8 +126,15 @@ public class SearcherEvaluator {
         // Instantiates the summation variables with precision, recall, and F
         double sumPrecision = 0, sumRecall = 0, sumF = 0;
 
-        for (Document query : queries) {        // For every Document in query field map
-            double[] precisionRecallF = getQueryPRF(query, searcher, k);    // Calculate precision, recall, and F
+        // Search all the queries as one batch, which lets the searcher share work between them
+        List<String> queryStrings = new ArrayList<>(queries.size());
+        for (Document query : queries) {
+            queryStrings.add(query.getRawText());
+        }
+        List<List<SearchResult>> batchResults = searcher.searchBatch(queryStrings, k);
+
+        for (int i = 0; i < queries.size(); i++) {        // For every Document in query field map
+            double[] precisionRecallF = getQueryPRF(queries.get(i), batchResults.get(i));    // Calculate precision, recall, and F
             sumPrecision += precisionRecallF[0];       // Accumulates Precision
             sumRecall += precisionRecallF[1];          // Accumulates Recall
             sumF += precisionRecallF[2];               // Accumulates F
@@ -134,6 +150,40 @@ public class SearcherEvaluator {
         // Pack them into an double array
         return new double[]{averagePrecision, averageRecall, averageF};
     }
+
+    /**
+     * Measure how much of the top k of an exact searcher an approximate searcher misses, over all the queries.
+     * Only the results with a positive score count on either side; the rest only pad the top k.
+     * A query without such a result misses nothing.
+     *
+     * @param approximate Searcher Instance whose results are checked, e.g. a {@link JaccardSearcher} on MinHash
+     * @param exact       Searcher Instance that ranks with the same model exactly
+     * @param k           top k SearchResult with highest relevant
+     * @return the average fraction of the exact results missed, between 0 and 1
+     */
+    public double getRecallLoss(Searcher approximate, Searcher exact, int k) {
+        double sumLoss = 0;
+        for (Document query : queries) {
+            Set<Integer> exactDocIdSet = new HashSet<>();
+            for (SearchResult searchResult : exact.search(query.getRawText(), k)) {
+                if (searchResult.getScore() > 0) {
+                    exactDocIdSet.add(searchResult.getDocument().getId());
+                }
+            }
+            if (exactDocIdSet.isEmpty()) {
+                continue;
+            }
+
+            Set<Integer> approximateDocIdSet = new HashSet<>();
+            for (SearchResult searchResult : approximate.search(query.getRawText(), k)) {
+                if (searchResult.getScore() > 0) {
+                    approximateDocIdSet.add(searchResult.getDocument().getId());
+                }
+            }
+            sumLoss += 1 - EvaluatorMathUtil.calculateRecall(approximateDocIdSet, exactDocIdSet);
+        }
+        return sumLoss / queries.size();
+    }
 }
 
 /**
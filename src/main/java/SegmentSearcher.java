@@ -0,0 +1,208 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * A searcher over the segments an {@link IndexWriter} has made visible.
+ * <p>
+ * Every segment is searched by its own searcher, over a view of the segment that carries the statistics of the whole
+ * collection, so a document scores the same as it would in one index of every live document. Each segment returns
+ * its top k plus as many results as it has deleted documents, the deleted ones are dropped, and the rest are merged
+ * into the top k with the usual order: score descending, ties to the smaller Id.
+ * <p>
+ * The writer replaces the whole {@link Reader} when it refreshes; a search reads it once and runs against it without
+ * any lock. Its generation is the ranking parameter, so a {@link CachingSearcher} in front of this searcher never
+ * returns the results of an older refresh.
+ */
+public class SegmentSearcher extends Searcher {
+
+    /**
+     * The segments new searches run against
+     */
+    private volatile Reader reader;
+
+    /**
+     * @param reader the first segments to be searched
+     */
+    SegmentSearcher(Reader reader) {
+        // The corpus changes with every refresh; the documents are in the segments
+        super(Collections.<Document>emptyList());
+        this.reader = reader;
+    }
+
+    @Override
+    public List<SearchResult> search(String queryString, int k) {
+        Reader current = reader;
+        List<List<SearchResult>> segmentResults = new ArrayList<>(current.segments.size());
+        for (SegmentView segment : current.segments) {
+            segmentResults.add(segment.searcher.search(queryString, segment.oversampled(k)));
+        }
+        return merge(current, segmentResults, k);
+    }
+
+    /**
+     * Search for a batch of queries, all of them against the same segments; every segment searches the whole batch
+     */
+    @Override
+    public List<List<SearchResult>> searchBatch(List<String> queries, int k) {
+        Reader current = reader;
+        List<List<List<SearchResult>>> batchResults = new ArrayList<>(current.segments.size());
+        for (SegmentView segment : current.segments) {
+            batchResults.add(segment.searcher.searchBatch(queries, segment.oversampled(k)));
+        }
+
+        List<List<SearchResult>> merged = new ArrayList<>(queries.size());
+        for (int q = 0; q < queries.size(); q++) {
+            List<List<SearchResult>> segmentResults = new ArrayList<>(batchResults.size());
+            for (List<List<SearchResult>> segmentBatch : batchResults) {
+                segmentResults.add(segmentBatch.get(q));
+            }
+            merged.add(merge(current, segmentResults, k));
+        }
+        return merged;
+    }
+
+    /**
+     * @return the generation of the segments new searches run against
+     */
+    @Override
+    public List<Object> getRankingParameters() {
+        return Collections.<Object>singletonList(reader.generation);
+    }
+
+    /**
+     * @return the segments new searches run against
+     */
+    Reader getReader() {
+        return reader;
+    }
+
+    /**
+     * Make other segments visible to the searches that start from now on
+     */
+    void setReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Merge the results of every segment of a reader into the top k, without the deleted documents
+     *
+     * @param reader         the reader the segments were searched in
+     * @param segmentResults the results of each segment, in the order of the segments
+     * @param k              number of top ranking results to be returned
+     * @return k top most relevant results
+     */
+    private static List<SearchResult> merge(Reader reader, List<List<SearchResult>> segmentResults, int k) {
+        TopKCollector collector = new TopKCollector(k);
+        TreeMap<Integer, Document> candidates = new TreeMap<>();
+        for (int s = 0; s < segmentResults.size(); s++) {
+            SegmentView segment = reader.segments.get(s);
+            for (SearchResult searchResult : segmentResults.get(s)) {
+                Document document = searchResult.getDocument();
+                if (!segment.isDeleted(document.getId())) {
+                    collector.collect(document.getId(), searchResult.getScore());
+                    candidates.put(document.getId(), document);
+                }
+            }
+        }
+        // Every segment padded its own results, so there are at least k candidates unless there are fewer live
+        // documents; the fill score is never used
+        return collector.finalizeSearchResult(candidates, Double.NaN);
+    }
+
+    /**
+     * The segments that are searched together; immutable
+     */
+    static final class Reader {
+        private final long generation;
+        private final List<SegmentView> segments;
+
+        Reader(long generation, List<SegmentView> segments) {
+            this.generation = generation;
+            this.segments = Collections.unmodifiableList(new ArrayList<>(segments));
+        }
+
+        /**
+         * @return 0 for the reader of an empty writer, then larger for every refresh
+         */
+        long getGeneration() {
+            return generation;
+        }
+
+        List<SegmentView> getSegments() {
+            return segments;
+        }
+
+        /**
+         * @return number of live documents in the segments
+         */
+        int getDocumentCount() {
+            int documentCount = 0;
+            for (SegmentView segment : segments) {
+                documentCount += segment.docIds.length - segment.deletedCount;
+            }
+            return documentCount;
+        }
+    }
+
+    /**
+     * A segment as it was when it was made visible: its view with the collection statistics, the searcher on that
+     * view, and a copy of its deletions; immutable
+     */
+    static final class SegmentView {
+        private final CorpusIndex corpusIndex;
+        private final Searcher searcher;
+
+        /**
+         * Ids of the documents of the segment in ascending order; the deletions are indexed by position in it
+         */
+        private final int[] docIds;
+
+        private final BitSet deletions;
+        private final int deletedCount;
+
+        SegmentView(CorpusIndex corpusIndex, Searcher searcher, int[] docIds, BitSet deletions) {
+            this.corpusIndex = corpusIndex;
+            this.searcher = searcher;
+            this.docIds = docIds;
+            this.deletions = deletions;
+            this.deletedCount = deletions.cardinality();
+        }
+
+        CorpusIndex getCorpusIndex() {
+            return corpusIndex;
+        }
+
+        Searcher getSearcher() {
+            return searcher;
+        }
+
+        int getDeletedCount() {
+            return deletedCount;
+        }
+
+        /**
+         * @return number of results to ask the searcher of the segment for, so that k remain without the deleted ones
+         */
+        int oversampled(int k) {
+            return (int) Math.min((long) k + deletedCount, Integer.MAX_VALUE);
+        }
+
+        boolean isDeleted(int docId) {
+            return deletions.get(Arrays.binarySearch(docIds, docId));
+        }
+    }
+}
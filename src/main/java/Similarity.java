@@ -0,0 +1,111 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+/**
+ * A ranking model, evaluated by the {@link QueryEngine} over the postings of a {@link CorpusIndex}.
+ * <p>
+ * The score of a document is
+ * <pre>
+ *     normalize(docId, sum over the query terms t in the document of queryTermWeight(t) * termWeight(t, docId))
+ * </pre>
+ * Implementations are immutable, so one instance can score any index from any number of threads; an implementation
+ * may carry precomputed data for one index, as long as it stays correct on the others.
+ */
+interface Similarity {
+
+    /**
+     * Weight of a term on the query side; computed once per query term
+     *
+     * @param corpusIndex   the index being searched
+     * @param termId        termId of a query term found in the dictionary
+     * @param queryTermFreq frequency of the term in the query
+     * @return the weight
+     */
+    double queryTermWeight(CorpusIndex corpusIndex, int termId, int queryTermFreq);
+
+    /**
+     * Weight of a term in the query vector whose norm is {@link QueryEngine.Query#getNorm()}; differs from the
+     * {@link Similarity#queryTermWeight} when the query side carries a factor that belongs to the document side
+     *
+     * @param corpusIndex   the index being searched
+     * @param termId        termId of a query term found in the dictionary
+     * @param queryTermFreq frequency of the term in the query
+     * @return the weight; the query term weight by default
+     */
+    default double queryNormWeight(CorpusIndex corpusIndex, int termId, int queryTermFreq) {
+        return queryTermWeight(corpusIndex, termId, queryTermFreq);
+    }
+
+    /**
+     * Weight of a term on the document side; computed once per posting that matches the query
+     *
+     * @param corpusIndex the index being searched
+     * @param termId      termId of the term
+     * @param termFreq    frequency of the term in the document
+     * @param docId       document Id
+     * @return the weight
+     */
+    double termWeight(CorpusIndex corpusIndex, int termId, int termFreq, int docId);
+
+    /**
+     * Turn the accumulated weights of a matching document into its score
+     *
+     * @param corpusIndex the index being searched
+     * @param docId       document Id
+     * @param score       sum of queryTermWeight * termWeight over the query terms in the document
+     * @param query       the query being scored
+     * @return the score of the document
+     */
+    double normalize(CorpusIndex corpusIndex, int docId, double score, QueryEngine.Query query);
+
+    /**
+     * Upper bound of termWeight over every document of a term, which lets the {@link QueryEngine} skip documents
+     * that cannot make the top k. A similarity may only return a finite bound if its weights are never negative
+     * and {@link Similarity#normalize} returns the score unchanged.
+     *
+     * @param corpusIndex the index being searched
+     * @param termId      termId of the term
+     * @return the bound, or infinity if there is none (default), which disables the skipping
+     */
+    default double termWeightUpperBound(CorpusIndex corpusIndex, int termId) {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Upper bound of termWeight over the documents of one block of the posting list of a term, which lets the
+     * {@link QueryEngine} skip whole blocks. The same rules as for {@link Similarity#termWeightUpperBound} apply.
+     *
+     * @param corpusIndex the index being searched
+     * @param termId      termId of the term
+     * @param block       block index in the posting list of the term
+     * @return the bound; the bound of the whole term by default
+     */
+    default double blockWeightUpperBound(CorpusIndex corpusIndex, int termId, int block) {
+        return termWeightUpperBound(corpusIndex, termId);
+    }
+
+    /**
+     * The termWeight of every posting of a term, precomputed, which lets the {@link QueryEngine} accumulate the
+     * scores term at a time instead of merging the posting lists when it cannot skip documents.
+     *
+     * @param corpusIndex the index being searched
+     * @param termId      termId of the term
+     * @return the weights in posting order, or null if they are not precomputed for this index (default);
+     * the array may be longer than the posting list
+     */
+    default double[] postingWeights(CorpusIndex corpusIndex, int termId) {
+        return null;
+    }
+
+    /**
+     * @return score given to the documents that match no query term when the results are padded up to k
+     */
+    double getFillScore();
+}
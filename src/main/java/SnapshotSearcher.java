@@ -0,0 +1,170 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * A searcher over an index that can be replaced while it is being searched.
+ * <p>
+ * The index and the searcher built on it form an immutable {@link Snapshot}, published through an atomic reference.
+ * Every search reads the reference once and runs entirely against that snapshot, without any lock, so any number of
+ * threads can search while a new index is built in the background; swapping it in is a single atomic write, and the
+ * searches already running finish on the old snapshot. Nothing else refers to the old snapshot, so it is garbage
+ * collected once its last search is done.
+ * <p>
+ * The generation of the snapshot is one of the {@link SnapshotSearcher#getRankingParameters()}, so a
+ * {@link CachingSearcher} in front of this searcher never returns the results of an older snapshot.
+ */
+public class SnapshotSearcher extends Searcher {
+
+    /**
+     * Builds the searcher of every snapshot on its index
+     */
+    private final Function<CorpusIndex, Searcher> searcherFactory;
+
+    /**
+     * The pool the new indexes are built on
+     */
+    private final ForkJoinPool forkJoinPool;
+
+    /**
+     * The snapshot new searches run against
+     */
+    private final AtomicReference<Snapshot> current;
+
+    /**
+     * Generation of the latest snapshot requested; a snapshot only replaces an older one
+     */
+    private final AtomicLong requestedGeneration = new AtomicLong();
+
+    /**
+     * @param corpusIndex     the first index to be searched
+     * @param searcherFactory builds the searcher of every snapshot on its index, e.g. {@code MyCoolSearcher::new}
+     * @param forkJoinPool    the pool new indexes are built on in the background
+     */
+    SnapshotSearcher(CorpusIndex corpusIndex, Function<CorpusIndex, Searcher> searcherFactory, ForkJoinPool forkJoinPool) {
+        // The corpus changes with every swap; the documents are in the snapshots
+        super(Collections.<Document>emptyList());
+        this.searcherFactory = searcherFactory;
+        this.forkJoinPool = forkJoinPool;
+        this.current = new AtomicReference<>(new Snapshot(0, corpusIndex, searcherFactory.apply(corpusIndex)));
+    }
+
+    @Override
+    public List<SearchResult> search(String queryString, int k) {
+        return current.get().getSearcher().search(queryString, k);
+    }
+
+    /**
+     * Search for a batch of queries, all of them against the same snapshot
+     */
+    @Override
+    public List<List<SearchResult>> searchBatch(List<String> queries, int k) {
+        return current.get().getSearcher().searchBatch(queries, k);
+    }
+
+    /**
+     * @return the generation of the current snapshot, followed by the ranking parameters of its searcher
+     */
+    @Override
+    public List<Object> getRankingParameters() {
+        Snapshot snapshot = current.get();
+        List<Object> rankingParameters = new ArrayList<>();
+        rankingParameters.add(snapshot.getGeneration());
+        rankingParameters.addAll(snapshot.getSearcher().getRankingParameters());
+        return rankingParameters;
+    }
+
+    /**
+     * @return the snapshot new searches run against; a caller that holds it can search it consistently
+     * across several calls
+     */
+    Snapshot getSnapshot() {
+        return current.get();
+    }
+
+    /**
+     * Index the documents in the background and swap the new index in once it is ready. Searches keep running
+     * against the current snapshot meanwhile. If a later refresh or swap is requested before this one is ready,
+     * the later one wins and this one is dropped.
+     *
+     * @param documents the new corpus
+     * @return the snapshot that was built, completed once it is swapped in or dropped
+     */
+    CompletableFuture<Snapshot> refresh(List<Document> documents) {
+        long generation = requestedGeneration.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> {
+            CorpusIndex corpusIndex = new CorpusIndex.Builder(documents)
+                    .setForkJoinPool(forkJoinPool)
+                    .build();
+            Snapshot snapshot = new Snapshot(generation, corpusIndex, searcherFactory.apply(corpusIndex));
+            install(snapshot);
+            return snapshot;
+        }, forkJoinPool);
+    }
+
+    /**
+     * Swap an index in right away, e.g. one loaded from an {@link IndexFile}; the searcher of the new snapshot is
+     * built on the calling thread before the swap
+     *
+     * @param corpusIndex the new index
+     * @return the new snapshot
+     */
+    Snapshot swap(CorpusIndex corpusIndex) {
+        Snapshot snapshot = new Snapshot(requestedGeneration.incrementAndGet(), corpusIndex, searcherFactory.apply(corpusIndex));
+        install(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Publish a snapshot unless a newer one is current already
+     */
+    private void install(Snapshot snapshot) {
+        current.accumulateAndGet(snapshot, (installed, candidate) ->
+                candidate.getGeneration() > installed.getGeneration() ? candidate : installed);
+    }
+
+    /**
+     * An index with the searcher built on it; immutable
+     */
+    static final class Snapshot {
+        private final long generation;
+        private final CorpusIndex corpusIndex;
+        private final Searcher searcher;
+
+        Snapshot(long generation, CorpusIndex corpusIndex, Searcher searcher) {
+            this.generation = generation;
+            this.corpusIndex = corpusIndex;
+            this.searcher = searcher;
+        }
+
+        /**
+         * @return 0 for the first snapshot, then larger for every later one
+         */
+        long getGeneration() {
+            return generation;
+        }
+
+        CorpusIndex getCorpusIndex() {
+            return corpusIndex;
+        }
+
+        Searcher getSearcher() {
+            return searcher;
+        }
+    }
+}
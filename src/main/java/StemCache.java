@@ -0,0 +1,209 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache from the surface form of a token to its stem.
+ * <p>
+ * The cache is a set-associative table: a token hashes to one set of {@link StemCache#WAYS} slots, and a miss
+ * replaces a slot of that set chosen by the CLOCK (second chance) policy: every hit marks its entry as referenced,
+ * and the victim is the first slot in the set whose mark is clear, clearing the marks it passes over.
+ * Lookups take the token straight from a char buffer, so a hit does not allocate.
+ * <p>
+ * Entries are immutable apart from the reference mark and are published through plain array writes; a racing reader
+ * either sees a complete entry or misses, so no locking is needed. Races may only lose a reference mark or
+ * an insertion, which costs a later miss but never a wrong stem.
+ */
+class StemCache {
+
+    /**
+     * Number of slots per set
+     */
+    static final int WAYS = 4;
+
+    /**
+     * The slots; set s occupies [s * WAYS, (s + 1) * WAYS)
+     */
+    private final Entry[] entries;
+
+    /**
+     * Number of sets minus one; the number of sets is always a power of two
+     */
+    private final int setMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Instantiate a cache
+     *
+     * @param capacity maximum number of cached stems; rounded up to a power of two of at least {@link StemCache#WAYS}
+     */
+    StemCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int sets = 1;
+        while ((long) sets * WAYS < capacity) {
+            sets <<= 1;
+        }
+        this.entries = new Entry[sets * WAYS];
+        this.setMask = sets - 1;
+    }
+
+    /**
+     * Look up the stem of a token
+     *
+     * @param chars  buffer holding the token
+     * @param length length of the token
+     * @return the cached stem, or null on a miss
+     */
+    String get(char[] chars, int length) {
+        int hash = hash(chars, length);
+        int base = (hash & setMask) * WAYS;
+        for (int way = 0; way < WAYS; way++) {
+            Entry entry = entries[base + way];
+            if (entry != null && entry.matches(hash, chars, length)) {
+                entry.referenced = true;
+                hits.increment();
+                return entry.stem;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cache the stem of a token, evicting an entry of its set if the set is full
+     *
+     * @param chars  buffer holding the token
+     * @param length length of the token
+     * @param stem   the stem of the token
+     */
+    void put(char[] chars, int length, String stem) {
+        int hash = hash(chars, length);
+        int base = (hash & setMask) * WAYS;
+
+        // An empty slot is taken first, unless another thread cached the same token meanwhile
+        for (int way = 0; way < WAYS; way++) {
+            Entry entry = entries[base + way];
+            if (entry == null) {
+                entries[base + way] = new Entry(hash, Arrays.copyOf(chars, length), stem);
+                return;
+            }
+            if (entry.matches(hash, chars, length)) {
+                return;
+            }
+        }
+
+        // Second chance: skip (and clear) referenced entries; if all of them are referenced, the first one goes
+        int victim = base;
+        for (int way = 0; way < WAYS; way++) {
+            Entry entry = entries[base + way];
+            if (!entry.referenced) {
+                victim = base + way;
+                break;
+            }
+            entry.referenced = false;
+        }
+        evictions.increment();
+        entries[victim] = new Entry(hash, Arrays.copyOf(chars, length), stem);
+    }
+
+    /**
+     * @return maximum number of cached stems
+     */
+    int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * @return number of slots currently holding a stem
+     */
+    int size() {
+        int size = 0;
+        for (Entry entry : entries) {
+            if (entry != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return ratio of lookups that were hits, or 0 if there was no lookup
+     */
+    double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "[capacity=" + capacity() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + ", hitRatio=" + getHitRatio() + "]";
+    }
+
+    private static int hash(char[] chars, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * A cached (surface form, stem) pair
+     */
+    private static final class Entry {
+        private final int hash;
+        private final char[] surface;
+        private final String stem;
+
+        /**
+         * Reference mark for the CLOCK policy; deliberately not volatile, a lost update only affects eviction
+         */
+        private boolean referenced;
+
+        Entry(int hash, char[] surface, String stem) {
+            this.hash = hash;
+            this.surface = surface;
+            this.stem = stem;
+        }
+
+        boolean matches(int hash, char[] chars, int length) {
+            if (this.hash != hash || surface.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (surface[i] != chars[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
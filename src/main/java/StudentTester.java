@@ -12,7 +12,10 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Class containing a set of test-cases.
@@ -126,8 +129,13 @@ public class StudentTester {
 
         long startTimeBM25 = System.currentTimeMillis();
 
+        // Index the corpus once; every searcher below is built on the same index
+        CorpusIndex corpusIndex = new CorpusIndex.Builder(Searcher.parseDocumentFromFile(documentFilename))
+                .setForkJoinPool(ForkJoinPool.commonPool())
+                .build();
+
         // initialize search engine
-        Searcher myCoolSearcher = new MyCoolSearcher(documentFilename);
+        Searcher myCoolSearcher = new MyCoolSearcher(corpusIndex);
         for (String query : testQueries) {
             List<SearchResult> results = myCoolSearcher.search(query, k);
 
@@ -150,19 +158,19 @@ public class StudentTester {
         TreeMap<Double, String> indexingMethodRankings = new TreeMap<>();
 
         System.out.println("\n*** MyCoolSearcher: BM25 ***");
-        Searcher myCoolSearcher2 = new MyCoolSearcher(testCorpus + "/documents.txt");
+        Searcher myCoolSearcher2 = new MyCoolSearcher(corpusIndex);
         final double[] myCoolSearcherEvalResult = evaluator.getAveragePRF(myCoolSearcher2, k);
         System.out.println("@@ Evaluation of MyCoolSearcher: " + Arrays.toString(myCoolSearcherEvalResult));
         indexingMethodRankings.put(myCoolSearcherEvalResult[2], "MyCoolSearcher: BM25");
 
         System.out.println("\n*** Jaccard Coefficient ***");
-        Searcher jSearcher = new JaccardSearcher(testCorpus + "/documents.txt");
+        Searcher jSearcher = new JaccardSearcher(corpusIndex);
         final double[] jSearcherEvalResult = evaluator.getAveragePRF(jSearcher, k);
         System.out.println("@@ Evaluation of Jaccard: " + Arrays.toString(jSearcherEvalResult));
         indexingMethodRankings.put(jSearcherEvalResult[2], "Jaccard Coefficient   ");
 
         System.out.println("\n*** TF-IDF w/ Cosine Similarity ***");
-        Searcher tSearcher = new TFIDFSearcher(testCorpus + "/documents.txt");
+        Searcher tSearcher = new TFIDFSearcher(corpusIndex);
         final double[] tSearcherEvalResult = evaluator.getAveragePRF(tSearcher, k);
         System.out.println("@@ Evaluation of TF-IDF: " + Arrays.toString(tSearcherEvalResult));
         indexingMethodRankings.put(tSearcherEvalResult[2], "TF-IDF w/ Cosine    ");
@@ -208,9 +216,13 @@ public class StudentTester {
 
         SearcherEvaluator s = new SearcherEvaluator(corpus);
 
-        Searcher jSearcher = new JaccardSearcher(testCorpus + "/documents.txt");
-        Searcher tSearcher = new TFIDFSearcher(testCorpus + "/documents.txt");
-        Searcher bm25Searcher = new MyCoolSearcher(testCorpus + "/documents.txt");
+        // Index the corpus once and build every searcher on it
+        CorpusIndex corpusIndex = new CorpusIndex.Builder(Searcher.parseDocumentFromFile(testCorpus + "/documents.txt"))
+                .setForkJoinPool(ForkJoinPool.commonPool())
+                .build();
+        Searcher jSearcher = new JaccardSearcher(corpusIndex);
+        Searcher tSearcher = new TFIDFSearcher(corpusIndex);
+        Searcher bm25Searcher = new MyCoolSearcher(corpusIndex);
 
         for (int k = 1; k <= maxK; k++) {
             double[] jResults = s.getAveragePRF(jSearcher, k);
@@ -261,25 +273,29 @@ public class StudentTester {
 
         SearcherEvaluator s = new SearcherEvaluator(corpus);
 
+        // The corpus is indexed once, like the queries are loaded once; every round only builds the searchers on it
+        CorpusIndex corpusIndex = new CorpusIndex.Builder(Searcher.parseDocumentFromFile(testCorpus + "/documents.txt"))
+                .setForkJoinPool(ForkJoinPool.commonPool())
+                .build();
 
         for (int i = 1; i <= times; i++) {
 
             long timeA1 = System.currentTimeMillis();
-            Searcher jSearcher = new JaccardSearcher(testCorpus + "/documents.txt");
+            Searcher jSearcher = new JaccardSearcher(corpusIndex);
             double[] jResults = s.getAveragePRF(jSearcher, kValue);
             assert jaccardWriter != null;
             long timeA2 = System.currentTimeMillis();
             jaccardWriter.println(i + ", " + (timeA2 - timeA1));
 
             long timeB1 = System.currentTimeMillis();
-            Searcher tSearcher = new TFIDFSearcher(testCorpus + "/documents.txt");
+            Searcher tSearcher = new TFIDFSearcher(corpusIndex);
             double[] tResults = s.getAveragePRF(tSearcher, kValue);
             assert tfIdfWriter != null;
             long timeB2 = System.currentTimeMillis();
             tfIdfWriter.println(i + ", " + (timeB2 - timeB1));
 
             long timeC1 = System.currentTimeMillis();
-            Searcher bm25Searcher = new MyCoolSearcher(testCorpus + "/documents.txt");
+            Searcher bm25Searcher = new MyCoolSearcher(corpusIndex);
             double[] bm25Results = s.getAveragePRF(bm25Searcher, kValue);
             assert bm25Writer != null;
             long timeC2 = System.currentTimeMillis();
@@ -290,6 +306,269 @@ public class StudentTester {
         bm25Writer.close();
     }
 
+    /**
+     * Measure the heap footprint of the indexes built for the corpus, replicated a number of times under fresh
+     * document Ids to emulate a larger synthetic corpus. Only the indexes are measured; the parsed documents
+     * are loaded before the first measurement.
+     *
+     * @param corpus      url to the corpus folder
+     * @param replication the number of copies of the corpus to be indexed
+     */
+    public static void measureIndexMemoryFootprint(String corpus, int replication) {
+        List<Document> documents = Searcher.parseDocumentFromFile(corpus + "/documents.txt");
+
+        int maxDocId = 0;
+        for (Document document : documents) {
+            maxDocId = Math.max(maxDocId, document.getId());
+        }
+
+        // Replicate the documents under fresh Ids; tokens are shared between copies as they are not part of the index
+        List<Document> syntheticDocuments = new ArrayList<>(documents.size() * replication);
+        for (int r = 0; r < replication; r++) {
+            for (Document document : documents) {
+                syntheticDocuments.add(new Document(document.getId() + r * maxDocId, document.getRawText(), document.getTokens()));
+            }
+        }
+
+        System.out.println("@@@ Index heap footprint of " + syntheticDocuments.size() + " documents (" + replication + "x " + corpus + ")");
+
+        long before = usedHeapAfterGc();
+        CorpusIndex corpusIndex = new CorpusIndex.Builder(syntheticDocuments).build();
+        long corpusUsed = usedHeapAfterGc() - before;
+        System.out.println("\tCorpusIndex: " + (corpusUsed / 1024) + " KiB");
+
+        // The model-specific indexers are views over the same CorpusIndex
+        before = usedHeapAfterGc();
+        VectorSpaceModelIndexer vsmIndexer = new VectorSpaceModelIndexer.Builder(corpusIndex).build();
+        ProbabilisticIndexer probabilisticIndexer = new ProbabilisticIndexer.Builder(corpusIndex).build();
+        long modelsUsed = usedHeapAfterGc() - before;
+        System.out.println("\tVectorSpaceModelIndexer + ProbabilisticIndexer on top: " + (modelsUsed / 1024) + " KiB");
+
+        // Keep the indexes reachable until all of them are measured
+        System.out.println("\t(" + vsmIndexer.getTermDict().size() + " terms, " + probabilisticIndexer.getTermDict().size() + " terms)");
+    }
+
+    /**
+     * Request a few garbage collections and return the used heap size afterwards
+     *
+     * @return used heap size in bytes
+     */
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Compare the throughput of the single-pass tokenizer against the original regex-based one
+     * by tokenizing every document of the corpus repeatedly.
+     *
+     * @param corpus url to the corpus folder
+     * @param times  the number of passes over the corpus for each tokenizer
+     */
+    public static void measureTokenizerThroughput(String corpus, int times) {
+        List<Document> documents = Searcher.parseDocumentFromFile(corpus + "/documents.txt");
+        long characters = 0;
+        for (Document document : documents) {
+            characters += document.getRawText().length();
+        }
+
+        // Warm up both of them first
+        for (Document document : documents) {
+            Searcher.tokenizeWithRegex(document.getRawText());
+            Searcher.tokenize(document.getRawText());
+        }
+
+        long tokenCount = 0;
+        long regexStart = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            for (Document document : documents) {
+                tokenCount += Searcher.tokenizeWithRegex(document.getRawText()).size();
+            }
+        }
+        long regexTime = System.nanoTime() - regexStart;
+
+        StemCache stemCache = Tokenizer.getStemCache();
+        Tokenizer.setStemCache(null);
+        long uncachedStart = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            for (Document document : documents) {
+                Searcher.tokenize(document.getRawText());
+            }
+        }
+        long uncachedTime = System.nanoTime() - uncachedStart;
+        Tokenizer.setStemCache(stemCache);
+
+        long scannerStart = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            for (Document document : documents) {
+                tokenCount -= Searcher.tokenize(document.getRawText()).size();
+            }
+        }
+        long scannerTime = System.nanoTime() - scannerStart;
+
+        System.out.println("@@@ Tokenizer throughput over " + times + " passes of " + corpus + (tokenCount == 0 ? "" : " (TOKEN COUNTS DIFFER)"));
+        System.out.println("\tRegex tokenizer:       " + (characters * times * 1000 / Math.max(regexTime, 1)) + " chars/us, " + (regexTime / 1000000) + " ms");
+        System.out.println("\tSingle-pass tokenizer without stem cache: " + (characters * times * 1000 / Math.max(uncachedTime, 1)) + " chars/us, " + (uncachedTime / 1000000) + " ms");
+        System.out.println("\tSingle-pass tokenizer: " + (characters * times * 1000 / Math.max(scannerTime, 1)) + " chars/us, " + (scannerTime / 1000000) + " ms");
+        System.out.println("\tStem cache: " + stemCache);
+    }
+
+    /**
+     * Compare the startup time of the three searchers when they index the documents against when they open
+     * a persisted index. The index is written to a temporary file first.
+     *
+     * @param corpus url to the corpus folder
+     */
+    public static void measureStartupTime(String corpus) {
+        long indexingStart = System.nanoTime();
+        new JaccardSearcher(corpus + "/documents.txt");
+        new TFIDFSearcher(corpus + "/documents.txt");
+        new MyCoolSearcher(corpus + "/documents.txt");
+        long indexingTime = System.nanoTime() - indexingStart;
+
+        Path indexPath = null;
+        try {
+            indexPath = Files.createTempFile("index", ".bin");
+            long writeStart = System.nanoTime();
+            IndexFile.write(indexPath, Searcher.parseDocumentFromFile(corpus + "/documents.txt"));
+            long writeTime = System.nanoTime() - writeStart;
+
+            long openStart = System.nanoTime();
+            CorpusIndex corpusIndex = CorpusIndex.load(IndexFile.open(indexPath));
+            new JaccardSearcher(corpusIndex);
+            new TFIDFSearcher(corpusIndex);
+            new MyCoolSearcher(corpusIndex);
+            long openTime = System.nanoTime() - openStart;
+
+            System.out.println("@@@ Startup time of the three searchers on " + corpus);
+            System.out.println("	Indexing the documents: " + (indexingTime / 1000000) + " ms");
+            System.out.println("	Writing the index file: " + (writeTime / 1000000) + " ms, " + (Files.size(indexPath) / 1024) + " KiB");
+            System.out.println("	Opening the index file: " + (openTime / 1000000) + " ms");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Compare the approximate Jaccard searchers on MinHash against the exact one: the recall they lose and
+     * the average time they take per query, for a few band layouts of the signatures.
+     *
+     * @param corpus url to the corpus folder
+     * @param k      the value for the fixed size of Search Result
+     */
+    public static void measureApproximateJaccard(String corpus, int k) {
+        SearcherEvaluator evaluator = new SearcherEvaluator(corpus);
+        CorpusIndex corpusIndex = new CorpusIndex.Builder(Searcher.parseDocumentFromFile(corpus + "/documents.txt"))
+                .setForkJoinPool(ForkJoinPool.commonPool())
+                .build();
+
+        Searcher exactSearcher = new JaccardSearcher(corpusIndex);
+        System.out.println("@@@ Approximate Jaccard on " + corpus + " with k = " + k);
+        System.out.println("\tExact: " + averageQueryMicros(evaluator, exactSearcher, k) + " us/query");
+
+        int[][] layouts = {{64, 64}, {128, 128}, {128, 64}, {256, 128}};
+        for (int[] layout : layouts) {
+            for (boolean verify : new boolean[]{false, true}) {
+                long buildStart = System.nanoTime();
+                Searcher approximateSearcher = new JaccardSearcher(corpusIndex, layout[0], layout[1], verify);
+                long buildTime = System.nanoTime() - buildStart;
+                System.out.println("\t" + layout[0] + " rows in " + layout[1] + " bands" + (verify ? ", verified" : "")
+                        + ": recall loss " + evaluator.getRecallLoss(approximateSearcher, exactSearcher, k)
+                        + ", " + averageQueryMicros(evaluator, approximateSearcher, k) + " us/query"
+                        + ", built in " + (buildTime / 1000000) + " ms");
+            }
+        }
+    }
+
+    /**
+     * @return the number of postings of an index
+     */
+    private static long postingCount(CorpusIndex corpusIndex) {
+        long postings = 0;
+        for (int termId = 1; termId <= corpusIndex.getTermCount(); termId++) {
+            postings += corpusIndex.getPostingLists().get(termId).size();
+        }
+        return postings;
+    }
+
+    /**
+     * @return the average time a searcher takes for a query of the evaluator, after a warm-up pass
+     */
+    private static long averageQueryMicros(SearcherEvaluator evaluator, Searcher searcher, int k) {
+        for (Document query : evaluator.getQueries()) {
+            searcher.search(query.getRawText(), k);
+        }
+        // The fastest of a few passes, which is the least disturbed by compilation and garbage collection
+        long bestTime = Long.MAX_VALUE;
+        for (int pass = 0; pass < 5; pass++) {
+            long start = System.nanoTime();
+            for (Document query : evaluator.getQueries()) {
+                searcher.search(query.getRawText(), k);
+            }
+            bestTime = Math.min(bestTime, System.nanoTime() - start);
+        }
+        return bestTime / 1000 / Math.max(evaluator.getQueries().size(), 1);
+    }
+
+    /**
+     * Collapse the near-duplicate documents of the corpus before indexing it, and measure what it saves:
+     * the size of the index and the time of the queries of every searcher.
+     *
+     * @param corpus    url to the corpus folder
+     * @param threshold the smallest Jaccard Coefficient between the token sets of a duplicate and its canonical document
+     */
+    public static void measureDuplicateCollapsing(String corpus, double threshold) {
+        SearcherEvaluator evaluator = new SearcherEvaluator(corpus);
+        List<Document> documents = Searcher.parseDocumentFromFile(corpus + "/documents.txt");
+
+        long collapseStart = System.nanoTime();
+        NearDuplicates nearDuplicates = NearDuplicates.collapse(documents, threshold);
+        long collapseTime = System.nanoTime() - collapseStart;
+        System.out.println("@@@ Near-duplicates of " + corpus + " at a threshold of " + threshold + ": " + nearDuplicates
+                + ", found in " + (collapseTime / 1000000) + " ms");
+
+        CorpusIndex fullIndex = new CorpusIndex.Builder(documents).build();
+        CorpusIndex collapsedIndex = new CorpusIndex.Builder(nearDuplicates.getCanonicalDocuments()).build();
+        long fullPostings = postingCount(fullIndex);
+        long collapsedPostings = postingCount(collapsedIndex);
+        System.out.println("\tPostings: " + fullPostings + ", collapsed " + collapsedPostings
+                + ", saved " + (fullPostings - collapsedPostings));
+        try {
+            Path indexPath = Files.createTempFile("index", ".bin");
+            IndexFile.write(indexPath, fullIndex);
+            long fullSize = Files.size(indexPath);
+            IndexFile.write(indexPath, collapsedIndex);
+            long collapsedSize = Files.size(indexPath);
+            Files.delete(indexPath);
+            System.out.println("\tIndex file: " + (fullSize / 1024) + " KiB, collapsed " + (collapsedSize / 1024)
+                    + " KiB, saved " + ((fullSize - collapsedSize) / 1024) + " KiB");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        Searcher[][] searchers = {
+                {new JaccardSearcher(fullIndex), new JaccardSearcher(collapsedIndex)},
+                {new TFIDFSearcher(fullIndex), new TFIDFSearcher(collapsedIndex)},
+                {new MyCoolSearcher(fullIndex), new MyCoolSearcher(collapsedIndex)}};
+        for (Searcher[] pair : searchers) {
+            // Both are measured twice, so that the one measured first is not the only one measured before warm-up
+            long fullMicros = averageQueryMicros(evaluator, pair[0], k);
+            long collapsedMicros = averageQueryMicros(evaluator, pair[1], k);
+            fullMicros = Math.min(fullMicros, averageQueryMicros(evaluator, pair[0], k));
+            collapsedMicros = Math.min(collapsedMicros, averageQueryMicros(evaluator, pair[1], k));
+            System.out.println("\t" + pair[0].getClass().getSimpleName() + ": " + fullMicros + " us/query, collapsed "
+                    + collapsedMicros + " us/query, saved " + (fullMicros - collapsedMicros) + " us/query");
+        }
+    }
+
     public static void main(String[] args) {
         /********************* Uncomment test cases you want to test ***************/
         // testJaccardSearcher(testCorpus);
@@ -300,6 +579,11 @@ public class StudentTester {
         /* FOR STATISTICAL FIGURE CREATION ONLY */
         // iterativelySearchTopK(testCorpus, 50);
         // iterativelyMeasureTimeConsumption(testCorpus, 30, 10);
+        // measureIndexMemoryFootprint(testCorpus, 10);
+        // measureTokenizerThroughput(testCorpus, 10);
+        // measureStartupTime(testCorpus);
+        // measureApproximateJaccard(testCorpus, 10);
+        // measureDuplicateCollapsing(testCorpus, 0.8);
 
         //********** BONUS **************//
         testYourSearcher(testCorpus);
@@ -0,0 +1,54 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+/**
+ * This class contains helper methods that facilitates TF-IDF scoring
+ */
+class TfIdfMathUtil {
+
+    /**
+     * Calculates Term Frequency (TF) Weight of the given Term Frequency
+     *
+     * @param frequency term frequency in a document or query
+     * @return TF weight
+     */
+    static double calculateTermFrequency(int frequency) {
+        if (frequency == 0) {    // If it is ZERO, don't bother calculating it.
+            return 0d;
+        }
+        return 1d + Math.log10(frequency);
+    }
+
+    /**
+     * Calculates Inverted Document Frequency (IDF) weight of the Document Frequency of the The given term.
+     *
+     * @param totalDocument actual number of the documents in the dataset
+     * @param docFrequency  actual number of the documents that contain a term
+     * @return IDF weight
+     */
+    static double calculateInvertedDocFrequency(int totalDocument, int docFrequency) {
+        return Math.log10(1d + ((double) totalDocument / (double) docFrequency));
+    }
+
+    /**
+     * Calculates Norm of the given Mapping of Integer and Score/Weight
+     *
+     * @param scoreVector Map of termId Int and Score/Weight Float
+     * @return calculated score matrix
+     */
+    static Double calculateNorm(IntDoubleHashMap scoreVector) {
+        double sum = 0;
+        for (int slot = scoreVector.nextSlot(-1); slot >= 0; slot = scoreVector.nextSlot(slot)) {
+            double weight = scoreVector.valueAt(slot);
+            sum += Math.pow(weight, 2);
+        }
+        return Math.sqrt(sum);
+    }
+}
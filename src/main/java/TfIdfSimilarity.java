@@ -0,0 +1,132 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+/**
+ * TF-IDF weight with cosine similarity as a {@link Similarity}.
+ * Both sides are weighted (1 + log10 tf) * log10(1 + N / df); the dot product is divided by the norm of the
+ * Document Vector, precomputed in the {@link CorpusIndex}, and by the norm of the query vector.
+ * <p>
+ * A TfIdfSimilarity may be bound to one index, for which it precomputes the weight of every posting, so that
+ * the {@link QueryEngine} can score the index term at a time.
+ * <p>
+ * With query-time IDF, the document side is weighted 1 + log10 tf only, and the IDF of the document side is
+ * multiplied into the query term weight instead, which gives the same dot product. The weights of the postings
+ * then never change with the collection statistics: they are the log-TF weights the index stores, so nothing is
+ * precomputed for an index and an index that is only a view with new statistics is scored term at a time as well.
+ */
+class TfIdfSimilarity implements Similarity {
+
+    /**
+     * The index the posting weights belong to, or null if there are none
+     */
+    private final CorpusIndex boundIndex;
+
+    /**
+     * Weight of every posting of {@link TfIdfSimilarity#boundIndex}, indexed by termId then posting position
+     */
+    private final double[][] postingWeights;
+
+    /**
+     * Whether the IDF is applied to the query side only
+     */
+    private final boolean queryTimeIdf;
+
+    TfIdfSimilarity() {
+        this(false);
+    }
+
+    /**
+     * An unbound similarity
+     *
+     * @param queryTimeIdf whether the IDF is applied to the query side only, which lets the postings be scored
+     *                     from the stored log-TF weights of any index
+     */
+    TfIdfSimilarity(boolean queryTimeIdf) {
+        this.boundIndex = null;
+        this.postingWeights = null;
+        this.queryTimeIdf = queryTimeIdf;
+    }
+
+    /**
+     * A similarity bound to one index; the weight of every posting of the index is computed upfront, unless the
+     * index is off the heap. The weights of a {@link CorpusIndex#isSegmentView() view of a segment} would have to be
+     * computed again on every refresh, as they hold the IDFs; such a similarity applies the IDF at query time instead,
+     * to the log-TF weights the views of the segment share, which gives the same scores up to rounding.
+     *
+     * @param corpusIndex the index this similarity will mostly search
+     */
+    TfIdfSimilarity(CorpusIndex corpusIndex) {
+        if (corpusIndex.isSegmentView()) {
+            this.boundIndex = null;
+            this.postingWeights = null;
+            this.queryTimeIdf = true;
+            return;
+        }
+        this.boundIndex = corpusIndex;
+        this.queryTimeIdf = false;
+        if (corpusIndex.isOffHeap()) {
+            // The weights would take the heap the index was moved out of; the postings are weighted as they are read
+            this.postingWeights = null;
+            return;
+        }
+        this.postingWeights = new double[corpusIndex.getTermCount() + 1][];
+        for (int termId = 1; termId < postingWeights.length; termId++) {
+            double[] weights = new double[corpusIndex.getPostingLists().get(termId).size()];
+            PostingList.Cursor cursor = corpusIndex.openCursor(termId);
+            for (int i = 0; cursor.docId() != PostingList.NO_MORE_DOCS; i++, cursor.nextDoc()) {
+                weights[i] = termWeight(corpusIndex, termId, cursor.termFrequency(), cursor.docId());
+            }
+            postingWeights[termId] = weights;
+        }
+    }
+
+    @Override
+    public double queryTermWeight(CorpusIndex corpusIndex, int termId, int queryTermFreq) {
+        // The IDF is the one the index stores, so that a term no live document contains any more weighs nothing
+        double idf = corpusIndex.getTermIdfScore().get(termId);
+        double weight = TfIdfMathUtil.calculateTermFrequency(queryTermFreq) * idf;
+        return queryTimeIdf ? weight * idf : weight;
+    }
+
+    @Override
+    public double queryNormWeight(CorpusIndex corpusIndex, int termId, int queryTermFreq) {
+        return TfIdfMathUtil.calculateTermFrequency(queryTermFreq) * corpusIndex.getTermIdfScore().get(termId);
+    }
+
+    @Override
+    public double termWeight(CorpusIndex corpusIndex, int termId, int termFreq, int docId) {
+        if (queryTimeIdf) {
+            return TfIdfMathUtil.calculateTermFrequency(termFreq);
+        }
+        // The same weight as the Document Vector holds
+        return TfIdfMathUtil.calculateTermFrequency(termFreq) * corpusIndex.getTermIdfScore().get(termId);
+    }
+
+    @Override
+    public double[] postingWeights(CorpusIndex corpusIndex, int termId) {
+        if (queryTimeIdf) {
+            return corpusIndex.getLogTfWeights(termId);
+        }
+        return corpusIndex == boundIndex && postingWeights != null ? postingWeights[termId] : null;
+    }
+
+    @Override
+    public double normalize(CorpusIndex corpusIndex, int docId, double score, QueryEngine.Query query) {
+        // Cosine Similarity Score
+        return score / (corpusIndex.getDocumentNorms().get(docId) * query.getNorm());
+    }
+
+    @Override
+    public double getFillScore() {
+        // Documents without any query term are padded with NaN (Not-a-Number), so that the program behave correctly
+        // when there is totally no matched result
+        return Double.NaN;
+    }
+}
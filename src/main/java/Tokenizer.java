@@ -0,0 +1,230 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import opennlp.tools.stemmer.PorterStemmer;
+
+/**
+ * A single-pass tokenizer that produces exactly the same tokens as {@link Searcher#tokenizeWithRegex(String)}.
+ * <p>
+ * The regex version lower-cases the whole text, replaces every non-alphanumeric character with a space and splits it,
+ * which copies the text three times. This one scans the characters once and lower-cases each token into a
+ * buffer that is reused by the thread; the stop-word check and the stemmer work directly on that buffer, so the only
+ * allocation per token is the String of the stem. Stems are looked up in a shared {@link StemCache} first, so a
+ * repeated token allocates nothing and skips the stemmer.
+ * <p>
+ * {@link String#toLowerCase()} is locale-sensitive and may map a non-ASCII character to ASCII letters
+ * (e.g. the Kelvin sign to 'k'). Texts containing non-ASCII characters and Turkic default locales, in which 'I' does
+ * not lower-case to 'i', are therefore handed to the regex version to keep the output identical.
+ */
+class Tokenizer {
+
+    /**
+     * Tokenizer of each thread, as both the buffer and the PorterStemmer hold state
+     */
+    private static final ThreadLocal<Tokenizer> tokenizer = ThreadLocal.withInitial(Tokenizer::new);
+
+    /**
+     * Stop words as char arrays in an open-addressing table, so they can be matched against the buffer.
+     * It is a snapshot of {@link Searcher#stopWords} taken when this class is initialized.
+     */
+    private static final char[][] stopWordTable = buildStopWordTable(Searcher.stopWords);
+
+    /**
+     * Default capacity of the stem cache
+     */
+    static final int DEFAULT_STEM_CACHE_CAPACITY = 1 << 15;
+
+    /**
+     * Cache shared by every thread, at index time and query time alike; null disables caching
+     */
+    private static volatile StemCache stemCache = new StemCache(DEFAULT_STEM_CACHE_CAPACITY);
+
+    /**
+     * Reusable buffer for the current token
+     */
+    private char[] buffer = new char[64];
+
+    /**
+     * The stemmer of this thread
+     */
+    private final PorterStemmer porterStemmer = new PorterStemmer();
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Tokenize the raw text on the tokenizer of the calling thread
+     *
+     * @param rawText raw text of a document or a query
+     * @return list of stemmed tokens
+     */
+    static List<String> tokenize(String rawText) {
+        if (!canScan(rawText)) {
+            return Searcher.tokenizeWithRegex(rawText);
+        }
+        return tokenizer.get().scan(rawText);
+    }
+
+    /**
+     * Check whether the scanner produces the same result as lower-casing the text in the default locale
+     *
+     * @param rawText raw text
+     * @return true if the text is ASCII and the default locale lower-cases ASCII like the root locale
+     */
+    private static boolean canScan(String rawText) {
+        String language = Locale.getDefault().getLanguage();
+        if (language.equals("tr") || language.equals("az")) {
+            return false;
+        }
+        for (int i = 0; i < rawText.length(); i++) {
+            if (rawText.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Scan the ASCII text for runs of letters and digits
+     *
+     * @param text raw ASCII text
+     * @return list of stemmed tokens
+     */
+    private List<String> scan(String text) {
+        List<String> tokens = new ArrayList<>();
+        int length = 0;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, length * 2);
+                }
+                buffer[length++] = c;
+                continue;
+            }
+
+            // End of a token; cleaning individual characters and removing stop words, then stemming
+            if (length > 1 && !isStopWord(buffer, length)) {
+                tokens.add(stem(length));
+            }
+            length = 0;
+        }
+        return tokens;
+    }
+
+    /**
+     * Stem the token in the buffer the same way {@link PorterStemmer#stem(String)} does
+     *
+     * @param length length of the token in the buffer
+     * @return the stem
+     */
+    private String stem(int length) {
+        StemCache cache = stemCache;
+        if (cache != null) {
+            String cached = cache.get(buffer, length);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        String stem;
+        if (porterStemmer.stem(buffer, 0, length)) {
+            stem = porterStemmer.toString();
+        } else {
+            stem = new String(buffer, 0, length);
+        }
+
+        if (cache != null) {
+            cache.put(buffer, length, stem);
+        }
+        return stem;
+    }
+
+    /**
+     * @return the stem cache shared by all threads, or null if caching is disabled
+     */
+    static StemCache getStemCache() {
+        return stemCache;
+    }
+
+    /**
+     * Replace the stem cache shared by all threads, e.g. to resize it or to reset its counters
+     *
+     * @param cache a new cache, or null to disable caching
+     */
+    static void setStemCache(StemCache cache) {
+        stemCache = cache;
+    }
+
+    /**
+     * Check whether the characters are a stop word
+     *
+     * @param chars  buffer of characters
+     * @param length number of characters to be checked
+     * @return true if they are a stop word
+     */
+    private static boolean isStopWord(char[] chars, int length) {
+        int mask = stopWordTable.length - 1;
+        for (int slot = hash(chars, length) & mask; stopWordTable[slot] != null; slot = (slot + 1) & mask) {
+            char[] stopWord = stopWordTable[slot];
+            if (stopWord.length != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && stopWord[i] == chars[i]) {
+                i++;
+            }
+            if (i == length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build the open-addressing table of stop words; the table is at most a quarter full
+     *
+     * @param stopWords set of stop words
+     * @return the table
+     */
+    private static char[][] buildStopWordTable(Set<String> stopWords) {
+        int capacity = 1;
+        while (capacity < stopWords.size() * 4) {
+            capacity <<= 1;
+        }
+        char[][] table = new char[capacity][];
+        for (String stopWord : stopWords) {
+            char[] chars = stopWord.toCharArray();
+            int slot = hash(chars, chars.length) & (capacity - 1);
+            while (table[slot] != null) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            table[slot] = chars;
+        }
+        return table;
+    }
+
+    private static int hash(char[] chars, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,222 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.*;
+
+/**
+ * A bounded collector that keeps only the k best (docId, score) pairs it has been offered.
+ * <p>
+ * Searchers offer only the documents that actually match the query. The pairs are kept in a binary min-heap whose
+ * root is the worst of the current top k, so each offer costs O(log k) instead of sorting the whole corpus.
+ * The ranking is the same as the one the searchers have always used: higher score first, NaN treated as the lowest
+ * positive value, and ties broken by the smaller document Id.
+ */
+class TopKCollector {
+
+    /**
+     * Initial capacity of the heap arrays; they grow up to k on demand so a huge k does not allocate upfront
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Number of results to be kept
+     */
+    private final int k;
+
+    /**
+     * Heap of document Ids; parallel to {@link TopKCollector#scores}
+     */
+    private int[] docIds;
+
+    /**
+     * Heap of scores; parallel to {@link TopKCollector#docIds}
+     */
+    private double[] scores;
+
+    /**
+     * Number of pairs currently in the heap
+     */
+    private int size = 0;
+
+    /**
+     * Instantiate a collector for the top k results
+     *
+     * @param k number of results to be kept
+     */
+    TopKCollector(int k) {
+        this.k = Math.max(k, 0);
+        int capacity = Math.min(this.k, INITIAL_CAPACITY);
+        this.docIds = new int[capacity];
+        this.scores = new double[capacity];
+    }
+
+    /**
+     * Offer a matching document to the collector. It is kept only if it belongs to the current top k.
+     *
+     * @param docId document Id
+     * @param score relevance score of the document
+     */
+    void collect(int docId, double score) {
+        if (k == 0) {
+            return;
+        }
+        if (size < k) {
+            // Not full yet; append to the heap and sift it up
+            if (size == docIds.length) {
+                int capacity = (int) Math.min((long) k, docIds.length * 2L);
+                docIds = Arrays.copyOf(docIds, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+            }
+            docIds[size] = docId;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (isBetter(docId, score, docIds[0], scores[0])) {
+            // Replace the worst of the top k and sift it down
+            docIds[0] = docId;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * @return true if k documents have already been collected
+     */
+    boolean isFull() {
+        return size >= k;
+    }
+
+    /**
+     * The score a new document has to beat to enter the top k.
+     *
+     * @return the score of the worst collected document, or negative infinity if the collector is not full yet
+     */
+    double getThreshold() {
+        return isFull() && k > 0 ? rankingScore(scores[0]) : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * @return number of collected documents
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Finalize the collected pairs into a ranked list of at most k Search Results.
+     * <p>
+     * If fewer than k documents matched, the list is padded with the non-matching documents in ascending Id order
+     * using {@code fillScore}, which is how the full-corpus ranking used to behave. Matching documents always score
+     * higher than {@code fillScore}, so they stay on top.
+     *
+     * @param documentDict mapping between (docId: Int) and (document: Document), ordered by Id
+     * @param fillScore    the score given to non-matching documents (NaN or 0 depending on the searcher)
+     * @return the Final Search Result List
+     */
+    List<SearchResult> finalizeSearchResult(SortedMap<Integer, Document> documentDict, double fillScore) {
+        // Drain the heap from the worst to the best one
+        int collected = size;
+        int[] rankedDocIds = new int[collected];
+        double[] rankedScores = new double[collected];
+        for (int i = collected - 1; i >= 0; i--) {
+            rankedDocIds[i] = docIds[0];
+            rankedScores[i] = scores[0];
+            size--;
+            docIds[0] = docIds[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+
+        int resultSize = (int) Math.min((long) k, documentDict.size());
+        ArrayList<SearchResult> searchResults = new ArrayList<>(Math.max(resultSize, collected));
+        for (int i = 0; i < collected; i++) {
+            searchResults.add(new SearchResult(documentDict.get(rankedDocIds[i]), rankedScores[i]));
+        }
+
+        if (searchResults.size() < resultSize) {
+            // Pad with the lowest non-matching Ids; at most k - 1 Ids were collected, so a sorted copy is cheap
+            int[] collectedDocIds = Arrays.copyOf(rankedDocIds, collected);
+            Arrays.sort(collectedDocIds);
+            for (Document document : documentDict.values()) {
+                if (searchResults.size() >= resultSize) {
+                    break;
+                }
+                if (Arrays.binarySearch(collectedDocIds, document.getId()) < 0) {
+                    searchResults.add(new SearchResult(document, fillScore));
+                }
+            }
+        }
+        return searchResults;
+    }
+
+    /**
+     * Map a score to the value used for ranking; NaN is treated as the lowest positive value.
+     *
+     * @param score raw score
+     * @return score used for ranking
+     */
+    private static double rankingScore(double score) {
+        return Double.isNaN(score) ? Double.MIN_VALUE : score;
+    }
+
+    /**
+     * Check whether a (docId, score) pair ranks strictly higher than another one
+     *
+     * @param docIdA document Id of the first pair
+     * @param scoreA score of the first pair
+     * @param docIdB document Id of the second pair
+     * @param scoreB score of the second pair
+     * @return true if the first pair ranks higher
+     */
+    private static boolean isBetter(int docIdA, double scoreA, int docIdB, double scoreB) {
+        int compare = Double.compare(rankingScore(scoreA), rankingScore(scoreB));
+        if (compare == 0) {
+            return docIdA < docIdB;
+        }
+        return compare > 0;
+    }
+
+    private void siftUp(int i) {
+        int docId = docIds[i];
+        double score = scores[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            // The root must be the worst one, so stop once the parent is already worse
+            if (!isBetter(docIds[parent], scores[parent], docId, score)) {
+                break;
+            }
+            docIds[i] = docIds[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        docIds[i] = docId;
+        scores[i] = score;
+    }
+
+    private void siftDown(int i) {
+        int docId = docIds[i];
+        double score = scores[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && isBetter(docIds[child], scores[child], docIds[right], scores[right])) {
+                child = right;
+            }
+            if (!isBetter(docId, score, docIds[child], scores[child])) {
+                break;
+            }
+            docIds[i] = docIds[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        docIds[i] = docId;
+        scores[i] = score;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+This Code is modified by Section 1 Students of Mahidol University, the Faculty of ICT, 2019
+as part of the second project of ITCS414 - Information Retrieval and Storage.
+
+The group consists of
+    1. Krittin      Chatrinan       ID 6088022
+    2. Anon         Kangpanich      ID 6088053
+    3. Tanawin      Wichit          ID 6088221
+ */
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A class that responsible for the document indexing using TF-IDF Weight with Cosine Similarity.
+ * The term frequencies and the norms come from the {@link CorpusIndex}; Document Vectors are only materialized
+ * for the documents selected by the debugger interface.
+ * Getters are allowed only as we do not allow any reassignments from external classes.
+ */
+class VectorSpaceModelIndexer extends TFIDFSearcher.Indexer {
+
+    /**
+     * Debugging Interface for MyCoolSearcher.Indexer
+     */
+    protected TFIDFSearcher.WeightCalculationListener debuggerInterface;
+
+    /**
+     * Constructor for the MyCoolSearcher.Indexer class; must be instantiate via {@link Builder}
+     */
+    private VectorSpaceModelIndexer(CorpusIndex corpusIndex) {
+        super(corpusIndex);
+    }
+
+    /**
+     * Replay the TF-IDF weight calculation of every document the debugger interface asks for.
+     * The Document Vector is rebuilt from the tokens exactly like the indexing does, so the listener sees
+     * the same vectors and norms that the scores are made of.
+     */
+    private void debugWeightCalculation() {
+        final int totalDocument = corpusIndex.getDocumentCount();
+        final IntIntHashMap termDocFrequency = corpusIndex.getTermDocFrequency();
+
+        for (Document document : corpusIndex.getDocuments()) {
+            if (!debuggerInterface.onLoopIterationCheckCondition(document.getId())) {
+                continue;
+            }
+
+            TFIDFSearcher.DocumentVector vector = new TFIDFSearcher.DocumentVector(document.getId());
+            for (String token : document.getTokens()) {
+                vector.getVector().addTo(corpusIndex.getTermDict().get(token), 1.0);
+            }
+
+            debuggerInterface.onCalculation(vector, totalDocument, termDocFrequency);
+
+            // We calculate TF-IDF Weight and Norm of the vector.
+            calculateTfIdfWeight(vector, totalDocument, termDocFrequency);
+
+            // Calculate the norm and set it to the Document Vector
+            vector.setNorm(TfIdfMathUtil.calculateNorm(vector.getVector()));
+
+            debuggerInterface.onCalculated(vector);
+        }
+    }
+
+    /**
+     * Calculate TF-IDF Weight of the given Document Vector.
+     *
+     * @param dv               a Document Vector which had its Score Map populated by term frequencies
+     * @param totalDocument    total number of documents in the dataset
+     * @param termDocFrequency mapping between term Id and document Frequency
+     */
+    static void calculateTfIdfWeight(TFIDFSearcher.DocumentVector dv, int totalDocument, IntIntHashMap termDocFrequency) {
+        IntDoubleHashMap vector = dv.getVector();
+        // Iterates every Vector in the Map
+        for (int slot = vector.nextSlot(-1); slot >= 0; slot = vector.nextSlot(slot)) {
+            // We get term frequency from the entry (Convert it to an Int)
+            final int termFrequency = (int) vector.valueAt(slot);
+
+            // Calculate Term Frequency (TF) Weight
+            double tfWeight = TfIdfMathUtil.calculateTermFrequency(termFrequency);
+
+            // Calculate Inverted Document Frequency (IDF) Weight
+            double idfWeight = TfIdfMathUtil
+                    .calculateInvertedDocFrequency(totalDocument
+                            , termDocFrequency.get(vector.keyAt(slot)));
+
+            // Actual final score
+            double tfIdfWeight = tfWeight * idfWeight;
+
+            // Set the actual score to the Map
+            vector.setValueAt(slot, tfIdfWeight);
+        }
+    }
+
+    public void setDebuggerInterface(TFIDFSearcher.WeightCalculationListener debuggerInterface) {
+        this.debuggerInterface = debuggerInterface;
+    }
+
+    /**
+     * @return mapping between (docId: Int) and (norm of its Document Vector: Double)
+     */
+    IntDoubleHashMap getDocumentNorms() {
+        return corpusIndex.getDocumentNorms();
+    }
+
+    /**
+     * Builder for the VSM MyCoolSearcher.Indexer
+     */
+    public static class Builder {
+        private final List<Document> documents;
+        private TFIDFSearcher.WeightCalculationListener listener;
+        private ForkJoinPool forkJoinPool;
+        private final CorpusIndex corpusIndex;
+
+        /**
+         * Builder that indexes the documents into a CorpusIndex of its own
+         *
+         * @param documents List of Document Objects
+         * @param stopWords Set of the Stop word; the tokens of the documents are already free of them
+         */
+        public Builder(List<Document> documents, Set<String> stopWords) {
+            this.documents = documents;
+            this.corpusIndex = null;
+        }
+
+        /**
+         * Builder that builds on a shared CorpusIndex
+         *
+         * @param corpusIndex the index of the corpus
+         */
+        Builder(CorpusIndex corpusIndex) {
+            this.documents = null;
+            this.corpusIndex = corpusIndex;
+        }
+
+        public Builder setDebuggerInterface(TFIDFSearcher.WeightCalculationListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Build the index in parallel on the given pool
+         *
+         * @param forkJoinPool a pool, or null to build on the calling thread (default)
+         * @return this Builder
+         */
+        public Builder setForkJoinPool(ForkJoinPool forkJoinPool) {
+            this.forkJoinPool = forkJoinPool;
+            return this;
+        }
+
+        public VectorSpaceModelIndexer build() {
+            VectorSpaceModelIndexer indexer = new VectorSpaceModelIndexer(corpusIndex != null ? corpusIndex
+                    : new CorpusIndex.Builder(documents).setForkJoinPool(forkJoinPool).build());
+            indexer.setDebuggerInterface(listener);
+            if (listener != null) {
+                indexer.debugWeightCalculation();
+            }
+            return indexer;
+        }
+    }
+}
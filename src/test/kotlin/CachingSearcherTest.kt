@@ -0,0 +1,154 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+internal class CachingSearcherTest {
+
+    private val corpusIndex = CorpusIndex.Builder(Searcher.parseDocumentFromFile("./data/LISA/documents.txt")).build()
+    private val queries: List<String> =
+        Searcher.parseDocumentFromFile("./data/LISA/queries.txt").map { it.rawText } + StudentTester.testQueries
+
+    private fun assertSameResults(expected: List<SearchResult>, actual: List<SearchResult>) {
+        assertEquals(expected.map { it.document.id }, actual.map { it.document.id })
+        assertEquals(expected.map { it.score }, actual.map { it.score })
+    }
+
+    @Test
+    fun `Cached results are the results of the searcher`() {
+        val searcher = TFIDFSearcher(corpusIndex)
+        val cache = CachingSearcher(searcher, 1000)
+        for (round in 1..2) {
+            for (query in queries) {
+                assertSameResults(searcher.search(query, 10), cache.search(query, 10))
+            }
+        }
+        // Some queries have the same tokens as an earlier one
+        val distinctQueries = queries.map { Searcher.tokenize(it).sorted() }.distinct().size
+        assertEquals(distinctQueries.toLong(), cache.missCount)
+        assertEquals(2L * queries.size - distinctQueries, cache.hitCount)
+        assertEquals(cache.hitCount.toDouble() / (2 * queries.size), cache.hitRatio)
+    }
+
+    @Test
+    fun `Queries with the same tokens share an entry`() {
+        val cache = CachingSearcher(JaccardSearcher(corpusIndex), 10)
+        val expected = cache.search("Information Retrieval", 10)
+        assertSameResults(expected, cache.search("retrieval, the INFORMATION", 10))
+        assertEquals(1, cache.hitCount)
+
+        // Another k or another token count is another entry
+        cache.search("Information Retrieval", 5)
+        cache.search("information information retrieval", 10)
+        assertEquals(1, cache.hitCount)
+        assertEquals(3, cache.size())
+    }
+
+    @Test
+    fun `Retuning the searcher misses the cache`() {
+        val searcher = MyCoolSearcher(corpusIndex)
+        val cache = CachingSearcher(searcher, 10)
+        val query = queries[0]
+        cache.search(query, 10)
+        searcher.tuningB = 0.3
+        assertSameResults(MyCoolSearcher(corpusIndex, 1.2, 0.3, searcher.tuningK3).search(query, 10), cache.search(query, 10))
+        assertEquals(0, cache.hitCount)
+        assertEquals(listOf<Any>(searcher.tuningK1, 0.3, searcher.tuningK3), cache.rankingParameters)
+    }
+
+    @Test
+    fun `Retuning during concurrent searches never caches results under the wrong tuning`() {
+        val searcher = MyCoolSearcher(corpusIndex)
+        val cache = CachingSearcher(searcher, 1000)
+        val executor = Executors.newFixedThreadPool(3)
+        val retuning = executor.submit {
+            // k1 = 0.1 has no block maxima in the index, so each retuning computes them over every posting
+            for (round in 0 until 10) {
+                searcher.tuningK1 = if (round % 2 == 0) 0.1 else 1.2
+            }
+        }
+        val searches = (0 until 2).map { thread ->
+            executor.submit {
+                while (!retuning.isDone) {
+                    for (i in 0 until 20) {
+                        cache.search(queries[(i + thread * 10) % queries.size], 10)
+                    }
+                }
+            }
+        }
+        retuning.get()
+        searches.forEach { it.get() }
+        executor.shutdown()
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS))
+
+        for (tuningK1 in listOf(0.1, 1.2)) {
+            searcher.tuningK1 = tuningK1
+            val expected = MyCoolSearcher(corpusIndex, tuningK1, searcher.tuningB, searcher.tuningK3)
+            for (query in queries.take(30)) {
+                assertSameResults(expected.search(query, 10), cache.search(query, 10))
+            }
+        }
+    }
+
+    @Test
+    fun `The least recently used entry is evicted`() {
+        val cache = CachingSearcher(TFIDFSearcher(corpusIndex), 2)
+        cache.search("library", 10)
+        cache.search("information", 10)
+        cache.search("library", 10)
+        cache.search("retrieval", 10)   // evicts "information"
+        assertEquals(1, cache.evictionCount)
+        assertEquals(2, cache.size())
+
+        cache.search("library", 10)
+        assertEquals(2, cache.hitCount)
+        cache.search("information", 10)
+        assertEquals(2, cache.hitCount)
+        assertTrue(cache.size() <= cache.capacity())
+    }
+
+    @Test
+    fun `Invalidation drops every entry`() {
+        val cache = CachingSearcher(TFIDFSearcher(corpusIndex), 10)
+        cache.search("library", 10)
+        cache.invalidate()
+        assertEquals(0, cache.size())
+        cache.search("library", 10)
+        assertEquals(0, cache.hitCount)
+        assertEquals(2, cache.missCount)
+    }
+
+    @Test
+    fun `Callers cannot modify the cached results`() {
+        val cache = CachingSearcher(TFIDFSearcher(corpusIndex), 10)
+        val first = cache.search("library", 10)
+        val expected = first.map { it.document.id to it.score }
+        first[0].score = -1.0
+        (first as MutableList).clear()
+        assertEquals(expected, cache.search("library", 10).map { it.document.id to it.score })
+    }
+
+    @Test
+    fun `Concurrent searches get the results of the searcher`() {
+        val searcher = MyCoolSearcher(corpusIndex)
+        val expected = queries.map { searcher.search(it, 10) }
+        val cache = CachingSearcher(searcher, 16)
+        val executor = Executors.newFixedThreadPool(4)
+        val futures = (0 until 4).map { thread ->
+            executor.submit {
+                for (round in 0 until 5) {
+                    for (i in queries.indices) {
+                        val q = (i + thread * 7) % queries.size
+                        assertSameResults(expected[q], cache.search(queries[q], 10))
+                    }
+                }
+            }
+        }
+        futures.forEach { it.get() }
+        executor.shutdown()
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS))
+        assertEquals(4L * 5 * queries.size, cache.hitCount + cache.missCount)
+        assertTrue(cache.size() <= 16)
+    }
+}
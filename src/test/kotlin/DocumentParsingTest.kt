@@ -0,0 +1,27 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+import java.util.concurrent.ForkJoinPool
+
+internal class DocumentParsingTest {
+
+    private val documentFilename = "./data/LISA/documents.txt"
+
+    @Test
+    fun `Parallel parsing keeps file order and tokens`() {
+        val serial = Searcher.parseDocumentFromFile(documentFilename, null)
+        val pool = ForkJoinPool(8)
+        val parallel = try {
+            Searcher.parseDocumentFromFile(documentFilename, pool)
+        } finally {
+            pool.shutdown()
+        }
+
+        assertEquals(serial.size, parallel.size)
+        for (i in serial.indices) {
+            assertEquals(serial[i].id, parallel[i].id)
+            assertEquals(serial[i].rawText, parallel[i].rawText)
+            assertEquals(serial[i].tokens, parallel[i].tokens)
+        }
+    }
+}
@@ -0,0 +1,67 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+
+internal class DocumentStoreTest {
+
+    private val documents: List<Document> = Searcher.parseDocumentFromFile("./data/LISA/documents.txt")
+    private val queries: List<String> = Searcher.parseDocumentFromFile("./data/LISA/queries.txt").map { it.rawText }
+
+    @Test
+    fun `Stored documents keep their text and tokens`() {
+        val store = DocumentStore.write(documents.sortedBy { it.id }, 1000, 2)
+        assertTrue(store.blockCount > 1)
+        assertTrue(store.sizeInBytes() < documents.sumBy { it.rawText.length })
+
+        val storedById = store.documents.associateBy { it.id }
+        assertEquals(documents.size, storedById.size)
+        for (document in documents) {
+            val storedDocument = storedById.getValue(document.id)
+            assertEquals(document.rawText, storedDocument.rawText)
+            assertEquals(document.tokens, storedDocument.tokens)
+            assertEquals(document.toString(), storedDocument.toString())
+        }
+        // Tokens are recomputed, not kept for the lifetime of the store
+        assertTrue(store.documents[0].tokens !== store.documents[0].tokens)
+        assertThrows(UnsupportedOperationException::class.java) { store.documents[0].rawText = "" }
+    }
+
+    @Test
+    fun `Blocks are decompressed once while they stay in the cache`() {
+        val store = DocumentStore.write(documents.sortedBy { it.id }, 4000, 2)
+        val first = store.documents[0]
+        val second = store.documents[1]
+        first.rawText
+        second.rawText
+        first.rawText
+        assertEquals(1, store.missCount)
+        assertEquals(2, store.hitCount)
+
+        // Two other blocks push the first one out
+        store.documents[store.documents.size / 2].rawText
+        store.documents.last().rawText
+        first.rawText
+        assertEquals(4, store.missCount)
+    }
+
+    @Test
+    fun `Searching only decompresses the texts the caller reads`() {
+        val corpusIndex = CorpusIndex.Builder(documents).setStoreDocuments(true).build()
+        val store = (corpusIndex.documents[0] as DocumentStore.StoredDocument).store
+        val plainIndex = CorpusIndex.Builder(documents).build()
+        for (factory in listOf<(CorpusIndex) -> Searcher>({ MyCoolSearcher(it) }, { TFIDFSearcher(it) }, { JaccardSearcher(it) })) {
+            val searcher = factory(corpusIndex)
+            val plainSearcher = factory(plainIndex)
+            for (query in queries.take(20)) {
+                val reads = store.missCount + store.hitCount
+                val results = searcher.search(query, 10)
+                assertEquals(reads, store.missCount + store.hitCount)
+
+                val expected = plainSearcher.search(query, 10)
+                assertEquals(expected.map { it.document.id to it.score }, results.map { it.document.id to it.score })
+                assertEquals(expected.map { it.document.rawText }, results.map { it.document.rawText })
+                assertEquals(reads + 10, store.missCount + store.hitCount)
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+
+internal class DynamicPruningTest {
+
+    private val documents: List<Document> = Searcher.parseDocumentFromFile("./data/LISA/documents.txt")
+    private val queries: List<String> =
+        Searcher.parseDocumentFromFile("./data/LISA/queries.txt").map { it.rawText } + StudentTester.testQueries
+
+    /**
+     * The same model without bounds, which the engine always evaluates exhaustively
+     */
+    private fun exhaustive(similarity: Similarity) = object : Similarity {
+        override fun queryTermWeight(corpusIndex: CorpusIndex, termId: Int, queryTermFreq: Int) =
+            similarity.queryTermWeight(corpusIndex, termId, queryTermFreq)
+
+        override fun termWeight(corpusIndex: CorpusIndex, termId: Int, termFreq: Int, docId: Int) =
+            similarity.termWeight(corpusIndex, termId, termFreq, docId)
+
+        override fun normalize(corpusIndex: CorpusIndex, docId: Int, score: Double, query: QueryEngine.Query) =
+            similarity.normalize(corpusIndex, docId, score, query)
+
+        override fun getFillScore() = similarity.fillScore
+    }
+
+    private fun assertSameTopK(engine: QueryEngine, similarity: Similarity, ks: List<Int>) {
+        val reference = exhaustive(similarity)
+        for (query in queries) {
+            for (k in ks) {
+                val expected = engine.search(query, k, reference)
+                val actual = engine.search(query, k, similarity)
+                assertEquals(expected.map { it.document.id }, actual.map { it.document.id })
+                assertEquals(expected.map { it.score }, actual.map { it.score })
+            }
+        }
+    }
+
+    @Test
+    fun `Pruned BM25 returns exactly the exhaustive top k`() {
+        val engine = QueryEngine(CorpusIndex.Builder(documents).build())
+        for ((k1, b) in listOf(1.2 to 0.75, 0.5 to 0.0, 2.0 to 1.0)) {
+            assertSameTopK(engine, BM25Similarity(k1, b, 2.0), listOf(1, 10, 100))
+        }
+        // Tunings without a valid bound fall back to the exhaustive evaluation
+        assertSameTopK(engine, BM25Similarity(-1.0, 0.75, 2.0), listOf(10))
+    }
+
+    @Test
+    fun `Block-max BM25 returns exactly the exhaustive top k`() {
+        val corpusIndex = CorpusIndex.Builder(documents).build()
+        val engine = QueryEngine(corpusIndex)
+        // The default tuning uses the block maxima of the index, the others compute their own
+        for ((k1, b) in listOf(1.2 to 0.75, 0.5 to 0.0, 2.0 to 1.0)) {
+            assertSameTopK(engine, BM25Similarity(k1, b, 2.0, corpusIndex), listOf(1, 10, 100))
+        }
+    }
+
+    @Test
+    fun `Block maxima bound every BM25 weight of their block`() {
+        val corpusIndex = CorpusIndex.Builder(documents).build()
+        val similarity = BM25Similarity(1.2, 0.75, 2.0)
+        val blockMaxScores = corpusIndex.blockMaxScores
+        for (termId in 1..corpusIndex.termCount) {
+            val cursor = corpusIndex.openCursor(termId)
+            var position = 0
+            while (cursor.docId() != PostingList.NO_MORE_DOCS) {
+                val weight = similarity.termWeight(corpusIndex, termId, cursor.termFrequency(), cursor.docId())
+                val block = position++ / PostingList.BLOCK_SIZE
+                assertTrue(weight <= blockMaxScores.getBlockUpperBound(termId, block))
+                assertTrue(blockMaxScores.getBlockUpperBound(termId, block) <= blockMaxScores.getTermUpperBound(termId))
+                cursor.nextDoc()
+            }
+        }
+    }
+
+    @Test
+    fun `Ties on the threshold keep the smaller document Ids`() {
+        // Every document twice, so every score is tied with another document
+        val twice = documents + documents.map { Document(it.id + 100000, it.rawText, it.tokens) }
+        val engine = QueryEngine(CorpusIndex.Builder(twice).build())
+        assertSameTopK(engine, BM25Similarity(1.2, 0.75, 2.0), listOf(1, 5, 10))
+    }
+
+    private fun assertSameJaccardTopK(corpusIndex: CorpusIndex, queries: List<String>, ks: List<Int>) {
+        val engine = QueryEngine(corpusIndex)
+        val topKEngine = JaccardTopKEngine(engine, JaccardSimilarity(corpusIndex))
+        for (query in queries) {
+            for (k in ks) {
+                val expected = engine.search(query, k, JaccardSimilarity())
+                val actual = topKEngine.search(query, k)
+                assertEquals(expected.map { it.document.id }, actual.map { it.document.id })
+                assertEquals(expected.map { it.score }, actual.map { it.score })
+            }
+        }
+    }
+
+    @Test
+    fun `Length and prefix filtered Jaccard returns exactly the exhaustive top k`() {
+        val shortQueries = listOf("information retrieval", "library", "books online", "xyzzy library", "")
+        assertSameJaccardTopK(CorpusIndex.Builder(documents).build(), queries + shortQueries, listOf(0, 1, 10, 100))
+    }
+
+    @Test
+    fun `Filtered Jaccard keeps the smaller document Ids on ties and handles sparse Ids`() {
+        // Every document twice, so every score is tied with another document
+        val twice = documents + documents.map { Document(it.id + 100000, it.rawText, it.tokens) }
+        assertSameJaccardTopK(CorpusIndex.Builder(twice).build(), queries, listOf(1, 5, 10))
+
+        // Ids too sparse for the accumulator fall back to the query engine
+        val sparse = documents.take(100).map { Document(it.id * 1000000, it.rawText, it.tokens) }
+        assertSameJaccardTopK(CorpusIndex.Builder(sparse).build(), queries, listOf(10))
+    }
+}
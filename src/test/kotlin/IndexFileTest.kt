@@ -0,0 +1,141 @@
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.file.Files
+import java.nio.file.Path
+
+internal class IndexFileTest {
+
+    private val documentFilename = "./data/LISA/documents.txt"
+    private val queries = Searcher.parseDocumentFromFile("./data/LISA/queries.txt")
+    private val indexPath: Path = Files.createTempFile("index", ".bin")
+
+    @AfterEach
+    fun deleteIndexFile() {
+        indexPath.toFile().delete()
+    }
+
+    private fun assertSameResults(expected: Searcher, actual: Searcher) {
+        for (query in queries) {
+            val expectedResults = expected.search(query.rawText, 20)
+            val actualResults = actual.search(query.rawText, 20)
+            assertEquals(expectedResults.map { it.document.id }, actualResults.map { it.document.id })
+            assertEquals(expectedResults.map { it.score }, actualResults.map { it.score })
+            assertEquals(expectedResults.map { it.document.rawText }, actualResults.map { it.document.rawText })
+        }
+    }
+
+    @Test
+    fun `Searchers on an index file rank exactly like searchers on the documents`() {
+        IndexFile.write(indexPath, Searcher.parseDocumentFromFile(documentFilename))
+        val corpusIndex = CorpusIndex.load(IndexFile.open(indexPath))
+
+        assertSameResults(JaccardSearcher(documentFilename), JaccardSearcher(corpusIndex))
+        assertSameResults(TFIDFSearcher(documentFilename), TFIDFSearcher(corpusIndex))
+        assertSameResults(MyCoolSearcher(documentFilename), MyCoolSearcher(corpusIndex))
+    }
+
+    @Test
+    fun `Stored documents keep their text and tokens`() {
+        val documents = Searcher.parseDocumentFromFile(documentFilename)
+        IndexFile.write(indexPath, documents)
+        val stored = IndexFile.open(indexPath).documents
+
+        assertEquals(documents.size, stored.size)
+        val storedById = stored.associateBy { it.id }
+        for (document in documents) {
+            val storedDocument = storedById.getValue(document.id)
+            assertEquals(document.rawText, storedDocument.rawText)
+            assertEquals(document.tokens, storedDocument.tokens)
+            assertEquals(document.toString(), storedDocument.toString())
+        }
+    }
+
+    @Test
+    fun `Block maxima are loaded instead of recomputed`() {
+        val documents = Searcher.parseDocumentFromFile(documentFilename)
+        IndexFile.write(indexPath, documents)
+        val built = CorpusIndex.Builder(documents).build()
+        val loaded = CorpusIndex.load(IndexFile.open(indexPath))
+        assertEquals(built.termCount, loaded.termCount)
+        for (termId in 1..built.termCount) {
+            assertEquals(built.blockMaxScores.getBlockUpperBounds(termId).toList(), loaded.blockMaxScores.getBlockUpperBounds(termId).toList())
+        }
+    }
+
+    @Test
+    fun `Corrupted index files are rejected`() {
+        IndexFile.write(indexPath, Searcher.parseDocumentFromFile(documentFilename))
+
+        // Flip one byte in the middle of the postings
+        RandomAccessFile(indexPath.toFile(), "rw").use { file ->
+            file.seek(file.length() / 2)
+            val b = file.read()
+            file.seek(file.length() / 2)
+            file.write(b xor 0xFF)
+        }
+        // Only the header is checked unless the checksum is asked for
+        IndexFile.open(indexPath)
+        assertThrows(IOException::class.java) { IndexFile.open(indexPath, true) }
+
+        // The checksum covers the header too, here the average document length
+        IndexFile.write(indexPath, Searcher.parseDocumentFromFile(documentFilename))
+        RandomAccessFile(indexPath.toFile(), "rw").use { file ->
+            file.seek(28)
+            val b = file.read()
+            file.seek(28)
+            file.write(b xor 0xFF)
+        }
+        IndexFile.open(indexPath)
+        assertThrows(IOException::class.java) { IndexFile.open(indexPath, true) }
+    }
+
+    @Test
+    fun `A loaded index reads its tables from the file`() {
+        val documents = Searcher.parseDocumentFromFile(documentFilename)
+        IndexFile.write(indexPath, documents)
+        val built = CorpusIndex.Builder(documents).build()
+        val loaded = CorpusIndex.load(IndexFile.open(indexPath, true))
+
+        assertEquals(built.termDict, loaded.termDict)
+        assertNull(loaded.termDict["no such term"])
+        for (termId in 1..built.termCount) {
+            assertEquals(built.termDocFrequency.get(termId), loaded.termDocFrequency.get(termId))
+            assertEquals(built.termIdfScore.get(termId), loaded.termIdfScore.get(termId))
+            assertArrayEquals(built.postingLists.get(termId).toDocIdArray(), loaded.postingLists.get(termId).toDocIdArray())
+        }
+        assertEquals(built.documentDict.keys.toList(), loaded.documentDict.keys.toList())
+        assertEquals(built.documentDict.firstKey(), loaded.documentDict.firstKey())
+        assertEquals(built.documentDict.lastKey(), loaded.documentDict.lastKey())
+        for (key in listOf(-1, 0, 1, 100, 2500, built.maxDocId, built.maxDocId + 1)) {
+            assertEquals(built.documentDict.headMap(key).keys.toList(), loaded.documentDict.headMap(key).keys.toList())
+            assertEquals(built.documentDict.tailMap(key).keys.toList(), loaded.documentDict.tailMap(key).keys.toList())
+            assertEquals(built.documentDict.subMap(100, key.coerceAtLeast(100)).keys.toList(),
+                    loaded.documentDict.subMap(100, key.coerceAtLeast(100)).keys.toList())
+        }
+        for (document in documents) {
+            assertEquals(document.rawText, loaded.documentDict.getValue(document.id).rawText)
+            assertEquals(built.documentNorms.get(document.id), loaded.documentNorms.get(document.id))
+            assertEquals(built.documentLengthMap.get(document.id), loaded.documentLengthMap.get(document.id))
+        }
+        assertEquals(built.maxDocId, loaded.maxDocId)
+        assertThrows(UnsupportedOperationException::class.java) { loaded.termIdfScore.put(1, 0.0) }
+    }
+
+    @Test
+    fun `Other versions and other files are rejected`() {
+        IndexFile.write(indexPath, Searcher.parseDocumentFromFile(documentFilename))
+        RandomAccessFile(indexPath.toFile(), "rw").use { file ->
+            file.seek(4)
+            file.writeInt(IndexFile.VERSION + 1)
+        }
+        val versionError = assertThrows(IOException::class.java) { IndexFile.open(indexPath) }
+        assertTrue(versionError.message!!.contains("version"))
+
+        Files.write(indexPath, ByteArray(100))
+        assertThrows(IOException::class.java) { IndexFile.open(indexPath) }
+    }
+}
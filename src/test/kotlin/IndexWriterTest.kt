@@ -0,0 +1,205 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.TimeUnit
+
+internal class IndexWriterTest {
+
+    private val documents: List<Document> = Searcher.parseDocumentFromFile("./data/LISA/documents.txt")
+    private val queries: List<String> = Searcher.parseDocumentFromFile("./data/LISA/queries.txt").map { it.rawText }
+
+    /**
+     * The ranking of a searcher over one index of the documents; the scores of the segments may only differ in rounding
+     */
+    private fun assertRanksLikeOneIndex(expected: List<Document>, searcher: Searcher, factory: (CorpusIndex) -> Searcher) {
+        val reindexed = factory(CorpusIndex.Builder(expected.sortedBy { it.id }).build())
+        for (query in queries) {
+            val expectedResults = reindexed.search(query, 10)
+            val actualResults = searcher.search(query, 10)
+            assertEquals(expectedResults.map { it.document.id }, actualResults.map { it.document.id })
+            for ((e, a) in expectedResults.zip(actualResults)) {
+                assertTrue(e.score.isNaN() && a.score.isNaN() || Math.abs(e.score - a.score) <= 1e-9 * Math.abs(e.score))
+            }
+        }
+    }
+
+    @Test
+    fun `Documents added one at a time rank like one index of them`() {
+        for (factory in listOf<(CorpusIndex) -> Searcher>({ MyCoolSearcher(it) }, { TFIDFSearcher(it) }, { JaccardSearcher(it) })) {
+            val writer = IndexWriter.Builder(factory).setMaxBufferedDocuments(500).setSegmentsPerTier(4)
+                .setMaxNormStaleness(0.0).build()
+            documents.forEach { writer.addDocument(it) }
+            writer.refresh()
+            assertTrue(writer.segmentCount in 2..8)
+            assertEquals(documents.size, writer.documentCount)
+            assertRanksLikeOneIndex(documents, writer.searcher, factory)
+        }
+    }
+
+    @Test
+    fun `Deleted and replaced documents are not found`() {
+        val initial = CorpusIndex.Builder(documents).build()
+        val writer = IndexWriter.Builder { MyCoolSearcher(it) }.setInitialIndex(initial).setMaxBufferedDocuments(100).build()
+        val deletedIds = documents.filterIndexed { i, _ -> i % 7 == 0 }.map { it.id }
+        deletedIds.forEach { assertTrue(writer.deleteDocument(it)) }
+        assertFalse(writer.deleteDocument(deletedIds[0]))
+
+        // Replace some documents by themselves followed by the text of another one
+        val replaced = documents.filterIndexed { i, _ -> i % 11 == 1 && i % 7 != 0 }.map {
+            val other = documents[(it.id * 31) % documents.size]
+            Document(it.id, it.rawText + " " + other.rawText, it.tokens + other.tokens)
+        }
+        writer.addDocuments(replaced)
+        writer.refresh()
+
+        val replacedById = replaced.associateBy { it.id }
+        val expected = documents.filter { it.id !in deletedIds }.map { replacedById[it.id] ?: it }
+        assertEquals(expected.size, writer.documentCount)
+        assertRanksLikeOneIndex(expected, writer.searcher, { MyCoolSearcher(it) })
+    }
+
+    @Test
+    fun `Merges keep the number of segments small and drop the deleted documents`() {
+        val writer = IndexWriter.Builder { TFIDFSearcher(it) }.setMaxBufferedDocuments(50).setSegmentsPerTier(3)
+            .setMaxNormStaleness(0.0).build()
+        documents.forEach { writer.addDocument(it) }
+        writer.refresh()
+        // With 3 segments per tier, every tier holds at most 2 segments once the merges are done
+        assertTrue(writer.segmentCount <= 2 * 6, "segments: " + writer.segmentCount)
+
+        val deletedIds = documents.take(documents.size / 2).map { it.id }
+        deletedIds.forEach { writer.deleteDocument(it) }
+        writer.refresh()
+        val views = writer.searcher.reader.segments
+        assertEquals(documents.size - deletedIds.size, views.sumBy { it.corpusIndex.documents.size - it.deletedCount })
+        // The views share the statistics of the collection
+        assertTrue(views.all { it.corpusIndex.termDocFrequency === views[0].corpusIndex.termDocFrequency })
+        assertTrue(views.all { it.corpusIndex.termIdfScore === views[0].corpusIndex.termIdfScore })
+        assertRanksLikeOneIndex(documents.drop(documents.size / 2), writer.searcher, { TFIDFSearcher(it) })
+    }
+
+    @Test
+    fun `Refreshes reuse what the searchers derive from a segment`() {
+        val initial = CorpusIndex.Builder(documents.take(5000)).build()
+        for (factory in listOf<(CorpusIndex) -> Searcher>({ MyCoolSearcher(it) }, { JaccardSearcher(it) })) {
+            val writer = IndexWriter.Builder(factory).setInitialIndex(initial).setRefreshInterval(0).build()
+            writer.addDocument(documents[5000])
+            writer.addDocument(documents[5001])
+            // The views of the initial segment are new on every refresh, but its data was computed for the first one
+            val view = writer.searcher.reader.segments.single { it.corpusIndex.documents.size == 5000 }.corpusIndex
+            assertTrue(view.isSegmentView)
+            val key = if (factory(view) is MyCoolSearcher) BM25Similarity.BlockStatistics::class.java
+            else JaccardTopKEngine.BucketedPostings::class.java
+            assertNotNull(view.getSegmentData<Any>(key) { throw AssertionError("computed again") })
+            assertRanksLikeOneIndex(documents.take(5002), writer.searcher, factory)
+        }
+    }
+
+    @Test
+    fun `Changes become visible as configured`() {
+        val manual = IndexWriter.Builder { MyCoolSearcher(it) }.build()
+        manual.addDocuments(documents.take(10))
+        assertTrue(manual.searcher.search("library", 10).isEmpty())
+        manual.refresh()
+        assertEquals(10, manual.searcher.search("library", 10).size)
+        assertEquals(listOf<Any>(1L), manual.searcher.rankingParameters)
+
+        val immediate = IndexWriter.Builder { MyCoolSearcher(it) }.setRefreshInterval(0).build()
+        immediate.addDocument(documents[0])
+        assertEquals(listOf(documents[0].id), immediate.searcher.search("library", 10).map { it.document.id })
+        immediate.deleteDocument(documents[0].id)
+        assertTrue(immediate.searcher.search("library", 10).isEmpty())
+
+        val periodic = IndexWriter.Builder { MyCoolSearcher(it) }.setRefreshInterval(10).build()
+        periodic.addDocuments(documents.take(10))
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+        while (periodic.searcher.reader.documentCount < 10 && System.nanoTime() < deadline) {
+            Thread.sleep(5)
+        }
+        assertEquals(10, periodic.searcher.reader.documentCount)
+        periodic.close()
+        assertThrows(IllegalStateException::class.java) { periodic.addDocument(documents[11]) }
+    }
+
+    @Test
+    fun `Documents deleted during a background merge stay deleted`() {
+        val pool = ForkJoinPool(1)
+        try {
+            val blocked = CountDownLatch(1)
+            val release = CountDownLatch(1)
+            pool.execute {
+                blocked.countDown()
+                release.await()
+            }
+            blocked.await()
+
+            val writer = IndexWriter.Builder { MyCoolSearcher(it) }.setMaxBufferedDocuments(100).setSegmentsPerTier(2)
+                .setForkJoinPool(pool).build()
+            documents.take(400).forEach { writer.addDocument(it) }
+            // Both merges of the first tier are queued behind the blocking task
+            val deletedIds = documents.take(400).filterIndexed { i, _ -> i % 3 == 0 }.map { it.id }
+            deletedIds.forEach { writer.deleteDocument(it) }
+            release.countDown()
+            writer.waitForMerges()
+            writer.refresh()
+
+            assertTrue(writer.segmentCount < 4)
+            assertRanksLikeOneIndex(documents.take(400).filter { it.id !in deletedIds }, writer.searcher, { MyCoolSearcher(it) })
+            writer.close()
+        } finally {
+            pool.shutdown()
+        }
+    }
+
+    @Test
+    fun `Query-time IDF ranks like the stored TF-IDF weights`() {
+        val index = CorpusIndex.Builder(documents).build()
+        val stored = TFIDFSearcher(index)
+        val queryTime = TFIDFSearcher(index, true)
+        for (query in queries) {
+            val expectedResults = stored.search(query, 10)
+            val actualResults = queryTime.search(query, 10)
+            assertEquals(expectedResults.map { it.document.id }, actualResults.map { it.document.id })
+            for ((e, a) in expectedResults.zip(actualResults)) {
+                assertTrue(e.score.isNaN() && a.score.isNaN() || Math.abs(e.score - a.score) <= 1e-9 * Math.abs(e.score))
+            }
+        }
+    }
+
+    @Test
+    fun `Norms are reused until they are too stale, then recomputed in the background`() {
+        val pool = ForkJoinPool(2)
+        try {
+            val writer = IndexWriter.Builder { TFIDFSearcher(it, true) }.setMaxBufferedDocuments(1000).setMaxNormStaleness(0.05)
+                .setForkJoinPool(pool).build()
+            val first = documents.take(5000)
+            writer.addDocuments(first)
+            writer.refresh()
+            writer.waitForMerges()
+            writer.refresh()
+            assertRanksLikeOneIndex(first, writer.searcher, { TFIDFSearcher(it, true) })
+
+            // Fewer changes than the bound keep the norms of the first segment as they were
+            val docId = first[0].id
+            val norm = writer.searcher.reader.segments[0].corpusIndex.documentNorms.get(docId)
+            writer.addDocuments(documents.subList(5000, 5200))
+            writer.refresh()
+            writer.waitForMerges()
+            assertEquals(norm, writer.searcher.reader.segments[0].corpusIndex.documentNorms.get(docId))
+            val exactNorm = CorpusIndex.Builder(documents.take(5200)).build().documentNorms.get(docId)
+            assertTrue(Math.abs(norm - exactNorm) > 1e-9 * exactNorm)
+
+            // More changes than the bound have them recomputed
+            writer.addDocuments(documents.drop(5200))
+            writer.refresh()
+            writer.waitForMerges()
+            writer.refresh()
+            assertRanksLikeOneIndex(documents, writer.searcher, { TFIDFSearcher(it, true) })
+            writer.close()
+        } finally {
+            pool.shutdown()
+        }
+    }
+}
@@ -0,0 +1,66 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+import java.util.*
+
+internal class IntHashMapTest {
+
+    @Test
+    fun `IntIntHashMap behaves like HashMap`() {
+        val random = Random(414)
+        val expected = HashMap<Int, Int>()
+        val actual = IntIntHashMap()
+        for (i in 0 until 100000) {
+            // Include 0 and negative keys, which take the special paths
+            val key = random.nextInt(20000) - 10000
+            val increment = random.nextInt(5)
+            expected[key] = (expected[key] ?: 0) + increment
+            assertEquals(expected[key]!!, actual.addTo(key, increment))
+        }
+        assertEquals(expected.size, actual.size())
+        for ((key, value) in expected) {
+            assertTrue(actual.containsKey(key))
+            assertEquals(value, actual.get(key))
+        }
+        assertFalse(actual.containsKey(10001))
+        assertEquals(-1, actual.getOrDefault(10001, -1))
+
+        // Slot iteration visits every key exactly once
+        val visited = HashSet<Int>()
+        var slot = actual.nextSlot(-1)
+        while (slot >= 0) {
+            assertTrue(visited.add(actual.keyAt(slot)))
+            assertEquals(expected[actual.keyAt(slot)]!!, actual.valueAt(slot))
+            slot = actual.nextSlot(slot)
+        }
+        assertEquals(expected.keys, visited)
+        assertEquals(expected.keys.sorted(), actual.sortedKeys().toList())
+    }
+
+    @Test
+    fun `IntDoubleHashMap and IntObjectHashMap keep values across growth`() {
+        val doubles = IntDoubleHashMap()
+        val objects = IntObjectHashMap<String>()
+        for (key in 0 until 5000) {
+            doubles.put(key, key / 2.0)
+            objects.put(key, "v$key")
+        }
+        for (key in 0 until 5000) {
+            assertEquals(key / 2.0, doubles.get(key))
+            assertEquals("v$key", objects.get(key))
+        }
+        assertNull(objects.get(5000))
+        assertTrue(doubles.getOrDefault(5000, Double.NaN).isNaN())
+    }
+
+    @Test
+    fun `IntHashSet add reports new keys only`() {
+        val set = IntHashSet()
+        assertTrue(set.add(0))
+        assertFalse(set.add(0))
+        assertTrue(set.add(7))
+        assertTrue(set.contains(7))
+        assertFalse(set.contains(8))
+        assertEquals(2, set.size())
+    }
+}
@@ -0,0 +1,67 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+
+internal class MinHashIndexTest {
+
+    private val corpusIndex = CorpusIndex.Builder(Searcher.parseDocumentFromFile("./data/LISA/documents.txt")).build()
+    private val queries: List<Document> = Searcher.parseDocumentFromFile("./data/LISA/queries.txt")
+
+    private fun jaccard(queryString: String, document: Document): Double {
+        val queryTokens = Searcher.tokenize(queryString).toSet()
+        val documentTokens = document.tokens.toSet()
+        val union = (queryTokens + documentTokens).size
+        return if (union == 0) 0.0 else (queryTokens intersect documentTokens).size.toDouble() / union
+    }
+
+    @Test
+    fun `Verified candidates get their exact Jaccard Coefficient`() {
+        val searcher = JaccardSearcher(corpusIndex, 128, 64, true)
+        for (query in queries) {
+            val results = searcher.search(query.rawText, 10)
+            assertEquals(10, results.size)
+            for (result in results) {
+                assertEquals(jaccard(query.rawText, result.document), result.score, 1e-12)
+            }
+            assertEquals(results.sortedWith(compareByDescending<SearchResult> { it.score }.thenBy { it.document.id }), results)
+        }
+    }
+
+    @Test
+    fun `A document is found by its own text`() {
+        // Identical term sets agree on every band, so the estimate is exact
+        val searcher = JaccardSearcher(corpusIndex, 64, 16, false)
+        for (document in corpusIndex.documents.take(200).filter { it.tokens.isNotEmpty() }) {
+            val top = searcher.search(document.rawText, 1).single()
+            assertEquals(1.0, top.score)
+            assertEquals(document.tokens.toSet(), top.document.tokens.toSet())
+        }
+    }
+
+    @Test
+    fun `Recall loss is measured against the exact top k`() {
+        val evaluator = SearcherEvaluator("./data/LISA")
+        val exact = JaccardSearcher(corpusIndex)
+        assertEquals(0.0, evaluator.getRecallLoss(exact, exact, 10))
+
+        val estimatedLoss = evaluator.getRecallLoss(JaccardSearcher(corpusIndex, 128, 64, false), exact, 10)
+        val verifiedLoss = evaluator.getRecallLoss(JaccardSearcher(corpusIndex, 128, 64, true), exact, 10)
+        assertTrue(estimatedLoss in 0.0..1.0)
+        // The same candidates ranked exactly can only find more of the exact top k
+        assertTrue(verifiedLoss <= estimatedLoss)
+
+        // Results padded with a zero score were not found, even when they are the exact ones
+        val padding = object : Searcher(corpusIndex.documents) {
+            override fun search(queryString: String, k: Int) = exact.search(queryString, k).map { SearchResult(it.document, 0.0) }
+        }
+        assertEquals(evaluator.getRecallLoss(object : Searcher(corpusIndex.documents) {
+            override fun search(queryString: String, k: Int) = emptyList<SearchResult>()
+        }, exact, 10), evaluator.getRecallLoss(padding, exact, 10))
+    }
+
+    @Test
+    fun `Bands must divide the signature`() {
+        assertThrows(IllegalArgumentException::class.java) { JaccardSearcher(corpusIndex, 100, 3, false) }
+        assertThrows(IllegalArgumentException::class.java) { JaccardSearcher(corpusIndex, 0, 1, false) }
+    }
+}
@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+
+internal class NearDuplicatesTest {
+
+    private val documents: List<Document> = Searcher.parseDocumentFromFile("./data/LISA/documents.txt")
+
+    private fun jaccard(a: Document, b: Document): Double {
+        val aTokens = a.tokens.toSet()
+        val bTokens = b.tokens.toSet()
+        return (aTokens intersect bTokens).size.toDouble() / (aTokens + bTokens).size
+    }
+
+    /**
+     * Every document again under a larger Id, without one of its tokens if it has more than 20
+     */
+    private fun withNearCopies(): List<Document> =
+        documents + documents.map { document ->
+            val tokens = document.tokens.toMutableList()
+            if (tokens.size > 20) {
+                tokens.removeAt(tokens.size / 2)
+            }
+            Document(document.id + 100000, document.rawText, tokens)
+        }
+
+    @Test
+    fun `Copies collapse into the document with the smaller Id`() {
+        val nearDuplicates = NearDuplicates.collapse(withNearCopies(), 1.0)
+        val original = NearDuplicates.collapse(documents, 1.0)
+
+        // The copies that kept all their distinct tokens are dropped, the originals are kept in order
+        val canonicalIds = nearDuplicates.canonicalDocuments.map { it.id }
+        assertEquals(original.canonicalDocuments.map { it.id }, canonicalIds.filter { it < 100000 })
+        for (document in documents.filter { it.id in canonicalIds && it.tokens.isNotEmpty() }) {
+            val copy = document.id + 100000
+            assertEquals(copy !in canonicalIds, copy in nearDuplicates.getDuplicateIds(document.id))
+        }
+    }
+
+    @Test
+    fun `Duplicates are at least as similar as the threshold to their canonical document`() {
+        val corpus = withNearCopies()
+        val byId = corpus.associateBy { it.id }
+        val nearDuplicates = NearDuplicates.collapse(corpus, 0.8)
+        assertTrue(nearDuplicates.collapsedCount >= documents.size * 9 / 10)
+
+        var collapsed = 0
+        for (canonical in nearDuplicates.canonicalDocuments) {
+            val duplicateIds = nearDuplicates.getDuplicateIds(canonical.id)
+            assertEquals(duplicateIds.sorted(), duplicateIds.toList())
+            for (duplicateId in duplicateIds) {
+                assertTrue(duplicateId > canonical.id)
+                assertTrue(jaccard(canonical, byId.getValue(duplicateId)) >= 0.8)
+            }
+            collapsed += duplicateIds.size
+        }
+        assertEquals(nearDuplicates.collapsedCount, collapsed)
+        assertEquals(corpus.size, nearDuplicates.canonicalDocuments.size + collapsed)
+    }
+
+    @Test
+    fun `A corpus collapsed from exact copies ranks like the corpus without them`() {
+        val copies = documents.map { Document(it.id + 100000, it.rawText, it.tokens) }
+        val collapsed = CorpusIndex.Builder(NearDuplicates.collapse(documents + copies, 1.0).canonicalDocuments).build()
+        val original = CorpusIndex.Builder(NearDuplicates.collapse(documents, 1.0).canonicalDocuments).build()
+
+        val collapsedSearcher = MyCoolSearcher(collapsed)
+        val originalSearcher = MyCoolSearcher(original)
+        for (query in Searcher.parseDocumentFromFile("./data/LISA/queries.txt")) {
+            val expected = originalSearcher.search(query.rawText, 10)
+            val actual = collapsedSearcher.search(query.rawText, 10)
+            assertEquals(expected.map { it.document.id }, actual.map { it.document.id })
+            assertEquals(expected.map { it.score }, actual.map { it.score })
+        }
+    }
+
+    @Test
+    fun `Thresholds must be in the unit interval`() {
+        assertThrows(IllegalArgumentException::class.java) { NearDuplicates.collapse(documents, 0.0) }
+        assertThrows(IllegalArgumentException::class.java) { NearDuplicates.collapse(documents, 1.5) }
+    }
+}
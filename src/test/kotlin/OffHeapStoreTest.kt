@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+import java.nio.file.Files
+import java.nio.file.Path
+
+internal class OffHeapStoreTest {
+
+    private val documents: List<Document> = Searcher.parseDocumentFromFile("./data/LISA/documents.txt")
+    private val queries: List<String> = Searcher.parseDocumentFromFile("./data/LISA/queries.txt").map { it.rawText }
+    private val storePath: Path = Files.createTempFile("store", ".bin")
+
+    @AfterEach
+    fun deleteStoreFile() {
+        storePath.toFile().delete()
+    }
+
+    /**
+     * The searchers score from the postings instead of the arrays they precompute on the heap; the sums may only
+     * differ in rounding
+     */
+    private fun assertSameRanking(expected: Searcher, actual: Searcher) {
+        for (query in queries) {
+            val expectedResults = expected.search(query, 20)
+            val actualResults = actual.search(query, 20)
+            assertEquals(expectedResults.map { it.document.id }, actualResults.map { it.document.id })
+            for ((e, a) in expectedResults.zip(actualResults)) {
+                assertTrue(e.score.isNaN() && a.score.isNaN() || Math.abs(e.score - a.score) <= 1e-9 * Math.abs(e.score))
+            }
+        }
+    }
+
+    @Test
+    fun `Searchers on an off-heap index rank like searchers on the heap`() {
+        val onHeap = CorpusIndex.Builder(documents).build()
+        for (offHeap in listOf(CorpusIndex.Builder(documents).setOffHeap(true).build(),
+            CorpusIndex.Builder(documents).setOffHeapFile(storePath).build())) {
+            assertTrue(offHeap.isOffHeap)
+            assertSameRanking(JaccardSearcher(onHeap), JaccardSearcher(offHeap))
+            assertSameRanking(TFIDFSearcher(onHeap), TFIDFSearcher(offHeap))
+            assertSameRanking(TFIDFSearcher(onHeap), TFIDFSearcher(offHeap, true))
+            assertSameRanking(MyCoolSearcher(onHeap), MyCoolSearcher(offHeap))
+        }
+    }
+
+    @Test
+    fun `The store reads back the document table and the posting lists`() {
+        val onHeap = CorpusIndex.Builder(documents).build()
+        val offHeap = onHeap.offHeap(null)
+        assertFalse(onHeap.isOffHeap)
+
+        assertEquals(onHeap.documentNorms.size(), offHeap.documentNorms.size())
+        assertArrayEquals(onHeap.documentLengthMap.sortedKeys(), offHeap.documentLengthMap.sortedKeys())
+        for (document in documents) {
+            assertEquals(onHeap.documentLengthMap.get(document.id), offHeap.documentLengthMap.get(document.id))
+            assertEquals(onHeap.documentNorms.get(document.id), offHeap.documentNorms.get(document.id))
+            assertEquals(onHeap.documentTermCounts.get(document.id), offHeap.documentTermCounts.get(document.id))
+        }
+        assertFalse(offHeap.documentNorms.containsKey(-1))
+        assertEquals(-7, offHeap.documentLengthMap.getOrDefault(-1, -7))
+
+        assertEquals(onHeap.termCount, offHeap.postingLists.size())
+        for (termId in 1..onHeap.termCount) {
+            assertArrayEquals(onHeap.postingLists.get(termId).toDocIdArray(), offHeap.postingLists.get(termId).toDocIdArray())
+        }
+        assertNull(offHeap.postingLists.get(onHeap.termCount + 1))
+        assertNull(offHeap.getLogTfWeights(1))
+
+        assertThrows(UnsupportedOperationException::class.java) { offHeap.documentNorms.put(documents[0].id, 1.0) }
+        assertThrows(UnsupportedOperationException::class.java) { offHeap.documentLengthMap.addTo(documents[0].id, 1) }
+    }
+}
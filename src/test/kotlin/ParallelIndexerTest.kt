@@ -0,0 +1,68 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+import java.util.concurrent.ForkJoinPool
+
+internal class ParallelIndexerTest {
+
+    private val documents: List<Document> = Searcher.parseDocumentFromFile("./data/LISA/documents.txt")
+
+    private fun buildInParallel(): CorpusIndex {
+        val pool = ForkJoinPool(4)
+        try {
+            return CorpusIndex.Builder(documents).setForkJoinPool(pool).build()
+        } finally {
+            pool.shutdown()
+        }
+    }
+
+    @Test
+    fun `Parallel build is identical to the sequential build`() {
+        val sequential = CorpusIndex.Builder(documents).build()
+        val parallel = buildInParallel()
+
+        assertEquals(sequential.termDict, parallel.termDict)
+        assertEquals(sequential.totalTermFrequency, parallel.totalTermFrequency)
+        assertEquals(sequential.averageDocumentLength, parallel.averageDocumentLength)
+        for (termId in sequential.termDict.values) {
+            assertEquals(sequential.termDocFrequency.get(termId), parallel.termDocFrequency.get(termId))
+            assertEquals(sequential.termIdfScore.get(termId), parallel.termIdfScore.get(termId))
+            assertEquals(sequential.termMaxFrequency.get(termId), parallel.termMaxFrequency.get(termId))
+            assertEquals(sequential.termMinDocumentLength.get(termId), parallel.termMinDocumentLength.get(termId))
+
+            val expected = sequential.postingLists.get(termId).cursor()
+            val actual = parallel.postingLists.get(termId).cursor()
+            while (expected.nextDoc() != PostingList.NO_MORE_DOCS) {
+                assertEquals(expected.docId(), actual.nextDoc())
+                assertEquals(expected.termFrequency(), actual.termFrequency())
+            }
+            assertEquals(PostingList.NO_MORE_DOCS, actual.nextDoc())
+        }
+        for (document in documents) {
+            assertEquals(sequential.documentLengthMap.get(document.id), parallel.documentLengthMap.get(document.id))
+            // Bit-identical norms show that the weights were summed in the same order
+            assertEquals(sequential.documentNorms.get(document.id), parallel.documentNorms.get(document.id))
+            assertEquals(document.tokens.toSet().size, sequential.documentTermCounts.get(document.id))
+            assertEquals(sequential.documentTermCounts.get(document.id), parallel.documentTermCounts.get(document.id))
+        }
+    }
+
+    @Test
+    fun `Searchers sharing one index rank like searchers with their own index`() {
+        val corpusIndex = buildInParallel()
+        val queries = Searcher.parseDocumentFromFile("./data/LISA/queries.txt")
+        val pairs = listOf(
+            JaccardSearcher("./data/LISA/documents.txt") to JaccardSearcher(corpusIndex),
+            TFIDFSearcher("./data/LISA/documents.txt") to TFIDFSearcher(corpusIndex),
+            MyCoolSearcher("./data/LISA/documents.txt") to MyCoolSearcher(corpusIndex)
+        )
+        for ((own, shared) in pairs) {
+            for (query in queries) {
+                val expected = own.search(query.rawText, 20)
+                val actual = shared.search(query.rawText, 20)
+                assertEquals(expected.map { it.document.id }, actual.map { it.document.id })
+                assertEquals(expected.map { it.score }, actual.map { it.score })
+            }
+        }
+    }
+}
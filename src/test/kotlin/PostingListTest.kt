@@ -0,0 +1,130 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.nio.ByteBuffer
+import java.util.*
+
+internal class PostingListTest {
+
+    private fun build(docIds: List<Int>, withTermFrequencies: Boolean): PostingList {
+        val builder = PostingList.Builder(withTermFrequencies)
+        for (docId in docIds) {
+            builder.add(docId, docId % 7 + 1)
+        }
+        return builder.build()
+    }
+
+    @Test
+    fun `Cursor decodes every posting in order`() {
+        val random = Random(414)
+        val docIds = TreeSet<Int>()
+        while (docIds.size < 1000) {
+            docIds.add(random.nextInt(1000000) - 1000)
+        }
+        // Feed them unsorted to exercise the sort in the builder
+        val shuffled = docIds.toMutableList().apply { shuffle(random) }
+        val postingList = build(shuffled, true)
+
+        assertEquals(docIds.size, postingList.size())
+        val cursor = postingList.cursor()
+        assertEquals(-1, cursor.docId())
+        for (docId in docIds) {
+            assertEquals(docId, cursor.nextDoc())
+            assertEquals(docId % 7 + 1, cursor.termFrequency())
+        }
+        assertEquals(PostingList.NO_MORE_DOCS, cursor.nextDoc())
+        assertEquals(docIds.toList(), postingList.toDocIdArray().toList())
+    }
+
+    @Test
+    fun `SkipTo lands on the first posting at or after the target`() {
+        val random = Random(414)
+        val docIds = TreeSet<Int>()
+        while (docIds.size < 5000) {
+            docIds.add(random.nextInt(100000))
+        }
+        val postingList = build(docIds.toList(), false)
+        assertFalse(postingList.hasTermFrequencies())
+
+        for (round in 0 until 100) {
+            val cursor = postingList.cursor()
+            var target = 0
+            while (true) {
+                target += random.nextInt(2000)
+                val expected = docIds.ceiling(target) ?: PostingList.NO_MORE_DOCS
+                assertEquals(expected, cursor.skipTo(target))
+                if (expected == PostingList.NO_MORE_DOCS) {
+                    break
+                }
+                // Moving backward is a no-op
+                assertEquals(expected, cursor.skipTo(target - 1))
+            }
+        }
+    }
+
+    @Test
+    fun `Decoded cursors move exactly like encoded cursors`() {
+        val random = Random(414)
+        val docIds = TreeSet<Int>()
+        while (docIds.size < 5000) {
+            docIds.add(random.nextInt(100000))
+        }
+        for (withTermFrequencies in listOf(true, false)) {
+            val postingList = build(docIds.toList(), withTermFrequencies)
+            val decoded = postingList.decode()
+            for (round in 0 until 100) {
+                val encodedCursor = postingList.cursor()
+                val decodedCursor = decoded.cursor()
+                var target = 0
+                while (encodedCursor.docId() != PostingList.NO_MORE_DOCS) {
+                    // Mix single steps, skips inside a block and skips over blocks
+                    if (random.nextBoolean()) {
+                        assertEquals(encodedCursor.nextDoc(), decodedCursor.nextDoc())
+                    } else {
+                        target = maxOf(target, encodedCursor.docId()) + random.nextInt(if (random.nextBoolean()) 50 else 5000)
+                        assertEquals(encodedCursor.skipTo(target), decodedCursor.skipTo(target))
+                    }
+                    assertEquals(encodedCursor.termFrequency(), decodedCursor.termFrequency())
+                    assertEquals(encodedCursor.blockOf(target), decodedCursor.blockOf(target))
+                }
+                assertEquals(PostingList.NO_MORE_DOCS, decodedCursor.nextDoc())
+            }
+        }
+    }
+
+    @Test
+    fun `Duplicated document Ids keep the last posting`() {
+        val builder = PostingList.Builder(true)
+        builder.add(5, 1)
+        builder.add(3, 2)
+        builder.add(5, 9)
+        val cursor = builder.build().cursor()
+        assertEquals(3, cursor.nextDoc())
+        assertEquals(5, cursor.nextDoc())
+        assertEquals(9, cursor.termFrequency())
+        assertEquals(PostingList.NO_MORE_DOCS, cursor.nextDoc())
+    }
+
+    @Test
+    fun `Written bytes wrap into the same posting list`() {
+        val docIds = (0 until 1000).map { it * 3 + 1 }
+        val original = build(docIds, true)
+        val bytes = ByteArrayOutputStream()
+        original.writeTo(DataOutputStream(bytes))
+        assertEquals(original.sizeInBytes(), bytes.size().toLong())
+
+        val wrapped = PostingList.wrap(ByteBuffer.wrap(bytes.toByteArray()))
+        assertEquals(original.size(), wrapped.size())
+        assertTrue(wrapped.hasTermFrequencies())
+        val cursor = wrapped.cursor()
+        assertEquals(1501, cursor.skipTo(1500))
+        assertEquals(1501 % 7 + 1, cursor.termFrequency())
+        assertEquals(docIds.toList(), wrapped.toDocIdArray().toList())
+
+        assertThrows(IllegalArgumentException::class.java) {
+            PostingList.wrap(ByteBuffer.wrap(bytes.toByteArray().copyOf(bytes.size() - 1)))
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+
+internal class QueryEngineTest {
+
+    private val documents: List<Document> = Searcher.parseDocumentFromFile("./data/LISA/documents.txt")
+    private val queries: List<Document> = Searcher.parseDocumentFromFile("./data/LISA/queries.txt")
+    private val engine = QueryEngine(CorpusIndex.Builder(documents).build())
+
+    /**
+     * Ranking contract of every searcher: higher score first, ties broken by the smaller document Id
+     */
+    private fun rank(scores: Map<Int, Double>, k: Int): List<Pair<Int, Double>> =
+        documents.map { it.id to (scores[it.id] ?: 0.0) }
+            .sortedWith(compareByDescending<Pair<Int, Double>> { it.second }.thenBy { it.first })
+            .take(k)
+
+    private fun assertJaccard(similarity: Similarity) {
+        for (query in queries) {
+            val queryTokens = Searcher.tokenize(query.rawText).toSet()
+            val expected = documents.associate { document ->
+                val documentTokens = document.tokens.toSet()
+                val union = (queryTokens + documentTokens).size
+                document.id to if (union == 0) 0.0 else (queryTokens intersect documentTokens).size.toDouble() / union
+            }
+
+            val actual = engine.search(query.rawText, 20, similarity)
+            assertEquals(rank(expected, 20), actual.map { it.document.id to it.score })
+        }
+    }
+
+    @Test
+    fun `Jaccard plugin matches the Jaccard Coefficient of the token sets`() {
+        // Unbound, it merges the posting lists; bound, it counts the intersections term at a time
+        for (similarity in listOf(JaccardSimilarity(), JaccardSimilarity(engine.corpusIndex))) {
+            assertJaccard(similarity)
+        }
+    }
+
+    @Test
+    fun `A new model plugs in without an index of its own`() {
+        // Coordination level matching: the number of distinct query terms in the document
+        val coordination = object : Similarity {
+            override fun queryTermWeight(corpusIndex: CorpusIndex, termId: Int, queryTermFreq: Int) = 1.0
+            override fun termWeight(corpusIndex: CorpusIndex, termId: Int, termFreq: Int, docId: Int) = 1.0
+            override fun normalize(corpusIndex: CorpusIndex, docId: Int, score: Double, query: QueryEngine.Query) = score
+            override fun getFillScore() = 0.0
+        }
+        for (query in queries) {
+            val queryTokens = Searcher.tokenize(query.rawText).toSet()
+            val expected = documents.associate { document ->
+                document.id to document.tokens.toSet().count { it in queryTokens }.toDouble()
+            }
+
+            val actual = engine.search(query.rawText, 10, coordination)
+            assertEquals(rank(expected, 10), actual.map { it.document.id to it.score })
+        }
+    }
+
+    @Test
+    fun `BM25 bound to an index scores exactly like BM25 without precomputed data`() {
+        val corpusIndex = CorpusIndex.Builder(documents).build()
+        val otherIndex = CorpusIndex.Builder(documents.take(1000)).build()
+        for ((k1, b) in listOf(1.2 to 0.75, 0.5 to 0.0, 2.0 to 1.0)) {
+            val plain = BM25Similarity(k1, b, 2.0)
+            val bound = BM25Similarity(k1, b, 2.0, corpusIndex)
+            // The precomputed data only applies to its own index
+            for (index in listOf(corpusIndex, otherIndex)) {
+                for (termId in 1..index.termCount) {
+                    val cursor = index.openCursor(termId)
+                    while (cursor.docId() != PostingList.NO_MORE_DOCS) {
+                        assertEquals(plain.termWeight(index, termId, cursor.termFrequency(), cursor.docId()),
+                            bound.termWeight(index, termId, cursor.termFrequency(), cursor.docId()))
+                        cursor.nextDoc()
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `Term-at-a-time TF-IDF ranks exactly like document-at-a-time`() {
+        val corpusIndex = CorpusIndex.Builder(documents).build()
+        val engine = QueryEngine(corpusIndex)
+        val plain = TfIdfSimilarity()
+        val bound = TfIdfSimilarity(corpusIndex)
+        // Twice in a row, so the second search runs on the reused accumulator
+        for (query in queries + queries) {
+            for (k in listOf(1, 10, 100)) {
+                val expected = engine.search(query.rawText, k, plain)
+                val actual = engine.search(query.rawText, k, bound)
+                assertEquals(expected.map { it.document.id }, actual.map { it.document.id })
+                assertEquals(expected.map { it.score }, actual.map { it.score })
+            }
+        }
+    }
+
+    @Test
+    fun `Batch search returns the results of searching one query at a time`() {
+        val queryStrings = queries.map { it.rawText } + StudentTester.testQueries + queries.take(5).map { it.rawText }
+        val corpusIndex = engine.corpusIndex
+        val searchers = listOf(
+            TFIDFSearcher(corpusIndex), MyCoolSearcher(corpusIndex), JaccardSearcher(corpusIndex),
+            JaccardSearcher(corpusIndex, 64, 32, true), CachingSearcher(MyCoolSearcher(corpusIndex), 8)
+        )
+        for (searcher in searchers) {
+            for (k in listOf(1, 10, 100)) {
+                val batch = searcher.searchBatch(queryStrings, k)
+                assertEquals(queryStrings.size, batch.size)
+                for ((i, query) in queryStrings.withIndex()) {
+                    val expected = searcher.search(query, k)
+                    assertEquals(expected.map { it.document.id }, batch[i].map { it.document.id })
+                    assertEquals(expected.map { it.score }, batch[i].map { it.score })
+                }
+            }
+        }
+
+        // Without a pool, on the calling thread
+        val similarity = BM25Similarity(1.2, 0.75, 2.0, corpusIndex)
+        val batch = engine.searchBatch(queryStrings, 10, similarity, null)
+        assertEquals(queryStrings.map { query -> engine.search(query, 10, similarity).map { it.document.id to it.score } },
+            batch.map { results -> results.map { it.document.id to it.score } })
+    }
+}
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+import java.util.concurrent.Executors
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+internal class SnapshotSearcherTest {
+
+    private val documents: List<Document> = Searcher.parseDocumentFromFile("./data/LISA/documents.txt")
+    private val queries: List<String> = Searcher.parseDocumentFromFile("./data/LISA/queries.txt").map { it.rawText }
+
+    /**
+     * The first half of the corpus, then the whole corpus
+     */
+    private val oldIndex = CorpusIndex.Builder(documents.subList(0, documents.size / 2)).build()
+    private val newIndex = CorpusIndex.Builder(documents).build()
+
+    private fun ranking(results: List<SearchResult>) = results.map { it.document.id to it.score }
+
+    @Test
+    fun `Searches run against the index that was swapped in last`() {
+        val searcher = SnapshotSearcher(oldIndex, { MyCoolSearcher(it) }, ForkJoinPool.commonPool())
+        assertEquals(0L, searcher.snapshot.generation)
+        for (query in queries.take(10)) {
+            assertEquals(ranking(MyCoolSearcher(oldIndex).search(query, 10)), ranking(searcher.search(query, 10)))
+        }
+
+        val snapshot = searcher.swap(newIndex)
+        assertSame(snapshot, searcher.snapshot)
+        assertEquals(1L, snapshot.generation)
+        val expected = MyCoolSearcher(newIndex).searchBatch(queries, 10).map { ranking(it) }
+        assertEquals(expected, searcher.searchBatch(queries, 10).map { ranking(it) })
+    }
+
+    @Test
+    fun `A refresh indexes in the background and then swaps`() {
+        val searcher = SnapshotSearcher(oldIndex, { TFIDFSearcher(it) }, ForkJoinPool.commonPool())
+        val snapshot = searcher.refresh(documents).get(60, TimeUnit.SECONDS)
+        assertSame(snapshot, searcher.snapshot)
+        assertEquals(documents.size, snapshot.corpusIndex.documents.size)
+        for (query in queries.take(10)) {
+            assertEquals(ranking(TFIDFSearcher(newIndex).search(query, 10)), ranking(searcher.search(query, 10)))
+        }
+    }
+
+    @Test
+    fun `An older snapshot never replaces a newer one`() {
+        val searcher = SnapshotSearcher(oldIndex, { JaccardSearcher(it) }, ForkJoinPool.commonPool())
+        // The refresh is requested first, so the swap requested after it wins however they finish
+        val refresh = searcher.refresh(documents.subList(0, 100))
+        val swapped = searcher.swap(newIndex)
+        val refreshed = refresh.get(60, TimeUnit.SECONDS)
+        assertTrue(refreshed.generation < swapped.generation)
+        assertSame(swapped, searcher.snapshot)
+    }
+
+    @Test
+    fun `The generation keeps cached results of an old snapshot from being returned`() {
+        val searcher = SnapshotSearcher(oldIndex, { MyCoolSearcher(it) }, ForkJoinPool.commonPool())
+        val cache = CachingSearcher(searcher, 100)
+        val query = queries[0]
+        assertEquals(ranking(MyCoolSearcher(oldIndex).search(query, 10)), ranking(cache.search(query, 10)))
+        searcher.swap(newIndex)
+        assertEquals(ranking(MyCoolSearcher(newIndex).search(query, 10)), ranking(cache.search(query, 10)))
+        assertEquals(0, cache.hitCount)
+        assertEquals(listOf<Any>(1L) + MyCoolSearcher(newIndex).rankingParameters, searcher.rankingParameters)
+    }
+
+    @Test
+    fun `Concurrent searches see either snapshot whole while the index is swapped`() {
+        val searcher = SnapshotSearcher(oldIndex, { MyCoolSearcher(it) }, ForkJoinPool.commonPool())
+        val oldResults = queries.map { ranking(MyCoolSearcher(oldIndex).search(it, 10)) }
+        val newResults = queries.map { ranking(MyCoolSearcher(newIndex).search(it, 10)) }
+
+        val swapping = AtomicBoolean(true)
+        val executor = Executors.newFixedThreadPool(3)
+        val futures = (0 until 3).map { thread ->
+            executor.submit {
+                var round = 0
+                while (swapping.get() || round < 2) {
+                    for (i in queries.indices) {
+                        val q = (i + thread * 11) % queries.size
+                        val actual = ranking(searcher.search(queries[q], 10))
+                        assertTrue(actual == oldResults[q] || actual == newResults[q])
+                    }
+                    round++
+                }
+            }
+        }
+        for (swap in 1..6) {
+            searcher.swap(if (swap % 2 == 0) oldIndex else newIndex)
+            Thread.sleep(20)
+        }
+        swapping.set(false)
+        futures.forEach { it.get() }
+        executor.shutdown()
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS))
+        assertEquals(6L, searcher.snapshot.generation)
+    }
+}
@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+import opennlp.tools.stemmer.PorterStemmer
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+internal class StemCacheTest {
+
+    private fun StemCache.get(word: String): String? = get(word.toCharArray(), word.length)
+
+    private fun StemCache.put(word: String, stem: String) = put(word.toCharArray(), word.length, stem)
+
+    @Test
+    fun `Tokens are the same with and without the cache`() {
+        val documents = Searcher.parseDocumentFromFile("./data/LISA/documents.txt", null)
+        val original = Tokenizer.getStemCache()
+        try {
+            Tokenizer.setStemCache(null)
+            val expected = documents.map { Searcher.tokenize(it.rawText) }
+
+            // A tiny cache forces evictions all the time
+            val cache = StemCache(16)
+            Tokenizer.setStemCache(cache)
+            assertEquals(expected, documents.map { Searcher.tokenize(it.rawText) })
+            assertTrue(cache.hitCount > 0)
+            assertTrue(cache.evictionCount > 0)
+            assertTrue(cache.size() <= cache.capacity())
+        } finally {
+            Tokenizer.setStemCache(original)
+        }
+    }
+
+    @Test
+    fun `Counters and second chance eviction`() {
+        // Capacity 1 rounds up to a single set of WAYS slots
+        val cache = StemCache(1)
+        assertEquals(StemCache.WAYS, cache.capacity())
+        assertEquals(0.0, cache.hitRatio)
+
+        assertNull(cache.get("running"))
+        cache.put("running", "run")
+        assertEquals("run", cache.get("running"))
+        assertEquals(1, cache.hitCount)
+        assertEquals(1, cache.missCount)
+        assertEquals(0.5, cache.hitRatio)
+
+        for (i in 1 until StemCache.WAYS) {
+            cache.put("word$i", "word$i")
+        }
+        assertEquals(StemCache.WAYS, cache.size())
+        assertEquals(0, cache.evictionCount)
+
+        // "running" was referenced, so the first unreferenced entry goes instead
+        cache.put("extra", "extra")
+        assertEquals(1, cache.evictionCount)
+        assertEquals(StemCache.WAYS, cache.size())
+        assertEquals("run", cache.get("running"))
+        assertNull(cache.get("word1"))
+        assertEquals("extra", cache.get("extra"))
+    }
+
+    @Test
+    fun `Rejects a non-positive capacity`() {
+        assertThrows(IllegalArgumentException::class.java) { StemCache(0) }
+    }
+
+    @Test
+    fun `Concurrent lookups never return a wrong stem`() {
+        val words = (0 until 2000).map { "term${it}ing" }
+        val stems = words.map { PorterStemmer().stem(it) }
+        val cache = StemCache(256)
+        val pool = Executors.newFixedThreadPool(4)
+        val failures = AtomicInteger()
+        repeat(4) { thread ->
+            pool.execute {
+                for (round in 0 until 20) {
+                    for (i in words.indices) {
+                        val index = (i * (thread + 1) + round) % words.size
+                        val cached = cache.get(words[index])
+                        if (cached == null) {
+                            cache.put(words[index], stems[index])
+                        } else if (cached != stems[index]) {
+                            failures.incrementAndGet()
+                        }
+                    }
+                }
+            }
+        }
+        pool.shutdown()
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES))
+        assertEquals(0, failures.get())
+        assertTrue(cache.size() <= cache.capacity())
+        assertEquals(4L * 20 * words.size, cache.hitCount + cache.missCount)
+    }
+}
@@ -20,14 +20,14 @@ internal class TfIdfScoreTest {
             override fun onCalculation(
                 dv: TFIDFSearcher.DocumentVector,
                 totalDocument: Int,
-                termDocFrequency: MutableMap<Int, Int>
+                termDocFrequency: IntIntHashMap
             ) {
                 println("N (Total Document) = $totalDocument")
 
                 println()
                 println("Printing Vector...")
-                for (entry in dv.vector){
-                    println("\tTermId = ${String.format("%4d", entry.key)}\thas the docFreq of ${termDocFrequency[entry.key]}\tand the termFreq of ${entry.value.toInt()}")
+                for (termId in dv.vector.sortedKeys()){
+                    println("\tTermId = ${String.format("%4d", termId)}\thas the docFreq of ${termDocFrequency.get(termId)}\tand the termFreq of ${dv.vector.get(termId).toInt()}")
                 }
             }
 
@@ -35,8 +35,8 @@ internal class TfIdfScoreTest {
                 println("\nResult of TfIdf Weight Calculation of Vector #${dv.docId}")
                 println("\tNorm = ${dv.norm}")
 
-                for (entry in dv.vector){
-                    println("\tTermId = ${String.format("%4d", entry.key)}\thas the score of ${entry.value}")
+                for (termId in dv.vector.sortedKeys()){
+                    println("\tTermId = ${String.format("%4d", termId)}\thas the score of ${dv.vector.get(termId)}")
                 }
 
                 println()
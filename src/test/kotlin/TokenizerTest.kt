@@ -0,0 +1,33 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+
+internal class TokenizerTest {
+
+    private fun assertSameTokens(rawText: String) {
+        assertEquals(Searcher.tokenizeWithRegex(rawText), Searcher.tokenize(rawText), rawText)
+    }
+
+    @Test
+    fun `Same tokens as the regex tokenizer on every LISA document and query`() {
+        val documents = Searcher.parseDocumentFromFile("./data/LISA/documents.txt", null)
+        val queries = Searcher.parseDocumentFromFile("./data/LISA/queries.txt", null)
+        for (document in documents + queries) {
+            assertSameTokens(document.rawText)
+        }
+        for (query in StudentTester.testQueries) {
+            assertSameTokens(query)
+        }
+    }
+
+    @Test
+    fun `Same tokens on edge cases`() {
+        listOf(
+            "", " ", "a", "ab", "  Leading and trailing  ", "THE", "the's", "aren't", "can't stop",
+            "x1 2y 33 a_b a-b", "tab\tseparated\nlines\r\n", "UPPER lower MiXeD",
+            "antidisestablishmentarianismantidisestablishmentarianismantidisestablishmentarianism",
+            // Non-ASCII texts take the regex path
+            "Café naïve", "Kelvin", "İstanbul", "😀 emoji"
+        ).forEach { assertSameTokens(it) }
+    }
+}
@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.Test
+
+import org.junit.jupiter.api.Assertions.*
+import java.util.*
+
+internal class TopKCollectorTest {
+
+    private val documentDict: TreeMap<Int, Document> = TreeMap<Int, Document>().apply {
+        for (id in 1..200) {
+            put(id, Document(id, "Document #$id", listOf()))
+        }
+    }
+
+    /**
+     * The ranking that TFIDFSearcher used to produce by sorting every document in the corpus
+     */
+    private fun fullSort(scores: Map<Int, Double>, fillScore: Double, k: Int): List<SearchResult> {
+        val all = documentDict.values.map { SearchResult(it, scores[it.id] ?: fillScore) }
+        return all.sortedWith(Comparator { o1, o2 ->
+            val a = if (o1.score.isNaN()) Double.MIN_VALUE else o1.score
+            val b = if (o2.score.isNaN()) Double.MIN_VALUE else o2.score
+            val compare = b.compareTo(a)
+            if (compare == 0) o1.document.id - o2.document.id else compare
+        }).take(k)
+    }
+
+    @Test
+    fun `Top k matches the full corpus sort`() {
+        val random = Random(414)
+        for (round in 0 until 50) {
+            // Few distinct values so that ties on score are frequent
+            val scores = HashMap<Int, Double>()
+            for (id in documentDict.keys) {
+                if (random.nextInt(4) == 0) {
+                    scores[id] = random.nextInt(8) / 8.0 + 0.125
+                }
+            }
+            for (k in listOf(0, 1, 10, 50, 500)) {
+                val collector = TopKCollector(k)
+                scores.forEach { (id, score) -> collector.collect(id, score) }
+
+                val actual = collector.finalizeSearchResult(documentDict, Double.NaN)
+                val expected = fullSort(scores, Double.NaN, k)
+                assertEquals(expected.size, actual.size)
+                for (i in expected.indices) {
+                    assertEquals(expected[i].document.id, actual[i].document.id)
+                    assertEquals(expected[i].score, actual[i].score)
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `Pads with the lowest non-matching Ids`() {
+        val collector = TopKCollector(5)
+        collector.collect(3, 0.5)
+        collector.collect(1, 0.7)
+
+        val actual = collector.finalizeSearchResult(documentDict, 0.0)
+        assertEquals(listOf(1, 3, 2, 4, 5), actual.map { it.document.id })
+        assertEquals(0.0, actual[4].score)
+    }
+}